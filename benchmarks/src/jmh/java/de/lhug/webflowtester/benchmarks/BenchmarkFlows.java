@@ -0,0 +1,58 @@
+package de.lhug.webflowtester.benchmarks;
+
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Benchmark state generating the flow under test into a temporary directory.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkFlows {
+
+	@Param({ "LINEAR", "INHERITANCE", "BINDING" })
+	public FlowShape shape;
+
+	@Param({ "5", "50", "250" })
+	public int size;
+
+	private Path directory;
+
+	@Setup
+	public void writeFlows() throws IOException {
+		directory = Files.createTempDirectory("webflow-benchmark");
+		GeneratedFlows.write(shape, size, directory);
+	}
+
+	/**
+	 * Creates a fresh configuration for the generated flow, as a configuration
+	 * caches its resources once they have been created.
+	 *
+	 * @return a configuration of the generated flow
+	 */
+	public XMLMockFlowConfiguration configuration() {
+		return GeneratedFlows.configuration(shape, size, directory);
+	}
+
+	@TearDown
+	public void deleteFlows() throws IOException {
+		try (Stream<Path> files = Files.walk(directory)) {
+			files.sorted(Comparator.reverseOrder()).forEach(file -> {
+				try {
+					Files.delete(file);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package de.lhug.webflowtester.benchmarks;
+
+import java.io.Serializable;
+
+/**
+ * Model object bound by the view states of {@link FlowShape#BINDING} flows.
+ */
+public class BenchmarkForm implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private String firstName;
+	private String lastName;
+	private String street;
+	private String city;
+	private int zipCode;
+	private String email;
+	private boolean newsletter;
+
+	public String getFirstName() {
+		return firstName;
+	}
+
+	public void setFirstName(String firstName) {
+		this.firstName = firstName;
+	}
+
+	public String getLastName() {
+		return lastName;
+	}
+
+	public void setLastName(String lastName) {
+		this.lastName = lastName;
+	}
+
+	public String getStreet() {
+		return street;
+	}
+
+	public void setStreet(String street) {
+		this.street = street;
+	}
+
+	public String getCity() {
+		return city;
+	}
+
+	public void setCity(String city) {
+		this.city = city;
+	}
+
+	public int getZipCode() {
+		return zipCode;
+	}
+
+	public void setZipCode(int zipCode) {
+		this.zipCode = zipCode;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public void setEmail(String email) {
+		this.email = email;
+	}
+
+	public boolean isNewsletter() {
+		return newsletter;
+	}
+
+	public void setNewsletter(boolean newsletter) {
+		this.newsletter = newsletter;
+	}
+}
@@ -0,0 +1,30 @@
+package de.lhug.webflowtester.benchmarks;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.springframework.webflow.engine.Flow;
+
+/**
+ * Measures {@link XMLMockFlowBuilder#buildFlow()}, from parsing the flow
+ * definitions to the assembled {@link Flow}, with the beans of the flow held in
+ * a refreshed {@code StaticApplicationContext} or a
+ * {@code LightweightApplicationContext}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BuildFlowBenchmark {
+
+	@Benchmark
+	public Flow buildFlow(BenchmarkFlows flows) {
+		return new XMLMockFlowBuilder(flows.configuration()).buildFlow();
+	}
+
+	@Benchmark
+	public Flow buildFlowWithLightweightContext(BenchmarkFlows flows) {
+		return new XMLMockFlowBuilder(flows.configuration()).withLightweightContext().buildFlow();
+	}
+}
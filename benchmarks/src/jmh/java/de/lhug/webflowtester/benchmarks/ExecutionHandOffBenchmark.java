@@ -0,0 +1,52 @@
+package de.lhug.webflowtester.benchmarks;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.executor.MockFlowTester;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.webflow.execution.FlowExecution;
+
+/**
+ * Measures handing an execution over to a tester of another copy of the flow,
+ * as {@link MockFlowTester#exportExecution()} on one node and
+ * {@link MockFlowTester#importExecution(byte[])} on the other.
+ * <p>
+ * The size of the transferred execution is reported by
+ * {@link de.lhug.webflowtester.executor.ExecutionHandOff}, as JMH only
+ * measures time.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ExecutionHandOffBenchmark {
+
+	private MockFlowTester source;
+	private MockFlowTester target;
+	private byte[] exported;
+
+	@Setup
+	public void startFlow(BenchmarkFlows flows) {
+		source = MockFlowTester.from(new XMLMockFlowBuilder(flows.configuration()));
+		target = MockFlowTester.from(new XMLMockFlowBuilder(flows.configuration()));
+		source.startFlow();
+		exported = source.exportExecution();
+	}
+
+	@Benchmark
+	public byte[] export() {
+		return source.exportExecution();
+	}
+
+	@Benchmark
+	public FlowExecution rehydrate() {
+		target.importExecution(exported);
+		return target.getCurrentFlowExecution();
+	}
+}
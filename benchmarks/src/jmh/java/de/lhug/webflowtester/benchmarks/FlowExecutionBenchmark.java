@@ -0,0 +1,70 @@
+package de.lhug.webflowtester.benchmarks;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.executor.MockFlowTester;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.execution.FlowExecution;
+
+/**
+ * Measures {@link MockFlowTester#startFlow()} and
+ * {@link MockFlowTester#resumeFlow(Map)} against a flow built once per trial.
+ * <p>
+ * Resuming uses the request parameters of
+ * {@link GeneratedFlows#requestParameters(FlowShape)}, so for
+ * {@link FlowShape#BINDING} flows every resume includes binding and validating
+ * the model in {@code MockView}.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FlowExecutionBenchmark {
+
+	private MockFlowTester tester;
+	private Map<String, Object> requestParameters;
+
+	@Setup
+	public void buildFlow(BenchmarkFlows flows) {
+		Flow flow = new XMLMockFlowBuilder(flows.configuration()).buildFlow();
+		tester = MockFlowTester.from(() -> flow);
+		requestParameters = GeneratedFlows.requestParameters(flows.shape);
+	}
+
+	@Setup(Level.Iteration)
+	public void startFlow() {
+		tester.startFlow();
+	}
+
+	@Benchmark
+	public FlowExecution start() {
+		tester.startFlow();
+		return tester.getCurrentFlowExecution();
+	}
+
+	@Benchmark
+	public FlowExecution resume() {
+		tester.setEventId(GeneratedFlows.REFRESH);
+		tester.resumeFlow(requestParameters);
+		return tester.getCurrentFlowExecution();
+	}
+
+	@Benchmark
+	public String runToEnd(BenchmarkFlows flows) {
+		tester.startFlow();
+		tester.setEventId(GeneratedFlows.NEXT);
+		for (int i = 0; i < flows.size; i++) {
+			tester.resumeFlow(requestParameters);
+		}
+		return tester.getFlowOutcome();
+	}
+}
@@ -0,0 +1,24 @@
+package de.lhug.webflowtester.benchmarks;
+
+/**
+ * The kinds of flows generated by {@link GeneratedFlows}.
+ */
+public enum FlowShape {
+
+	/**
+	 * A chain of view states, each setting a view scoped variable on entry
+	 */
+	LINEAR,
+
+	/**
+	 * A chain of view states spread over a child flow and a hierarchy of
+	 * abstract parent flows, five states per flow
+	 */
+	INHERITANCE,
+
+	/**
+	 * A chain of view states all binding request parameters to a flow scoped
+	 * {@link BenchmarkForm}
+	 */
+	BINDING
+}
@@ -0,0 +1,171 @@
+package de.lhug.webflowtester.benchmarks;
+
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes synthetic flow definitions of a given {@link FlowShape} and size.
+ * <p>
+ * All generated flows consist of {@code size} view states {@code s0} to
+ * {@code s<size-1>}, connected by {@value #NEXT} transitions and ending in the
+ * end state {@code end}. Every view state additionally declares a
+ * {@value #REFRESH} transition without target, which re-renders the state and
+ * allows resuming the same execution indefinitely.
+ * </p>
+ */
+public final class GeneratedFlows {
+
+	/**
+	 * The id of the main flow
+	 */
+	public static final String FLOW_ID = "benchmarkFlow";
+
+	/**
+	 * Event moving on to the next state
+	 */
+	public static final String NEXT = "next";
+
+	/**
+	 * Event staying in the current state
+	 */
+	public static final String REFRESH = "refresh";
+
+	private static final int STATES_PER_FLOW = 5;
+
+	private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<flow xmlns=\"http://www.springframework.org/schema/webflow\"\n"
+			+ "      xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+			+ "      xsi:schemaLocation=\"http://www.springframework.org/schema/webflow\n"
+			+ "                          http://www.springframework.org/schema/webflow/spring-webflow-2.0.xsd\"";
+
+	private GeneratedFlows() {
+	}
+
+	/**
+	 * Writes the flow and all its parent flows to the given directory.
+	 *
+	 * @param shape     the kind of flow to generate
+	 * @param size      the number of view states, greater than 0
+	 * @param directory the directory to write the flow definitions to
+	 * @return a configuration for the generated flow
+	 */
+	public static XMLMockFlowConfiguration write(FlowShape shape, int size, Path directory) {
+		try {
+			switch (shape) {
+			case INHERITANCE:
+				writeHierarchy(size, directory);
+				break;
+			case BINDING:
+				writeFlow(directory, FLOW_ID, "",
+						"\t<on-start>\n"
+								+ "\t\t<set name=\"flowScope.form\" value=\"new " + BenchmarkForm.class.getName()
+								+ "()\" />\n"
+								+ "\t</on-start>\n"
+								+ states(0, size, size, " model=\"form\"")
+								+ "\t<end-state id=\"end\" />\n");
+				break;
+			default:
+				writeFlow(directory, FLOW_ID, "", states(0, size, size, "") + "\t<end-state id=\"end\" />\n");
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return configuration(shape, size, directory);
+	}
+
+	/**
+	 * Creates a configuration for a flow previously {@link #write(FlowShape, int,
+	 * Path) written}.
+	 * <p>
+	 * As a configuration caches the flow resources it creates, every build needs
+	 * its own configuration.
+	 *
+	 * @param shape     the kind of the generated flow
+	 * @param size      the number of view states of the generated flow
+	 * @param directory the directory the flow definitions were written to
+	 * @return a configuration for the generated flow
+	 */
+	public static XMLMockFlowConfiguration configuration(FlowShape shape, int size, Path directory) {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration(
+				directory.resolve(FLOW_ID + ".xml").toFile());
+		if (shape == FlowShape.INHERITANCE) {
+			for (int parent = 0; parent < parentCount(size); parent++) {
+				configuration.addParentFlow(directory.resolve("parent" + parent + ".xml").toFile());
+			}
+		}
+		return configuration;
+	}
+
+	private static int parentCount(int size) {
+		int flows = (size + STATES_PER_FLOW - 1) / STATES_PER_FLOW;
+		return Math.max(1, flows - 1);
+	}
+
+	private static void writeHierarchy(int size, Path directory) throws IOException {
+		int parents = parentCount(size);
+		writeFlow(directory, FLOW_ID, " parent=\"parent0\"", states(0, Math.min(size, STATES_PER_FLOW), size, ""));
+		for (int parent = 0; parent < parents; parent++) {
+			int first = (parent + 1) * STATES_PER_FLOW;
+			boolean root = parent == parents - 1;
+			String attributes = root
+					? " abstract=\"true\""
+					: " abstract=\"true\" parent=\"parent" + (parent + 1) + "\"";
+			String content = states(first, Math.min(size, first + STATES_PER_FLOW), size, "")
+					+ (root ? "\t<end-state id=\"end\" />\n" : "")
+					+ "\t<global-transitions>\n"
+					+ "\t\t<transition on=\"cancel" + parent + "\" to=\"end\" />\n"
+					+ "\t</global-transitions>\n";
+			writeFlow(directory, "parent" + parent, attributes, content);
+		}
+	}
+
+	private static String states(int from, int to, int size, String viewStateAttributes) {
+		StringBuilder states = new StringBuilder();
+		for (int i = from; i < to; i++) {
+			String next = i + 1 < size ? "s" + (i + 1) : "end";
+			states.append("\t<view-state id=\"s").append(i).append('"').append(viewStateAttributes).append(">\n")
+					.append("\t\t<on-entry>\n")
+					.append("\t\t\t<set name=\"viewScope.index\" value=\"").append(i).append("\" />\n")
+					.append("\t\t</on-entry>\n")
+					.append("\t\t<transition on=\"").append(NEXT).append("\" to=\"").append(next).append("\" />\n")
+					.append("\t\t<transition on=\"").append(REFRESH).append("\" />\n")
+					.append("\t</view-state>\n");
+		}
+		return states.toString();
+	}
+
+	private static void writeFlow(Path directory, String id, String attributes, String content)
+			throws IOException {
+		Files.writeString(directory.resolve(id + ".xml"), HEADER + attributes + ">\n" + content + "</flow>\n",
+				StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the request parameters to resume a flow of the given shape with.
+	 *
+	 * @param shape the kind of flow
+	 * @return the request parameters, bound to the model of
+	 *         {@link FlowShape#BINDING} flows
+	 */
+	public static Map<String, Object> requestParameters(FlowShape shape) {
+		if (shape != FlowShape.BINDING) {
+			return Collections.emptyMap();
+		}
+		Map<String, Object> parameters = new LinkedHashMap<>();
+		parameters.put("firstName", "Jane");
+		parameters.put("lastName", "Doe");
+		parameters.put("street", "Main Street 1");
+		parameters.put("city", "Springfield");
+		parameters.put("zipCode", "12345");
+		parameters.put("email", "jane.doe@example.com");
+		parameters.put("newsletter", "true");
+		return parameters;
+	}
+}
@@ -0,0 +1,57 @@
+package de.lhug.webflowtester.builder;
+
+import java.time.Duration;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.webflow.definition.registry.FlowDefinitionRegistry;
+import org.springframework.webflow.engine.Flow;
+
+/**
+ * Outcome of a {@link BulkXMLFlowBuilder#build() bulk build}.
+ *
+ * Holds the registry of all flows which could be built, the time spent on
+ * building each flow, and the failure of each flow which could not be built.
+ * Abstract flows are parsed, and therefore timed, but are neither assembled nor
+ * registered.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class BulkBuildResult {
+
+	/**
+	 * The registry holding all successfully built {@link Flow}s by their id
+	 */
+	private final FlowDefinitionRegistry registry;
+
+	/**
+	 * The time spent on parsing and assembling each flow, by flow id, in the order
+	 * the flows have been found
+	 */
+	private final Map<String, Duration> timings;
+
+	/**
+	 * The failure of each flow which could not be built, by flow id
+	 */
+	private final Map<String, Throwable> failures;
+
+	/**
+	 * Returns the built {@link Flow} with the given id.
+	 *
+	 * @param flowId the id of the flow
+	 * @return the built {@link Flow}
+	 * @throws org.springframework.webflow.definition.registry.NoSuchFlowDefinitionException
+	 *         if no flow with the given id has been built
+	 */
+	public Flow getFlow(String flowId) {
+		return (Flow) registry.getFlowDefinition(flowId);
+	}
+
+	/**
+	 * @return {@code true}, if every flow found has been built
+	 */
+	public boolean isSuccessful() {
+		return failures.isEmpty();
+	}
+}
@@ -0,0 +1,382 @@
+package de.lhug.webflowtester.builder;
+
+import de.lhug.webflowtester.builder.configuration.ExternalizedMockFlowConfiguration;
+import de.lhug.webflowtester.builder.configuration.FlowTestContext;
+import de.lhug.webflowtester.builder.configuration.ResourceMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.Assert;
+import org.springframework.util.StringUtils;
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.config.FlowDefinitionResourceFactory;
+import org.springframework.webflow.definition.registry.FlowDefinitionRegistry;
+import org.springframework.webflow.definition.registry.FlowDefinitionRegistryImpl;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.builder.FlowBuilder;
+import org.springframework.webflow.engine.builder.model.FlowModelFlowBuilder;
+import org.springframework.webflow.engine.model.builder.DefaultFlowModelHolder;
+import org.springframework.webflow.engine.model.builder.xml.XmlFlowModelBuilder;
+import org.springframework.webflow.engine.model.registry.FlowModelHolder;
+import org.springframework.webflow.engine.model.registry.FlowModelRegistryImpl;
+
+/**
+ * Builds all XML flow definitions found below a base path at once.
+ *
+ * The flow ids are derived from the resource locations by a
+ * {@link FlowDefinitionResourceFactory} in the same way as by
+ * {@link ExternalizedMockFlowConfiguration#withBasePath(String)}, so
+ * {@code ${basePath}/hotels/booking/booking.xml} becomes {@code hotels/booking}.
+ * Parent flows referenced by the {@code parent} attribute are resolved among
+ * the found flows.
+ *
+ * Building happens in two phases on a {@link ForkJoinPool}: first, the flow
+ * models are parsed in parallel, level by level, so every parent has been
+ * parsed before its children are merged with it. Then all flows which are not
+ * abstract are assembled in parallel. Flows failing in either phase, and the
+ * children of failed parents, are reported in the {@link BulkBuildResult}
+ * instead of aborting the whole build.
+ *
+ * Each flow is assembled with its own
+ * {@link org.springframework.context.ApplicationContext ApplicationContext},
+ * holding the beans and messages of the {@link #withContext(FlowTestContext)
+ * FlowTestContext}. Sub flows are looked up in the {@link FlowTestContext}
+ * first, then among the built flows.
+ */
+public class BulkXMLFlowBuilder {
+
+	/**
+	 * The pattern used to find flow definitions below the base path, unless
+	 * {@link #withPattern(String) configured} otherwise
+	 */
+	public static final String DEFAULT_PATTERN = "**/*.xml";
+
+	private static final String FLOW_NAMESPACE = "http://www.springframework.org/schema/webflow";
+
+	private final String basePath;
+	private String pattern = DEFAULT_PATTERN;
+	private FlowTestContext context;
+	private ForkJoinPool pool = ForkJoinPool.commonPool();
+	private boolean sharedServices;
+	private boolean lightweightContext;
+	private ApplicationContext parentContext;
+
+	/**
+	 * Creates a builder for all flows below the given base path.
+	 *
+	 * @param basePath the Spring resource location to scan, such as
+	 *                 {@code classpath:flows} or {@code file:src/main/webapp/flows}
+	 */
+	public BulkXMLFlowBuilder(String basePath) {
+		Assert.hasText(basePath, "Base path must not be empty");
+		this.basePath = basePath;
+	}
+
+	/**
+	 * Sets the Ant-style pattern, relative to the base path, used to find the
+	 * flow definitions. Defaults to {@value #DEFAULT_PATTERN}.
+	 *
+	 * @param pattern the pattern to find flow definitions with
+	 * @return this
+	 */
+	public BulkXMLFlowBuilder withPattern(String pattern) {
+		Assert.hasText(pattern, "Pattern must not be empty");
+		this.pattern = pattern;
+		return this;
+	}
+
+	/**
+	 * Configures the beans, sub flows and messages registered with every built
+	 * flow, see {@link ExternalizedMockFlowBuilder#withContext(FlowTestContext)}.
+	 *
+	 * @param context the {@link FlowTestContext}, or {@code null}
+	 * @return this
+	 */
+	public BulkXMLFlowBuilder withContext(FlowTestContext context) {
+		this.context = context;
+		return this;
+	}
+
+	/**
+	 * Sets the {@link ForkJoinPool} the flows are built on. Defaults to the
+	 * {@link ForkJoinPool#commonPool() common pool}.
+	 *
+	 * @param pool the {@link ForkJoinPool} to use
+	 * @return this
+	 */
+	public BulkXMLFlowBuilder withPool(ForkJoinPool pool) {
+		Assert.notNull(pool, "Pool must not be null");
+		this.pool = pool;
+		return this;
+	}
+
+	/**
+	 * Configures all flows to be built with shared services, see
+	 * {@link ExternalizedMockFlowBuilder#withSharedServices()}.
+	 *
+	 * @return this
+	 */
+	public BulkXMLFlowBuilder withSharedServices() {
+		this.sharedServices = true;
+		return this;
+	}
+
+	/**
+	 * Configures all flows to hold their beans in a lightweight context, see
+	 * {@link ExternalizedMockFlowBuilder#withLightweightContext()}.
+	 *
+	 * @return this
+	 */
+	public BulkXMLFlowBuilder withLightweightContext() {
+		this.lightweightContext = true;
+		return this;
+	}
+
+	/**
+	 * Configures all flows to be built with a child of the passed context, see
+	 * {@link ExternalizedMockFlowBuilder#withParentContext(ApplicationContext)}.
+	 *
+	 * @param parentContext the parent {@link ApplicationContext}, or {@code null}
+	 * @return this
+	 */
+	public BulkXMLFlowBuilder withParentContext(ApplicationContext parentContext) {
+		this.parentContext = parentContext;
+		return this;
+	}
+
+	/**
+	 * Finds, parses and assembles all flows.
+	 *
+	 * @return the {@link BulkBuildResult} holding the built flows, the timings and
+	 *         the failures
+	 * @throws IllegalStateException if the base path can not be scanned
+	 */
+	public BulkBuildResult build() {
+		Map<String, Throwable> failures = new ConcurrentHashMap<>();
+		Map<String, Long> nanos = new ConcurrentHashMap<>();
+		Map<String, ScannedFlow> flows = scan(failures);
+
+		FlowModelRegistryImpl modelRegistry = new FlowModelRegistryImpl();
+		for (ScannedFlow flow : flows.values()) {
+			flow.modelHolder = new DefaultFlowModelHolder(new XmlFlowModelBuilder(flow.resource.getPath(), modelRegistry));
+			modelRegistry.registerFlowModel(flow.getId(), flow.modelHolder);
+		}
+
+		List<ScannedFlow> parsed = parseInTopologicalOrder(flows, nanos, failures);
+
+		FlowDefinitionRegistryImpl registry = new FlowDefinitionRegistryImpl();
+		List<ScannedFlow> concrete = parsed.stream()
+				.filter(flow -> !flow.isAbstract)
+				.collect(Collectors.toList());
+		Map<String, Flow> built = new ConcurrentHashMap<>();
+		runAll(concrete, flow -> {
+			long start = System.nanoTime();
+			built.put(flow.getId(), new ScannedFlowBuilder(flow, registry).buildFlow());
+			nanos.merge(flow.getId(), System.nanoTime() - start, Long::sum);
+		}, failures);
+		concrete.stream()
+				.map(flow -> built.get(flow.getId()))
+				.filter(Objects::nonNull)
+				.forEach(registry::registerFlowDefinition);
+
+		Map<String, Duration> timings = new LinkedHashMap<>();
+		flows.keySet().stream()
+				.filter(nanos::containsKey)
+				.forEach(id -> timings.put(id, Duration.ofNanos(nanos.get(id))));
+		return new BulkBuildResult(registry, Collections.unmodifiableMap(timings),
+				Collections.unmodifiableMap(new LinkedHashMap<>(failures)));
+	}
+
+	private Map<String, ScannedFlow> scan(Map<String, Throwable> failures) {
+		FlowDefinitionResourceFactory resourceFactory = new FlowDefinitionResourceFactory(
+				new PathMatchingResourcePatternResolver());
+		resourceFactory.setBasePath(basePath);
+		FlowDefinitionResource[] resources;
+		try {
+			resources = resourceFactory.createResources(pattern, null);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not scan " + basePath + " for flow definitions", e);
+		}
+		XMLInputFactory inputFactory = XMLInputFactory.newFactory();
+		inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		Map<String, ScannedFlow> flows = new LinkedHashMap<>();
+		for (FlowDefinitionResource resource : resources) {
+			try {
+				ScannedFlow flow = readHeader(inputFactory, resource);
+				if (flow != null) {
+					flows.put(flow.getId(), flow);
+				}
+			} catch (IOException | XMLStreamException e) {
+				failures.put(resource.getId(), e);
+			}
+		}
+		return flows;
+	}
+
+	private static ScannedFlow readHeader(XMLInputFactory inputFactory, FlowDefinitionResource resource)
+			throws IOException, XMLStreamException {
+		try (InputStream in = resource.getPath().getInputStream()) {
+			XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+			try {
+				reader.nextTag();
+				if (!"flow".equals(reader.getLocalName()) || !FLOW_NAMESPACE.equals(reader.getNamespaceURI())) {
+					return null;
+				}
+				String parent = reader.getAttributeValue(null, "parent");
+				boolean isAbstract = Boolean.parseBoolean(reader.getAttributeValue(null, "abstract"));
+				Set<String> parents = StringUtils.commaDelimitedListToSet(parent).stream()
+						.map(String::trim)
+						.filter(StringUtils::hasText)
+						.collect(Collectors.toCollection(HashSet::new));
+				return new ScannedFlow(resource, parents, isAbstract);
+			} finally {
+				reader.close();
+			}
+		}
+	}
+
+	private List<ScannedFlow> parseInTopologicalOrder(Map<String, ScannedFlow> flows, Map<String, Long> nanos,
+			Map<String, Throwable> failures) {
+		List<ScannedFlow> parsed = new ArrayList<>();
+		Set<String> parsedIds = new HashSet<>();
+		Map<String, ScannedFlow> remaining = new LinkedHashMap<>(flows);
+		while (!remaining.isEmpty()) {
+			List<ScannedFlow> level = remaining.values().stream()
+					.filter(flow -> parsedIds.containsAll(flow.parents))
+					.collect(Collectors.toList());
+			if (level.isEmpty()) {
+				remaining.values().forEach(flow -> failures.put(flow.getId(), unresolvedParents(flow, parsedIds)));
+				break;
+			}
+			runAll(level, flow -> {
+				long start = System.nanoTime();
+				flow.modelHolder.getFlowModel();
+				nanos.put(flow.getId(), System.nanoTime() - start);
+			}, failures);
+			for (ScannedFlow flow : level) {
+				remaining.remove(flow.getId());
+				if (!failures.containsKey(flow.getId())) {
+					parsed.add(flow);
+					parsedIds.add(flow.getId());
+				}
+			}
+		}
+		return parsed;
+	}
+
+	private static IllegalStateException unresolvedParents(ScannedFlow flow, Set<String> parsedIds) {
+		Set<String> unresolved = new HashSet<>(flow.parents);
+		unresolved.removeAll(parsedIds);
+		return new IllegalStateException("Parent flows " + unresolved + " of flow '" + flow.getId()
+				+ "' are missing, could not be built or depend on each other");
+	}
+
+	private void runAll(List<ScannedFlow> flows, FlowTask task, Map<String, Throwable> failures) {
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(flows.size());
+		for (ScannedFlow flow : flows) {
+			tasks.add(pool.submit(() -> {
+				try {
+					task.run(flow);
+				} catch (RuntimeException | LinkageError e) {
+					failures.put(flow.getId(), e);
+				}
+			}));
+		}
+		tasks.forEach(ForkJoinTask::join);
+	}
+
+	@FunctionalInterface
+	private interface FlowTask {
+		void run(ScannedFlow flow);
+	}
+
+	/**
+	 * A found flow definition with the attributes of its root element
+	 */
+	private static final class ScannedFlow {
+		private final FlowDefinitionResource resource;
+		private final Set<String> parents;
+		private final boolean isAbstract;
+		private FlowModelHolder modelHolder;
+
+		ScannedFlow(FlowDefinitionResource resource, Set<String> parents, boolean isAbstract) {
+			this.resource = resource;
+			this.parents = parents;
+			this.isAbstract = isAbstract;
+		}
+
+		String getId() {
+			return resource.getId();
+		}
+	}
+
+	/**
+	 * Configuration returning an already created {@link FlowDefinitionResource}
+	 */
+	private static final class ScannedFlowConfiguration extends ExternalizedMockFlowConfiguration {
+
+		ScannedFlowConfiguration(FlowDefinitionResource resource) {
+			super(resource);
+		}
+
+		@Override
+		protected ResourceMapper determineResourceMapper(Class<?> offer) {
+			if (FlowDefinitionResource.class.isAssignableFrom(offer)) {
+				return FlowDefinitionResource.class::cast;
+			}
+			return super.determineResourceMapper(offer);
+		}
+	}
+
+	/**
+	 * Assembles a single flow from its already parsed model
+	 */
+	private final class ScannedFlowBuilder extends ExternalizedMockFlowBuilder {
+
+		private final ScannedFlow flow;
+		private final FlowDefinitionRegistry builtFlows;
+
+		ScannedFlowBuilder(ScannedFlow flow, FlowDefinitionRegistry builtFlows) {
+			super(new ScannedFlowConfiguration(flow.resource));
+			this.flow = flow;
+			this.builtFlows = builtFlows;
+			withContext(context);
+			if (sharedServices) {
+				withSharedServices();
+			}
+			if (lightweightContext) {
+				withLightweightContext();
+			}
+			withParentContext(parentContext);
+		}
+
+		@Override
+		protected void registerStubFlows(FlowDefinitionRegistry registry) {
+			super.registerStubFlows(registry);
+			((FlowDefinitionRegistryImpl) registry).setParent(builtFlows);
+		}
+
+		@Override
+		protected FlowBuilder createFlowBuilder() {
+			return new FlowModelFlowBuilder(flow.modelHolder);
+		}
+	}
+}
@@ -1,21 +1,35 @@
 package de.lhug.webflowtester.builder;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Map.Entry;
 
-import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.StaticMessageSource;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.util.Assert;
 import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.core.collection.CollectionUtils;
 import org.springframework.webflow.definition.registry.FlowDefinitionRegistry;
 import org.springframework.webflow.engine.Flow;
 import org.springframework.webflow.engine.builder.FlowAssembler;
 import org.springframework.webflow.engine.builder.FlowBuilder;
+import org.springframework.webflow.engine.builder.support.FlowBuilderServices;
 
 import de.lhug.webflowtester.builder.MessageContainer.Message;
 import de.lhug.webflowtester.builder.MessageContainer.Messages;
+import de.lhug.webflowtester.builder.cache.FlowCache;
+import de.lhug.webflowtester.builder.cache.FlowCacheKey;
 import de.lhug.webflowtester.builder.configuration.ExternalizedMockFlowConfiguration;
 import de.lhug.webflowtester.builder.configuration.FlowTestContext;
+import de.lhug.webflowtester.builder.context.LightweightApplicationContext;
 import de.lhug.webflowtester.builder.context.MockFlowBuilderContext;
+import de.lhug.webflowtester.builder.services.SpelCompilationReport;
+import de.lhug.webflowtester.builder.services.TestFlowBuilderServicesFactory;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
@@ -33,15 +47,35 @@ import lombok.RequiredArgsConstructor;
  * configuration be required, subclasses can override
  * {@link #registerBeans(MockFlowBuilderContext)}.
  *
+ * Builders can additionally share assembled flows via a {@link FlowCache}, see
+ * {@link #withFlowCache(FlowCache)}, and share the conversion service and
+ * expression parser of all flows, see {@link #withSharedServices()}, and hold
+ * the beans of the flow in a {@link LightweightApplicationContext}, see
+ * {@link #withLightweightContext()}. Beans of an existing Spring context can be
+ * made available to the flow, see {@link #withParentContext(ApplicationContext)}.
+ *
  */
 @RequiredArgsConstructor
 public abstract class ExternalizedMockFlowBuilder implements MockFlowBuilder {
 
+	/**
+	 * Attribute of the built {@link Flow} holding the
+	 * {@link org.springframework.webflow.definition.registry.FlowDefinitionLocator
+	 * FlowDefinitionLocator} its sub flows are registered in
+	 */
+	public static final String FLOW_DEFINITION_LOCATOR_ATTRIBUTE = "de.lhug.webflowtester.flowDefinitionLocator";
+
 	@Getter(AccessLevel.PACKAGE)
 	private final ExternalizedMockFlowConfiguration configuration;
 	private FlowTestContext context;
+	private FlowCache flowCache;
+	private boolean sharedServices;
+	private boolean lightweightContext;
+	private ApplicationContext parentContext;
+	private SpelCompilerMode spelCompilerMode = SpelCompilerMode.OFF;
 
 	private Flow flow;
+	private FlowBuilderServices services;
 
 	/**
 	 * Creates a ready-to-use {@link Flow} instance. This class caches the first
@@ -60,6 +94,10 @@ public abstract class ExternalizedMockFlowBuilder implements MockFlowBuilder {
 	 * <li>Call {@link #createFlowBuilder()}</li>
 	 * <li>Assemble and return the {@link Flow}</li>
 	 * </ol>
+	 *
+	 * If a {@link #withFlowCache(FlowCache) FlowCache} is configured, the
+	 * {@link Flow} is taken from the cache if an equivalent flow has already been
+	 * assembled, skipping all of the steps above.
 	 */
 	@Override
 	public Flow buildFlow() {
@@ -69,14 +107,80 @@ public abstract class ExternalizedMockFlowBuilder implements MockFlowBuilder {
 		return flow;
 	}
 
+	/**
+	 * Discards the built {@link Flow} and builds it again from the current
+	 * contents of its resources.
+	 *
+	 * This is intended for long-running test sessions, in which flow definitions
+	 * are edited while the JVM is running. Previously returned {@link Flow}s are
+	 * not affected. Subclasses may keep intermediate results of resources which
+	 * did not change, see {@link XMLMockFlowBuilder#createFlowBuilder()}. If a
+	 * {@link #withFlowCache(FlowCache) FlowCache} is configured, the cache is
+	 * consulted as usual, which returns a new {@link Flow} only if the resources
+	 * changed.
+	 *
+	 * @return the rebuilt {@link Flow}
+	 * @see #buildFlow()
+	 */
+	public Flow rebuildFlow() {
+		flow = null;
+		return buildFlow();
+	}
+
+	/**
+	 * Returns the main flow resource, followed by all resources it depends on,
+	 * such as parent flows.
+	 *
+	 * @return an unmodifiable {@link List} of the {@link FlowDefinitionResource}s
+	 *         the {@link Flow} is built from
+	 */
+	public List<FlowDefinitionResource> getResources() {
+		List<FlowDefinitionResource> resources = new ArrayList<>();
+		resources.add(configuration.getResource());
+		resources.addAll(configuration.getFlowResources());
+		return Collections.unmodifiableList(resources);
+	}
+
 	private void buildInternal() {
+		if (flowCache == null) {
+			flow = assembleFlow();
+		} else {
+			flow = flowCache.getFlow(createCacheKey(), this::assembleFlow);
+		}
+	}
+
+	private Flow assembleFlow() {
 		FlowDefinitionResource resource = configuration.getResource();
-		MockFlowBuilderContext builderContext = new MockFlowBuilderContext(resource.getId());
+		services = createFlowBuilderServices();
+		MockFlowBuilderContext builderContext = new MockFlowBuilderContext(resource.getId(),
+				CollectionUtils.EMPTY_ATTRIBUTE_MAP, services);
 		registerBeans(builderContext);
 		registerStubFlows((FlowDefinitionRegistry) builderContext.getFlowDefinitionLocator());
-		registerMessages(((StaticApplicationContext) builderContext.getApplicationContext()).getStaticMessageSource());
+		registerMessages(builderContext.getStaticMessageSource());
 		FlowBuilder builder = createFlowBuilder();
-		flow = new FlowAssembler(builder, builderContext).assembleFlow();
+		Flow assembled = new FlowAssembler(builder, builderContext).assembleFlow();
+		assembled.getAttributes().put(FLOW_DEFINITION_LOCATOR_ATTRIBUTE, builderContext.getFlowDefinitionLocator());
+		return assembled;
+	}
+
+	private FlowCacheKey createCacheKey() {
+		FlowCacheKey key;
+		if (context == null) {
+			key = FlowCacheKey.of(configuration.getResource(), configuration.getFlowResources(),
+					Collections.emptyMap(), Collections.emptyList(), Collections.emptyMap(), parentContext);
+		} else {
+			Map<Locale, Map<String, String>> messages = new HashMap<>();
+			for (Entry<Locale, Messages> entry : context.getAllMessages().entrySet()) {
+				Map<String, String> values = new HashMap<>();
+				for (Message message : entry.getValue().messageStore) {
+					values.put(message.getKey(), message.getValue());
+				}
+				messages.put(entry.getKey(), values);
+			}
+			key = FlowCacheKey.of(configuration.getResource(), configuration.getFlowResources(),
+					context.getBeans(), context.getSubFlows(), messages, parentContext);
+		}
+		return key.withSettings(spelCompilerMode, sharedServices, lightweightContext);
 	}
 
 	/**
@@ -157,7 +261,9 @@ public abstract class ExternalizedMockFlowBuilder implements MockFlowBuilder {
 	 * </p>
 	 *
 	 * @param messageSource the StaticMessageSource provided by the
-	 *                      {@link StaticApplicationContext}
+	 *                      {@link org.springframework.context.ApplicationContext
+	 *                      ApplicationContext}
+	 * @see MockFlowBuilderContext#getStaticMessageSource()
 	 */
 	protected void registerMessages(StaticMessageSource messageSource) {
 		if (context != null) {
@@ -202,4 +308,144 @@ public abstract class ExternalizedMockFlowBuilder implements MockFlowBuilder {
 		this.context = context;
 		return this;
 	}
+
+	/**
+	 * Configures this builder to look up and store the assembled {@link Flow} in
+	 * the passed {@link FlowCache}, typically {@link FlowCache#shared()}. This
+	 * allows multiple builders with equal resources and an equal
+	 * {@link FlowTestContext} to share a single assembled {@link Flow}, meaning
+	 * that the flow is parsed and assembled only once.
+	 * <p>
+	 * As the cache only considers the resources, the {@link FlowTestContext},
+	 * the identity of the {@link #withParentContext(ApplicationContext) parent
+	 * context} and the settings of this builder, like the
+	 * {@link #withSpelCompilerMode(SpelCompilerMode) SpEL compiler mode},
+	 * subclasses registering further beans, sub flows or messages should not be
+	 * used with a cache. To disable caching, pass {@code null}.
+	 * </p>
+	 *
+	 * @param flowCache the {@link FlowCache} to use, or {@code null}
+	 * @return this
+	 * @see FlowCacheKey
+	 */
+	public ExternalizedMockFlowBuilder withFlowCache(FlowCache flowCache) {
+		this.flowCache = flowCache;
+		return this;
+	}
+
+	/**
+	 * Configures this builder to build the {@link Flow} using the JVM-wide
+	 * conversion service and expression parser, instead of creating new ones for
+	 * this flow. Their internal caches are then kept between builds, which
+	 * considerably speeds up building many flows. The beans of the flow are still
+	 * held in a separate {@link org.springframework.context.ApplicationContext
+	 * ApplicationContext}.
+	 *
+	 * @return this
+	 * @see TestFlowBuilderServicesFactory#getSharedServices()
+	 */
+	public ExternalizedMockFlowBuilder withSharedServices() {
+		this.sharedServices = true;
+		return this;
+	}
+
+	/**
+	 * Configures this builder to hold the beans and messages of the {@link Flow}
+	 * in a {@link LightweightApplicationContext} instead of a refreshed
+	 * {@link org.springframework.context.support.StaticApplicationContext
+	 * StaticApplicationContext}. This avoids starting a full Spring context for
+	 * every built flow. As all beans registered by the builder are fully
+	 * initialized singletons anyway, flows behave the same.
+	 *
+	 * @return this
+	 * @see LightweightApplicationContext
+	 */
+	public ExternalizedMockFlowBuilder withLightweightContext() {
+		this.lightweightContext = true;
+		return this;
+	}
+
+	/**
+	 * Configures this builder to create the {@link ApplicationContext} of the
+	 * {@link Flow} as child of the passed context, e.G. a context cached by
+	 * Spring's TestContext framework and injected into the test. The flow can then
+	 * use all beans of the parent, which are not created again, while beans of
+	 * the {@link FlowTestContext} are only registered in the child and shadow
+	 * beans of the parent with the same name. Messages not registered in the
+	 * child are resolved by the parent. To remove the parent, pass {@code null}.
+	 *
+	 * @param parentContext the parent {@link ApplicationContext}, or {@code null}
+	 * @return this
+	 */
+	public ExternalizedMockFlowBuilder withParentContext(ApplicationContext parentContext) {
+		this.parentContext = parentContext;
+		return this;
+	}
+
+	/**
+	 * Configures this builder to build the {@link Flow} with an expression parser
+	 * using the SpEL compiler in the given mode. By default, all expressions of
+	 * the flow are interpreted.
+	 * <p>
+	 * The mode is part of the key of a {@link #withFlowCache(FlowCache)
+	 * FlowCache}, so a flow taken from a cache has been built with the same
+	 * mode.
+	 * </p>
+	 *
+	 * @param spelCompilerMode the {@link SpelCompilerMode} to use, not
+	 *                         {@code null}
+	 * @return this
+	 * @see #getSpelCompilationReport()
+	 * @see TestFlowBuilderServicesFactory#getServices(ApplicationContext,
+	 *      SpelCompilerMode)
+	 */
+	public ExternalizedMockFlowBuilder withSpelCompilerMode(SpelCompilerMode spelCompilerMode) {
+		Assert.notNull(spelCompilerMode, "SpelCompilerMode may not be null");
+		this.spelCompilerMode = spelCompilerMode;
+		return this;
+	}
+
+	/**
+	 * Creates a report of the compilation state of the expressions parsed while
+	 * assembling the {@link Flow} last built by this builder.
+	 * <p>
+	 * The report is empty if the flow was built with
+	 * {@link SpelCompilerMode#OFF}, has not been built yet, or was taken from a
+	 * {@link #withFlowCache(FlowCache) FlowCache}. With
+	 * {@link #withSharedServices() shared services}, it covers all flows built
+	 * with the same compiler mode.
+	 * </p>
+	 *
+	 * @return a snapshot of the current compilation state
+	 * @see #withSpelCompilerMode(SpelCompilerMode)
+	 */
+	public SpelCompilationReport getSpelCompilationReport() {
+		return services == null
+				? SpelCompilationReport.empty()
+				: TestFlowBuilderServicesFactory.getSpelCompilationReport(services);
+	}
+
+	/**
+	 * Creates the {@link FlowBuilderServices} used to build the {@link Flow}.
+	 * <p>
+	 * Subclasses may override this to customize the services. The returned
+	 * services must hold a
+	 * {@link org.springframework.context.support.StaticApplicationContext
+	 * StaticApplicationContext} or a {@link LightweightApplicationContext} for
+	 * beans and messages to be registered in.
+	 *
+	 * @return the {@link FlowBuilderServices} for the flow to build
+	 * @see #withSharedServices()
+	 * @see #withLightweightContext()
+	 * @see #withParentContext(ApplicationContext)
+	 * @see #withSpelCompilerMode(SpelCompilerMode)
+	 */
+	protected FlowBuilderServices createFlowBuilderServices() {
+		ApplicationContext applicationContext = lightweightContext
+				? new LightweightApplicationContext(parentContext)
+				: TestFlowBuilderServicesFactory.createApplicationContext(parentContext);
+		return sharedServices
+				? TestFlowBuilderServicesFactory.getSharedServices(applicationContext, spelCompilerMode)
+				: TestFlowBuilderServicesFactory.getServices(applicationContext, spelCompilerMode);
+	}
 }
@@ -1,6 +1,14 @@
 package de.lhug.webflowtester.builder;
 
+import de.lhug.webflowtester.builder.cache.FlowModelCache;
+import de.lhug.webflowtester.builder.cache.SharedFlowModelRegistry;
 import de.lhug.webflowtester.builder.context.MockFlowBuilderContext;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.springframework.webflow.config.FlowDefinitionResource;
 import org.springframework.webflow.engine.builder.FlowBuilder;
 import org.springframework.webflow.engine.builder.model.FlowModelFlowBuilder;
@@ -22,6 +30,9 @@ import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
 public class XMLMockFlowBuilder extends ExternalizedMockFlowBuilder {
 
 	private final FlowModelRegistry flowModelRegistry;
+	private final Map<String, RegisteredModel> registeredModels = new HashMap<>();
+	private FlowModelCache modelCache;
+	private SharedFlowModelRegistry sharedModelRegistry;
 
 	/**
 	 * Constructs a Builder-Instance from a given
@@ -53,34 +64,129 @@ public class XMLMockFlowBuilder extends ExternalizedMockFlowBuilder {
 	 * {@code FlowModelHolder}</li>
 	 * </ol>
 	 *
+	 * When called again by {@link #rebuildFlow()}, the {@link FlowModelHolder}s
+	 * of all resources which have not been modified since are kept, so that only
+	 * changed models are parsed again. Models inheriting from a modified resource
+	 * need not be registered again, as their holders refresh themselves: the
+	 * {@link XmlFlowModelBuilder} tracks the holders of the parents it merged,
+	 * and the caching and sharing builders compare a digest over all parent
+	 * resources.
+	 *
 	 * @see ExternalizedMockFlowBuilder#buildFlow() buildFlow
 	 * @see ExternalizedMockFlowBuilder#registerBeans(MockFlowBuilderContext)
 	 *      registerBeans
 	 */
 	@Override
 	protected FlowBuilder createFlowBuilder() {
-		registerDependentFlows();
+		List<FlowDefinitionResource> resources = getResources();
+		Set<String> changed = findChangedModels(resources);
+		// parents first, the main resource last, as it may share an id with a parent
+		for (int i = resources.size() - 1; i >= 0; i--) {
+			FlowDefinitionResource resource = resources.get(i);
+			if (changed.contains(resource.getId())) {
+				registerFlowResource(resource);
+			}
+		}
 		FlowDefinitionResource resource = getConfiguration().getResource();
-		FlowModelHolder modelHolder = createFlowModelHolder(resource);
-		register(resource.getId(), modelHolder);
-		return new FlowModelFlowBuilder(modelHolder);
+		return new FlowModelFlowBuilder(registeredModels.get(resource.getId()).holder);
 	}
 
-	private void registerDependentFlows() {
-		((XMLMockFlowConfiguration) getConfiguration()).getFlowResources().forEach(this::registerFlowResource);
+	private Set<String> findChangedModels(List<FlowDefinitionResource> resources) {
+		Set<String> changed = new HashSet<>();
+		for (FlowDefinitionResource resource : resources) {
+			RegisteredModel model = registeredModels.get(resource.getId());
+			if (model == null || model.hasChanged()) {
+				changed.add(resource.getId());
+			}
+		}
+		return changed;
 	}
 
 	private void registerFlowResource(FlowDefinitionResource resource) {
 		FlowModelHolder modelHolder = createFlowModelHolder(resource);
-		register(resource.getId(), modelHolder);
+		registeredModels.put(resource.getId(), new RegisteredModel(resource, modelHolder));
+		flowModelRegistry.registerFlowModel(resource.getId(), modelHolder);
 	}
 
 	private FlowModelHolder createFlowModelHolder(FlowDefinitionResource resource) {
 		FlowModelBuilder flowModelBuilder = new XmlFlowModelBuilder(resource.getPath(), flowModelRegistry);
+		if (modelCache != null) {
+			flowModelBuilder = modelCache.createCachingBuilder(resource, getConfiguration().getFlowResources(),
+					flowModelBuilder);
+		}
+		if (sharedModelRegistry != null) {
+			flowModelBuilder = sharedModelRegistry.createSharingBuilder(resource,
+					getConfiguration().getFlowResources(), flowModelBuilder);
+		}
 		return new DefaultFlowModelHolder(flowModelBuilder);
 	}
 
-	private void register(String id, FlowModelHolder modelHolder) {
-		flowModelRegistry.registerFlowModel(id, modelHolder);
+	/**
+	 * Configures this builder to load parsed
+	 * {@link org.springframework.webflow.engine.model.FlowModel FlowModel}s from
+	 * the passed {@link FlowModelCache}, and to store them there after parsing.
+	 *
+	 * As the cache is keyed by the contents of the main flow resource and all
+	 * parent flow resources registered in the {@link XMLMockFlowConfiguration},
+	 * changing any of these resources results in the XML being parsed again. To
+	 * disable the cache, pass {@code null}.
+	 *
+	 * @param modelCache the {@link FlowModelCache} to use, or {@code null}
+	 * @return this
+	 */
+	public XMLMockFlowBuilder withModelCache(FlowModelCache modelCache) {
+		this.modelCache = modelCache;
+		return this;
+	}
+
+	/**
+	 * Configures this builder to take parsed parent and child
+	 * {@link org.springframework.webflow.engine.model.FlowModel FlowModel}s from
+	 * the passed {@link SharedFlowModelRegistry}, and to register them there after
+	 * parsing.
+	 *
+	 * Unlike the per-builder registry, the shared registry is used by all builders
+	 * configured with it, so that a parent flow used by many child flows is parsed
+	 * only once. If a {@link #withModelCache(FlowModelCache) FlowModelCache} is
+	 * configured as well, it is consulted for models not yet registered. To
+	 * disable sharing, pass {@code null}.
+	 *
+	 * @param sharedModelRegistry the {@link SharedFlowModelRegistry} to use, e.g.
+	 *                            {@link SharedFlowModelRegistry#shared()}, or
+	 *                            {@code null}
+	 * @return this
+	 */
+	public XMLMockFlowBuilder withSharedModelRegistry(SharedFlowModelRegistry sharedModelRegistry) {
+		this.sharedModelRegistry = sharedModelRegistry;
+		return this;
+	}
+
+	/**
+	 * A registered {@link FlowModelHolder} and the modification time of its
+	 * resource at registration
+	 */
+	private static final class RegisteredModel {
+		private final FlowDefinitionResource resource;
+		private final FlowModelHolder holder;
+		private final long lastModified;
+
+		RegisteredModel(FlowDefinitionResource resource, FlowModelHolder holder) {
+			this.resource = resource;
+			this.holder = holder;
+			this.lastModified = lastModified(resource);
+		}
+
+		boolean hasChanged() {
+			return lastModified != lastModified(resource);
+		}
+
+		private static long lastModified(FlowDefinitionResource resource) {
+			try {
+				return resource.getPath().lastModified();
+			} catch (IOException e) {
+				// resources without modification time, e.G. in archives, never change
+				return -1;
+			}
+		}
 	}
 }
@@ -0,0 +1,73 @@
+package de.lhug.webflowtester.builder.cache;
+
+import java.util.List;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.engine.model.FlowModel;
+import org.springframework.webflow.engine.model.builder.FlowModelBuilder;
+import org.springframework.webflow.engine.model.builder.FlowModelBuilderException;
+
+/**
+ * {@link FlowModelBuilder} taking its result from a {@link FlowModelCache} and
+ * falling back to a delegate {@link FlowModelBuilder} on cache misses.
+ */
+@RequiredArgsConstructor
+class CachingFlowModelBuilder implements FlowModelBuilder {
+
+	private final FlowModelCache cache;
+	private final List<FlowDefinitionResource> resources;
+	private final FlowModelBuilder delegate;
+
+	private String key;
+	private FlowModel flowModel;
+	private boolean delegated;
+
+	@Override
+	public void init() throws FlowModelBuilderException {
+		key = cache.keyFor(resources);
+	}
+
+	@Override
+	public void build() throws FlowModelBuilderException {
+		flowModel = cache.load(key);
+		if (flowModel == null) {
+			delegated = true;
+			delegate.init();
+			delegate.build();
+			flowModel = delegate.getFlowModel();
+			cache.store(key, flowModel);
+		}
+	}
+
+	@Override
+	public FlowModel getFlowModel() throws FlowModelBuilderException {
+		if (flowModel == null) {
+			throw new FlowModelBuilderException("The FlowModel must be built first");
+		}
+		return flowModel;
+	}
+
+	@Override
+	public void dispose() throws FlowModelBuilderException {
+		if (delegated) {
+			delegate.dispose();
+			delegated = false;
+		}
+		flowModel = null;
+	}
+
+	@Override
+	public Resource getFlowModelResource() {
+		return resources.get(0).getPath();
+	}
+
+	/**
+	 * Compares the digest of the current resource contents with the digest the
+	 * model was built from.
+	 */
+	@Override
+	public boolean hasFlowModelResourceChanged() {
+		return key == null || !key.equals(cache.keyFor(resources));
+	}
+}
@@ -0,0 +1,182 @@
+package de.lhug.webflowtester.builder.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.Assert;
+import org.springframework.webflow.engine.Flow;
+
+/**
+ * Bounded cache of assembled {@link Flow}s, shared between builder instances.
+ * <p>
+ * Assembling a {@link Flow} from an externalized definition requires parsing
+ * the definition and running the
+ * {@link org.springframework.webflow.engine.builder.FlowAssembler
+ * FlowAssembler}, which is by far the most expensive part of a flow test. This
+ * cache allows multiple builders, e.G. one per test class, to share the
+ * assembled {@link Flow} as long as they are built from the same resources and
+ * the same {@link FlowCacheKey context}.
+ * </p>
+ * <p>
+ * Entries are evicted in least-recently-used order once either the maximum
+ * number of entries or the maximum weight is exceeded. The weight of an entry
+ * is the number of bytes of its source resources, which serves as an estimate
+ * for the memory held by the assembled {@link Flow}.
+ * </p>
+ * <p>
+ * Note that cached {@link Flow}s are shared, meaning that any change made to a
+ * returned {@link Flow} is visible to all other users of the same entry.
+ * </p>
+ *
+ * @see #shared()
+ * @see de.lhug.webflowtester.builder.ExternalizedMockFlowBuilder#withFlowCache(FlowCache)
+ */
+public final class FlowCache {
+
+	/**
+	 * The default maximum number of entries of the {@link #shared() shared}
+	 * instance
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 256;
+
+	/**
+	 * The default maximum weight in bytes of the {@link #shared() shared}
+	 * instance
+	 */
+	public static final long DEFAULT_MAX_WEIGHT = 16L * 1024 * 1024;
+
+	private static final FlowCache SHARED = new FlowCache(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+
+	private final int maxEntries;
+	private final long maxWeight;
+	private final Map<FlowCacheKey, Flow> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private long weight;
+
+	/**
+	 * Returns the JVM-wide instance of this cache, using
+	 * {@link #DEFAULT_MAX_ENTRIES} and {@link #DEFAULT_MAX_WEIGHT} as limits.
+	 *
+	 * @return the shared {@link FlowCache}, never {@code null}
+	 */
+	public static FlowCache shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Creates a new, empty cache with the given limits.
+	 *
+	 * @param maxEntries the maximum number of cached {@link Flow}s, must be
+	 *                   positive
+	 * @param maxWeight  the maximum summed weight of all entries in bytes, must
+	 *                   be positive
+	 */
+	public FlowCache(int maxEntries, long maxWeight) {
+		Assert.isTrue(maxEntries > 0, "Max entries must be positive");
+		Assert.isTrue(maxWeight > 0, "Max weight must be positive");
+		this.maxEntries = maxEntries;
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Returns the cached {@link Flow} for the given key, or assembles and caches
+	 * it if absent.
+	 * <p>
+	 * The assembler is called outside of any lock, so that different flows can
+	 * be assembled concurrently. Should two threads assemble the same flow at
+	 * the same time, the first result is kept and returned to both.
+	 * </p>
+	 *
+	 * @param key       the {@link FlowCacheKey} identifying the flow
+	 * @param assembler used to assemble the {@link Flow} on a cache miss
+	 * @return the cached or newly assembled {@link Flow}
+	 */
+	public Flow getFlow(FlowCacheKey key, Supplier<Flow> assembler) {
+		Flow cached = get(key);
+		if (cached != null) {
+			hits.increment();
+			return cached;
+		}
+		misses.increment();
+		return putIfAbsent(key, assembler.get());
+	}
+
+	private synchronized Flow get(FlowCacheKey key) {
+		return entries.get(key);
+	}
+
+	private synchronized Flow putIfAbsent(FlowCacheKey key, Flow flow) {
+		Flow existing = entries.putIfAbsent(key, flow);
+		if (existing != null) {
+			return existing;
+		}
+		weight += key.getWeight();
+		evictExceedingEntries(key);
+		return flow;
+	}
+
+	private void evictExceedingEntries(FlowCacheKey latest) {
+		Iterator<FlowCacheKey> eldest = entries.keySet().iterator();
+		while ((entries.size() > maxEntries || weight > maxWeight) && eldest.hasNext()) {
+			FlowCacheKey candidate = eldest.next();
+			if (candidate.equals(latest)) {
+				// always keep the latest entry, even if it exceeds the limits on its own
+				continue;
+			}
+			eldest.remove();
+			weight -= candidate.getWeight();
+			evictions.increment();
+		}
+	}
+
+	/**
+	 * Removes all entries from this cache. The counters are kept.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		weight = 0;
+	}
+
+	/**
+	 * Returns a snapshot of the counters and the current size of this cache.
+	 *
+	 * @return the current {@link Statistics}
+	 */
+	public synchronized Statistics getStatistics() {
+		return new Statistics(hits.sum(), misses.sum(), evictions.sum(), entries.size(), weight);
+	}
+
+	/**
+	 * Point-in-time view of the counters of a {@link FlowCache}
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public static final class Statistics {
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final int size;
+		private final long weight;
+
+		/**
+		 * @return the ratio of hits to all requests, or {@code 0} if no request
+		 *         was made yet
+		 */
+		public double getHitRate() {
+			long requests = hitCount + missCount;
+			return requests == 0 ? 0 : (double) hitCount / requests;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount
+					+ ", size=" + size + ", weight=" + weight;
+		}
+	}
+}
@@ -0,0 +1,184 @@
+package de.lhug.webflowtester.builder.cache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.context.ApplicationContext;
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.definition.registry.FlowDefinitionHolder;
+
+/**
+ * Identifies an assembled {@link org.springframework.webflow.engine.Flow} in a
+ * {@link FlowCache}.
+ * <p>
+ * A key consists of the location of the main flow resource, the ids of the
+ * main resource and all of its dependent resources, a digest over their
+ * contents, and a fingerprint of the registered beans, sub flows, messages and
+ * parent context. The ids are part of the key, as they are derived from the
+ * base path of the configuration, not from the resource itself, and the
+ * assembled flow carries the id of its main resource. Settings of the builder
+ * changing the assembled flow, like the SpEL compiler mode, can be added using
+ * {@link #withSettings(Object...)}.
+ * Beans, sub flows and the parent context are compared by identity, as the
+ * assembled flow holds references to the exact instances it was built with.
+ * Messages are compared by value.
+ * </p>
+ * <p>
+ * Instances are immutable; later changes to the objects a key was created from
+ * do not change the key.
+ * </p>
+ */
+@EqualsAndHashCode(exclude = "weight")
+public final class FlowCacheKey {
+
+	private final String location;
+	private final List<String> resourceIds;
+	private final String contentDigest;
+	private final Map<String, IdentityReference> beans;
+	private final List<IdentityReference> subFlows;
+	private final Map<Locale, Map<String, String>> messages;
+	private final IdentityReference parentContext;
+	private final List<Object> settings;
+
+	@Getter
+	private final long weight;
+
+	private FlowCacheKey(String location, List<String> resourceIds, String contentDigest, long weight,
+			Map<String, IdentityReference> beans, List<IdentityReference> subFlows,
+			Map<Locale, Map<String, String>> messages, IdentityReference parentContext, List<Object> settings) {
+		this.location = location;
+		this.resourceIds = resourceIds;
+		this.contentDigest = contentDigest;
+		this.weight = weight;
+		this.beans = beans;
+		this.subFlows = subFlows;
+		this.messages = messages;
+		this.parentContext = parentContext;
+		this.settings = settings;
+	}
+
+	/**
+	 * Creates a key from the resources and the context a flow is built from.
+	 * <p>
+	 * All resources are read once to compute the content digest.
+	 * </p>
+	 *
+	 * @param resource     the main {@link FlowDefinitionResource}, not
+	 *                     {@code null}
+	 * @param dependencies the dependent resources, such as parent flows, not
+	 *                     {@code null}
+	 * @param beans        the beans registered in the flows context, not
+	 *                     {@code null}
+	 * @param subFlows     the registered sub flows, not {@code null}
+	 * @param messages     the registered messages by {@link Locale}, not
+	 *                     {@code null}
+	 * @return the created key
+	 * @throws java.io.UncheckedIOException if any of the resources can not be
+	 *                                      read
+	 */
+	public static FlowCacheKey of(FlowDefinitionResource resource, List<FlowDefinitionResource> dependencies,
+			Map<String, Object> beans, List<FlowDefinitionHolder> subFlows,
+			Map<Locale, Map<String, String>> messages) {
+		return of(resource, dependencies, beans, subFlows, messages, null);
+	}
+
+	/**
+	 * Creates a key from the resources and the context a flow is built from, like
+	 * {@link #of(FlowDefinitionResource, List, Map, List, Map)}, for a flow whose
+	 * beans are held in a child of the given {@link ApplicationContext}.
+	 *
+	 * @param resource      the main {@link FlowDefinitionResource}, not
+	 *                      {@code null}
+	 * @param dependencies  the dependent resources, such as parent flows, not
+	 *                      {@code null}
+	 * @param beans         the beans registered in the flows context, not
+	 *                      {@code null}
+	 * @param subFlows      the registered sub flows, not {@code null}
+	 * @param messages      the registered messages by {@link Locale}, not
+	 *                      {@code null}
+	 * @param parentContext the parent of the flows context, or {@code null}
+	 * @return the created key
+	 * @throws java.io.UncheckedIOException if any of the resources can not be
+	 *                                      read
+	 */
+	public static FlowCacheKey of(FlowDefinitionResource resource, List<FlowDefinitionResource> dependencies,
+			Map<String, Object> beans, List<FlowDefinitionHolder> subFlows,
+			Map<Locale, Map<String, String>> messages, ApplicationContext parentContext) {
+		List<FlowDefinitionResource> resources = new ArrayList<>(dependencies.size() + 1);
+		resources.add(resource);
+		resources.addAll(dependencies);
+		List<String> resourceIds = new ArrayList<>(resources.size());
+		resources.forEach(each -> resourceIds.add(each.getId()));
+
+		Map<String, IdentityReference> beanReferences = new HashMap<>();
+		beans.forEach((name, bean) -> beanReferences.put(name, new IdentityReference(bean)));
+		List<IdentityReference> subFlowReferences = new ArrayList<>(subFlows.size());
+		subFlows.forEach(subFlow -> subFlowReferences.add(new IdentityReference(subFlow)));
+		Map<Locale, Map<String, String>> messageCopy = new HashMap<>();
+		messages.forEach((locale, values) -> messageCopy.put(locale, Collections.unmodifiableMap(new HashMap<>(values))));
+
+		ResourceDigests.Digest digest = ResourceDigests.digest(resources);
+		return new FlowCacheKey(
+				Objects.toString(resource.getPath().getDescription()),
+				Collections.unmodifiableList(resourceIds),
+				digest.value,
+				digest.length,
+				Collections.unmodifiableMap(beanReferences),
+				Collections.unmodifiableList(subFlowReferences),
+				Collections.unmodifiableMap(messageCopy),
+				new IdentityReference(parentContext),
+				Collections.emptyList());
+	}
+
+	/**
+	 * Creates a copy of this key, which additionally compares the given settings
+	 * by value.
+	 * <p>
+	 * Settings are options of the builder which change the assembled flow, but
+	 * are neither part of its resources nor of its context, like the SpEL
+	 * compiler mode of its expressions or the type of its application context.
+	 * </p>
+	 *
+	 * @param settings the settings, compared by {@link Object#equals(Object)}
+	 * @return the created key
+	 */
+	public FlowCacheKey withSettings(Object... settings) {
+		List<Object> combined = new ArrayList<>(this.settings);
+		combined.addAll(Arrays.asList(settings));
+		return new FlowCacheKey(location, resourceIds, contentDigest, weight, beans, subFlows, messages,
+				parentContext, Collections.unmodifiableList(combined));
+	}
+
+	@Override
+	public String toString() {
+		return location + "@" + contentDigest.substring(0, 12);
+	}
+
+	/**
+	 * Compares the wrapped object by identity
+	 */
+	private static final class IdentityReference {
+		private final Object referent;
+
+		IdentityReference(Object referent) {
+			this.referent = referent;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof IdentityReference && ((IdentityReference) other).referent == referent;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(referent);
+		}
+	}
+}
@@ -0,0 +1,170 @@
+package de.lhug.webflowtester.builder.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.springframework.util.Assert;
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.engine.model.FlowModel;
+import org.springframework.webflow.engine.model.builder.FlowModelBuilder;
+
+/**
+ * Persistent cache of parsed {@link FlowModel}s.
+ * <p>
+ * Parsing an XML flow definition into a {@link FlowModel} involves loading and
+ * validating the document, which has to be done again in every JVM. This cache
+ * stores parsed models in a directory, so that subsequent JVMs, e.G. forked test
+ * JVMs of the same build, can load them instead of parsing the XML again.
+ * </p>
+ * <p>
+ * Entries are keyed by a digest over the contents of the flow resource and all
+ * of its parent flow resources, meaning that a changed flow or a changed parent
+ * flow results in a new entry. Stale entries are never read again, and can
+ * safely be removed by deleting the directory. Unreadable entries are treated
+ * as cache misses.
+ * </p>
+ *
+ * @see de.lhug.webflowtester.builder.XMLMockFlowBuilder#withModelCache(FlowModelCache)
+ */
+@Log
+public final class FlowModelCache {
+
+	private static final int FORMAT_VERSION = 1;
+	private static final String SUFFIX = ".flowmodel";
+
+	@Getter
+	private final Path directory;
+	private final String webFlowVersion;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Creates a cache storing its entries in the given directory. The directory
+	 * is created if it does not exist.
+	 *
+	 * @param directory the {@link Path} to the cache directory, not {@code null}
+	 * @throws UncheckedIOException if the directory can not be created
+	 */
+	public FlowModelCache(Path directory) {
+		Assert.notNull(directory, "Directory may not be null");
+		this.directory = directory;
+		this.webFlowVersion = Objects.toString(FlowModel.class.getPackage().getImplementationVersion(), "unknown");
+		try {
+			Files.createDirectories(directory);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create cache directory " + directory, e);
+		}
+	}
+
+	/**
+	 * Decorates the given {@link FlowModelBuilder} so that its result is taken
+	 * from this cache if present, and stored in this cache otherwise.
+	 *
+	 * @param resource     the {@link FlowDefinitionResource} the model is built
+	 *                     from
+	 * @param dependencies the resources the model depends on, such as parent
+	 *                     flows
+	 * @param delegate     the {@link FlowModelBuilder} used on cache misses
+	 * @return a caching {@link FlowModelBuilder}
+	 */
+	public FlowModelBuilder createCachingBuilder(FlowDefinitionResource resource,
+			List<FlowDefinitionResource> dependencies, FlowModelBuilder delegate) {
+		List<FlowDefinitionResource> resources = new ArrayList<>(dependencies.size() + 1);
+		resources.add(resource);
+		resources.addAll(dependencies);
+		return new CachingFlowModelBuilder(this, resources, delegate);
+	}
+
+	/**
+	 * @return the number of models loaded from this cache
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of models which had to be parsed
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	String keyFor(List<FlowDefinitionResource> resources) {
+		return ResourceDigests.digest(resources).value;
+	}
+
+	FlowModel load(String key) {
+		Path entry = directory.resolve(key + SUFFIX);
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new GZIPInputStream(Files.newInputStream(entry))))) {
+			if (in.readInt() != FORMAT_VERSION || !webFlowVersion.equals(in.readUTF())) {
+				misses.increment();
+				return null;
+			}
+			FlowModel model = FlowModelSerializer.read(in);
+			hits.increment();
+			return model;
+		} catch (NoSuchFileException e) {
+			misses.increment();
+			return null;
+		} catch (IOException | RuntimeException e) {
+			log.log(Level.FINE, "Deleting unreadable cache entry " + entry, e);
+			deleteQuietly(entry);
+			misses.increment();
+			return null;
+		}
+	}
+
+	void store(String key, FlowModel model) {
+		Path entry = directory.resolve(key + SUFFIX);
+		Path temporary = null;
+		try {
+			temporary = Files.createTempFile(directory, key, ".tmp");
+			try (DataOutputStream out = new DataOutputStream(
+					new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temporary))))) {
+				out.writeInt(FORMAT_VERSION);
+				out.writeUTF(webFlowVersion);
+				FlowModelSerializer.write(model, out);
+			}
+			moveIntoPlace(temporary, entry);
+		} catch (IOException e) {
+			log.log(Level.FINE, "Could not store cache entry " + entry, e);
+			deleteQuietly(temporary);
+		}
+	}
+
+	private static void moveIntoPlace(Path source, Path target) throws IOException {
+		try {
+			Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		if (path != null) {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				log.log(Level.FINE, "Could not delete " + path, e);
+			}
+		}
+	}
+}
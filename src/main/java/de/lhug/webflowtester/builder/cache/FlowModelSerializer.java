@@ -0,0 +1,251 @@
+package de.lhug.webflowtester.builder.cache;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.webflow.engine.model.FlowModel;
+
+/**
+ * Writes and reads {@link FlowModel} trees in a compact binary format.
+ * <p>
+ * The flow model classes are plain data holders consisting of {@link String}s,
+ * {@link LinkedList}s and other model objects, but are not
+ * {@link java.io.Serializable}. This serializer walks the instance fields of
+ * all model classes reflectively. Strings are written once and referenced by
+ * index afterwards, which keeps class names and repeated expressions small.
+ * </p>
+ * <p>
+ * Only classes from the {@value #MODEL_PACKAGE} package are read back.
+ * Encountering any unsupported value results in an {@link IOException}, which
+ * callers treat as a cache miss.
+ * </p>
+ */
+final class FlowModelSerializer {
+
+	private static final String MODEL_PACKAGE = "org.springframework.webflow.engine.model";
+
+	private static final int NULL = 0;
+	private static final int STRING = 1;
+	private static final int STRING_REFERENCE = 2;
+	private static final int LIST = 3;
+	private static final int MODEL = 4;
+	private static final int BOOLEAN = 5;
+	private static final int INTEGER = 6;
+	private static final int MAX_STRING_LENGTH = 1 << 20;
+
+	private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+	private FlowModelSerializer() {
+	}
+
+	static void write(FlowModel model, DataOutputStream out) throws IOException {
+		new Writer(out).writeValue(model);
+	}
+
+	static FlowModel read(DataInputStream in) throws IOException {
+		Object result = new Reader(in).readValue();
+		if (!(result instanceof FlowModel)) {
+			throw new IOException("Stream does not contain a flow model");
+		}
+		return (FlowModel) result;
+	}
+
+	private static List<Field> fieldsOf(Class<?> type) {
+		return FIELDS.computeIfAbsent(type, FlowModelSerializer::collectFields);
+	}
+
+	private static List<Field> collectFields(Class<?> type) {
+		List<Field> result = new ArrayList<>();
+		for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+			Field[] declared = current.getDeclaredFields();
+			Arrays.sort(declared, Comparator.comparing(Field::getName));
+			for (Field field : declared) {
+				int modifiers = field.getModifiers();
+				if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+					field.setAccessible(true);
+					result.add(field);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static final class Writer {
+		private final DataOutputStream out;
+		private final Map<String, Integer> strings = new HashMap<>();
+
+		Writer(DataOutputStream out) {
+			this.out = out;
+		}
+
+		void writeValue(Object value) throws IOException {
+			if (value == null) {
+				out.writeByte(NULL);
+			} else if (value instanceof String) {
+				writeString((String) value);
+			} else if (value instanceof List) {
+				List<?> list = (List<?>) value;
+				out.writeByte(LIST);
+				out.writeInt(list.size());
+				for (Object element : list) {
+					writeValue(element);
+				}
+			} else if (value instanceof Boolean) {
+				out.writeByte(BOOLEAN);
+				out.writeBoolean((Boolean) value);
+			} else if (value instanceof Integer) {
+				out.writeByte(INTEGER);
+				out.writeInt((Integer) value);
+			} else if (value.getClass().getName().startsWith(MODEL_PACKAGE)) {
+				writeModel(value);
+			} else {
+				throw new IOException("Unsupported value of type " + value.getClass().getName());
+			}
+		}
+
+		private void writeString(String value) throws IOException {
+			Integer index = strings.get(value);
+			if (index != null) {
+				out.writeByte(STRING_REFERENCE);
+				out.writeInt(index);
+			} else {
+				strings.put(value, strings.size());
+				byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+				out.writeByte(STRING);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+
+		private void writeModel(Object model) throws IOException {
+			out.writeByte(MODEL);
+			writeString(model.getClass().getName());
+			for (Field field : fieldsOf(model.getClass())) {
+				try {
+					writeValue(field.get(model));
+				} catch (IllegalAccessException e) {
+					throw new IOException("Could not read field " + field, e);
+				}
+			}
+		}
+	}
+
+	private static final class Reader {
+		private final DataInputStream in;
+		private final List<String> strings = new ArrayList<>();
+
+		Reader(DataInputStream in) {
+			this.in = in;
+		}
+
+		Object readValue() throws IOException {
+			int tag = in.readByte();
+			switch (tag) {
+			case NULL:
+				return null;
+			case STRING:
+			case STRING_REFERENCE:
+				return readString(tag);
+			case LIST:
+				int size = in.readInt();
+				if (size < 0) {
+					throw new IOException("Invalid list size " + size);
+				}
+				LinkedList<Object> list = new LinkedList<>();
+				for (int i = 0; i < size; i++) {
+					list.add(readValue());
+				}
+				return list;
+			case BOOLEAN:
+				return in.readBoolean();
+			case INTEGER:
+				return in.readInt();
+			case MODEL:
+				return readModel();
+			default:
+				throw new IOException("Unknown tag " + tag);
+			}
+		}
+
+		private String readString(int tag) throws IOException {
+			if (tag == STRING_REFERENCE) {
+				int index = in.readInt();
+				if (index < 0 || index >= strings.size()) {
+					throw new IOException("Invalid string reference " + index);
+				}
+				return strings.get(index);
+			}
+			int length = in.readInt();
+			if (length < 0 || length > MAX_STRING_LENGTH) {
+				throw new IOException("Invalid string length " + length);
+			}
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+			String value = new String(bytes, StandardCharsets.UTF_8);
+			strings.add(value);
+			return value;
+		}
+
+		private Object readModel() throws IOException {
+			int tag = in.readByte();
+			if (tag != STRING && tag != STRING_REFERENCE) {
+				throw new IOException("Expected class name but found tag " + tag);
+			}
+			String className = readString(tag);
+			if (!className.startsWith(MODEL_PACKAGE + ".")) {
+				throw new IOException("Refusing to instantiate " + className);
+			}
+			try {
+				Class<?> type = Class.forName(className, false, FlowModel.class.getClassLoader());
+				Object model = instantiate(type);
+				for (Field field : fieldsOf(type)) {
+					field.set(model, readValue());
+				}
+				return model;
+			} catch (ReflectiveOperationException | IllegalArgumentException e) {
+				throw new IOException("Could not restore " + className, e);
+			}
+		}
+
+		/**
+		 * Not all model classes offer a default constructor, so the constructor
+		 * with the fewest parameters is called with placeholder arguments. All
+		 * fields are overwritten afterwards.
+		 */
+		private Object instantiate(Class<?> type) throws ReflectiveOperationException {
+			Constructor<?> constructor = Arrays.stream(type.getDeclaredConstructors())
+					.min(Comparator.comparingInt(Constructor::getParameterCount))
+					.orElseThrow(() -> new InstantiationException("No constructor found for " + type));
+			Class<?>[] parameterTypes = constructor.getParameterTypes();
+			Object[] arguments = new Object[parameterTypes.length];
+			for (int i = 0; i < parameterTypes.length; i++) {
+				arguments[i] = placeholderFor(parameterTypes[i]);
+			}
+			constructor.setAccessible(true);
+			return constructor.newInstance(arguments);
+		}
+
+		private Object placeholderFor(Class<?> parameterType) {
+			if (parameterType == String.class) {
+				return "placeholder";
+			} else if (parameterType == boolean.class) {
+				return Boolean.FALSE;
+			} else if (parameterType == int.class) {
+				return 0;
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package de.lhug.webflowtester.builder.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
+import org.springframework.webflow.config.FlowDefinitionResource;
+
+/**
+ * Utility to compute content digests of flow definition resources.
+ * <p>
+ * The digests are used as cache keys, meaning that two resources with equal
+ * contents produce the same digest, regardless of their location.
+ * </p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class ResourceDigests {
+
+	private static final String ALGORITHM = "SHA-256";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Computes a single digest over the contents of all passed resources, in
+	 * the order they are passed.
+	 *
+	 * @param resources the {@link FlowDefinitionResource}s to digest
+	 * @return the hex encoded digest and the total number of bytes read
+	 * @throws UncheckedIOException if any of the resources can not be read
+	 */
+	static Digest digest(Collection<FlowDefinitionResource> resources) {
+		MessageDigest messageDigest = newMessageDigest();
+		long length = 0;
+		for (FlowDefinitionResource resource : resources) {
+			length += update(messageDigest, resource.getPath());
+		}
+		return new Digest(toHex(messageDigest.digest()), length);
+	}
+
+	private static MessageDigest newMessageDigest() {
+		try {
+			return MessageDigest.getInstance(ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(ALGORITHM + " is required to be supported by every JVM", e);
+		}
+	}
+
+	private static long update(MessageDigest messageDigest, Resource resource) {
+		byte[] buffer = new byte[8192];
+		long length = 0;
+		try (InputStream in = resource.getInputStream()) {
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				messageDigest.update(buffer, 0, read);
+				length += read;
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read " + resource.getDescription(), e);
+		}
+		// separate resources so that moving content between them changes the digest
+		messageDigest.update((byte) 0);
+		return length;
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] result = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			result[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			result[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(result);
+	}
+
+	/**
+	 * Result of {@link ResourceDigests#digest(Collection)}
+	 */
+	@RequiredArgsConstructor
+	static final class Digest {
+		final String value;
+		final long length;
+	}
+}
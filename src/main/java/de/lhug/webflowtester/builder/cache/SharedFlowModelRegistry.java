@@ -0,0 +1,155 @@
+package de.lhug.webflowtester.builder.cache;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.engine.model.FlowModel;
+import org.springframework.webflow.engine.model.builder.FlowModelBuilder;
+
+/**
+ * Thread safe, in-memory registry of parsed {@link FlowModel}s shared by all
+ * builders of a JVM.
+ * <p>
+ * Every {@link de.lhug.webflowtester.builder.XMLMockFlowBuilder
+ * XMLMockFlowBuilder} registers its flow and all parent flows in a registry of
+ * its own, so an abstract parent flow used by many child flows is parsed once
+ * per child. Builders configured with this registry instead take the parent
+ * models, as well as the merged models of the child flows, from here, so that
+ * each of them is parsed once.
+ * </p>
+ * <p>
+ * Entries are keyed by a digest over the contents of the flow resource and all
+ * resources it depends on, so that changing a flow or one of its parents
+ * results in a new entry. The entry of the previous contents is removed once
+ * the new one is registered, so that the registry holds a single model per
+ * flow and set of parents, no matter how often they are edited in a long
+ * running session. Concurrent requests for the same entry wait for the first
+ * one to parse it. Failed parses are not kept, so that a corrected flow can be
+ * parsed again.
+ * </p>
+ * <p>
+ * The models held here are shared between all flows built from them and must
+ * not be modified.
+ * </p>
+ *
+ * @see de.lhug.webflowtester.builder.XMLMockFlowBuilder#withSharedModelRegistry(SharedFlowModelRegistry)
+ */
+public final class SharedFlowModelRegistry {
+
+	private static final SharedFlowModelRegistry SHARED = new SharedFlowModelRegistry();
+
+	private final Map<String, CompletableFuture<FlowModel>> models = new ConcurrentHashMap<>();
+	private final Map<String, String> currentKeys = new ConcurrentHashMap<>();
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Returns the JVM-wide instance of this registry.
+	 *
+	 * @return the shared {@link SharedFlowModelRegistry}, never {@code null}
+	 */
+	public static SharedFlowModelRegistry shared() {
+		return SHARED;
+	}
+
+	/**
+	 * Decorates the given {@link FlowModelBuilder} so that its result is taken
+	 * from this registry if present, and registered here otherwise.
+	 *
+	 * @param resource     the {@link FlowDefinitionResource} the model is built
+	 *                     from
+	 * @param dependencies the resources the model depends on, such as parent
+	 *                     flows
+	 * @param delegate     the {@link FlowModelBuilder} used if the model is not
+	 *                     registered yet
+	 * @return a sharing {@link FlowModelBuilder}
+	 */
+	public FlowModelBuilder createSharingBuilder(FlowDefinitionResource resource,
+			List<FlowDefinitionResource> dependencies, FlowModelBuilder delegate) {
+		List<FlowDefinitionResource> resources = new ArrayList<>(dependencies.size() + 1);
+		resources.add(resource);
+		resources.addAll(dependencies);
+		return new SharingFlowModelBuilder(this, resources, delegate);
+	}
+
+	/**
+	 * @return the number of models taken from this registry
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of models which had to be parsed
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of registered models
+	 */
+	public int getSize() {
+		return models.size();
+	}
+
+	/**
+	 * Removes all models from this registry. The counters are kept.
+	 */
+	public void clear() {
+		models.clear();
+		currentKeys.clear();
+	}
+
+	String keyFor(List<FlowDefinitionResource> resources) {
+		return ResourceDigests.digest(resources).value;
+	}
+
+	FlowModel getFlowModel(List<FlowDefinitionResource> resources, String key, Supplier<FlowModel> parser) {
+		CompletableFuture<FlowModel> created = new CompletableFuture<>();
+		CompletableFuture<FlowModel> existing = models.putIfAbsent(key, created);
+		if (existing != null) {
+			hits.increment();
+			return join(existing);
+		}
+		misses.increment();
+		String location = locationOf(resources);
+		String superseded = currentKeys.put(location, key);
+		if (superseded != null && !superseded.equals(key)) {
+			models.remove(superseded);
+		}
+		try {
+			created.complete(parser.get());
+		} catch (RuntimeException | Error e) {
+			currentKeys.remove(location, key);
+			models.remove(key, created);
+			created.completeExceptionally(e);
+			throw e;
+		}
+		return created.join();
+	}
+
+	private static String locationOf(List<FlowDefinitionResource> resources) {
+		return resources.stream()
+				.map(resource -> resource.getPath().getDescription())
+				.collect(Collectors.joining("\n"));
+	}
+
+	private static FlowModel join(CompletableFuture<FlowModel> model) {
+		try {
+			return model.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw e;
+		}
+	}
+}
@@ -2,6 +2,8 @@ package de.lhug.webflowtester.builder.configuration;
 
 import java.io.File;
 import java.net.URL;
+import java.util.Collections;
+import java.util.List;
 
 import org.springframework.core.io.DefaultResourceLoader;
 import org.springframework.webflow.config.FlowDefinitionResource;
@@ -161,6 +163,22 @@ public class ExternalizedMockFlowConfiguration {
 		}
 	}
 
+	/**
+	 * Returns the resources the main flow resource depends on, such as parent
+	 * flows.
+	 *
+	 * By default, a single external flow resource has no dependencies, so this
+	 * returns an empty list. Subclasses supporting dependent resources override
+	 * this.
+	 *
+	 * @return an {@link Collections#unmodifiableList(List) unmodifiable}
+	 *         {@link List} of dependent {@link FlowDefinitionResource}s, never
+	 *         {@code null}
+	 */
+	public List<FlowDefinitionResource> getFlowResources() {
+		return Collections.emptyList();
+	}
+
 	/**
 	 * Sets the base path used to derive the flow ids from the resource
 	 * locations.
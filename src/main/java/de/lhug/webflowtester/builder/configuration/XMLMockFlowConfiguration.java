@@ -70,6 +70,7 @@ public class XMLMockFlowConfiguration extends ExternalizedMockFlowConfiguration
 	 * @see #withBasePath(String)
 	 * @see #createResource(Object)
 	 */
+	@Override
 	public List<FlowDefinitionResource> getFlowResources() {
 		if (resources == null) {
 			resources = offers.stream()
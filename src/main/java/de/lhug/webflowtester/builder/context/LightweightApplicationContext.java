@@ -0,0 +1,392 @@
+package de.lhug.webflowtester.builder.context;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.StaticMessageSource;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Minimal {@link ApplicationContext} holding the beans and messages of a
+ * single flow under test.
+ * <p>
+ * The beans are kept in an immutable map, which is replaced on every
+ * registration, so lookups never lock. Messages are resolved by a
+ * {@link StaticMessageSource}. Unlike a
+ * {@link org.springframework.context.support.StaticApplicationContext
+ * StaticApplicationContext}, this context does not need to be refreshed, and
+ * has no bean definitions, post processors, lifecycle or event multicaster,
+ * which makes creating one per flow build considerably cheaper.
+ * </p>
+ * <p>
+ * All beans are fully initialized singletons. They are returned as registered,
+ * so {@link org.springframework.beans.factory.FactoryBean FactoryBean}s are
+ * not dereferenced, and published events are discarded.
+ * </p>
+ * <p>
+ * If created with a parent, e.G. a context cached by Spring's TestContext
+ * framework, beans and messages not registered here are looked up in the
+ * parent, and the environment of the parent is used. Registered beans shadow
+ * beans of the parent with the same name.
+ * </p>
+ *
+ * @see de.lhug.webflowtester.builder.ExternalizedMockFlowBuilder#withLightweightContext()
+ */
+public final class LightweightApplicationContext implements ApplicationContext {
+
+	private static final String[] NO_NAMES = {};
+
+	private final String id = ObjectUtils.identityToString(this);
+	private final long startupDate = System.currentTimeMillis();
+	private final StaticMessageSource messageSource = new StaticMessageSource();
+	private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+	private final ApplicationContext parent;
+	private final Environment environment;
+
+	private volatile Map<String, Object> beans = Collections.emptyMap();
+
+	/**
+	 * Creates a context without parent.
+	 */
+	public LightweightApplicationContext() {
+		this(null);
+	}
+
+	/**
+	 * Creates a context falling back to the given parent for beans and messages
+	 * not registered in it.
+	 *
+	 * @param parent the parent {@link ApplicationContext}, or {@code null}
+	 */
+	public LightweightApplicationContext(ApplicationContext parent) {
+		this.parent = parent;
+		this.environment = parent != null ? parent.getEnvironment() : new StandardEnvironment();
+		messageSource.setParentMessageSource(parent);
+	}
+
+	/**
+	 * Registers a fully initialized singleton.
+	 *
+	 * @param beanName the bean name
+	 * @param bean     the singleton instance
+	 * @throws IllegalStateException if a bean with the same name is already
+	 *                               registered
+	 */
+	public synchronized void registerBean(String beanName, Object bean) {
+		Assert.notNull(beanName, "Bean name may not be null");
+		Assert.notNull(bean, "Bean may not be null");
+		Assert.state(!beans.containsKey(beanName),
+				"Could not register bean " + beanName + ", as there is already a bean with the same name");
+		Map<String, Object> registered = new LinkedHashMap<>(beans);
+		registered.put(beanName, bean);
+		beans = Collections.unmodifiableMap(registered);
+	}
+
+	/**
+	 * @return the {@link StaticMessageSource} to register the messages of the
+	 *         flow in
+	 */
+	public StaticMessageSource getStaticMessageSource() {
+		return messageSource;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public String getApplicationName() {
+		return "";
+	}
+
+	@Override
+	public String getDisplayName() {
+		return id;
+	}
+
+	@Override
+	public long getStartupDate() {
+		return startupDate;
+	}
+
+	@Override
+	public ApplicationContext getParent() {
+		return parent;
+	}
+
+	/**
+	 * Not supported, as beans are registered fully initialized.
+	 *
+	 * @throws IllegalStateException always
+	 */
+	@Override
+	public AutowireCapableBeanFactory getAutowireCapableBeanFactory() {
+		throw new IllegalStateException("LightweightApplicationContext does not support autowiring");
+	}
+
+	@Override
+	public Environment getEnvironment() {
+		return environment;
+	}
+
+	@Override
+	public BeanFactory getParentBeanFactory() {
+		return parent;
+	}
+
+	private boolean isParentBean(String name) {
+		return parent != null && !beans.containsKey(name);
+	}
+
+	@Override
+	public boolean containsLocalBean(String name) {
+		return beans.containsKey(name);
+	}
+
+	@Override
+	public Object getBean(String name) {
+		if (isParentBean(name)) {
+			return parent.getBean(name);
+		}
+		Object bean = beans.get(name);
+		if (bean == null) {
+			throw new NoSuchBeanDefinitionException(name);
+		}
+		return bean;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T getBean(String name, Class<T> requiredType) {
+		if (isParentBean(name)) {
+			return parent.getBean(name, requiredType);
+		}
+		Object bean = getBean(name);
+		if (requiredType != null && !requiredType.isInstance(bean)) {
+			throw new BeanNotOfRequiredTypeException(name, requiredType, bean.getClass());
+		}
+		return (T) bean;
+	}
+
+	@Override
+	public Object getBean(String name, Object... args) {
+		if (isParentBean(name)) {
+			return parent.getBean(name, args);
+		}
+		assertNoArguments(args);
+		return getBean(name);
+	}
+
+	@Override
+	public <T> T getBean(Class<T> requiredType) {
+		String[] names = getBeanNamesForType(requiredType);
+		if (names.length == 0 && parent != null) {
+			return parent.getBean(requiredType);
+		}
+		if (names.length == 0) {
+			throw new NoSuchBeanDefinitionException(requiredType);
+		}
+		if (names.length > 1) {
+			throw new NoUniqueBeanDefinitionException(requiredType, names);
+		}
+		return getBean(names[0], requiredType);
+	}
+
+	@Override
+	public <T> T getBean(Class<T> requiredType, Object... args) {
+		assertNoArguments(args);
+		return getBean(requiredType);
+	}
+
+	private static void assertNoArguments(Object... args) {
+		if (!ObjectUtils.isEmpty(args)) {
+			throw new UnsupportedOperationException(
+					"LightweightApplicationContext does not support explicit bean creation arguments");
+		}
+	}
+
+	@Override
+	public boolean containsBean(String name) {
+		return isParentBean(name) ? parent.containsBean(name) : beans.containsKey(name);
+	}
+
+	@Override
+	public boolean isSingleton(String name) {
+		if (isParentBean(name)) {
+			return parent.isSingleton(name);
+		}
+		getBean(name);
+		return true;
+	}
+
+	@Override
+	public boolean isPrototype(String name) {
+		if (isParentBean(name)) {
+			return parent.isPrototype(name);
+		}
+		getBean(name);
+		return false;
+	}
+
+	@Override
+	public boolean isTypeMatch(String name, ResolvableType typeToMatch) {
+		if (isParentBean(name)) {
+			return parent.isTypeMatch(name, typeToMatch);
+		}
+		return typeToMatch.isInstance(getBean(name));
+	}
+
+	@Override
+	public boolean isTypeMatch(String name, Class<?> typeToMatch) {
+		if (isParentBean(name)) {
+			return parent.isTypeMatch(name, typeToMatch);
+		}
+		return typeToMatch == null || typeToMatch.isInstance(getBean(name));
+	}
+
+	@Override
+	public Class<?> getType(String name) {
+		if (isParentBean(name)) {
+			return parent.getType(name);
+		}
+		return getBean(name).getClass();
+	}
+
+	@Override
+	public String[] getAliases(String name) {
+		return isParentBean(name) ? parent.getAliases(name) : NO_NAMES;
+	}
+
+	@Override
+	public boolean containsBeanDefinition(String beanName) {
+		return beans.containsKey(beanName);
+	}
+
+	@Override
+	public int getBeanDefinitionCount() {
+		return beans.size();
+	}
+
+	@Override
+	public String[] getBeanDefinitionNames() {
+		return beans.keySet().toArray(NO_NAMES);
+	}
+
+	@Override
+	public String[] getBeanNamesForType(ResolvableType type) {
+		return beans.entrySet().stream()
+				.filter(entry -> type.isInstance(entry.getValue()))
+				.map(Map.Entry::getKey)
+				.toArray(String[]::new);
+	}
+
+	@Override
+	public String[] getBeanNamesForType(Class<?> type) {
+		return getBeanNamesForType(type, true, true);
+	}
+
+	@Override
+	public String[] getBeanNamesForType(Class<?> type, boolean includeNonSingletons, boolean allowEagerInit) {
+		return getBeanNamesForType(type == null ? ResolvableType.forClass(Object.class) : ResolvableType.forClass(type));
+	}
+
+	@Override
+	public <T> Map<String, T> getBeansOfType(Class<T> type) {
+		return getBeansOfType(type, true, true);
+	}
+
+	@Override
+	public <T> Map<String, T> getBeansOfType(Class<T> type, boolean includeNonSingletons, boolean allowEagerInit) {
+		Map<String, T> result = new LinkedHashMap<>();
+		for (String name : getBeanNamesForType(type, includeNonSingletons, allowEagerInit)) {
+			result.put(name, getBean(name, type));
+		}
+		return result;
+	}
+
+	@Override
+	public String[] getBeanNamesForAnnotation(Class<? extends Annotation> annotationType) {
+		return beans.entrySet().stream()
+				.filter(entry -> AnnotationUtils.findAnnotation(entry.getValue().getClass(), annotationType) != null)
+				.map(Map.Entry::getKey)
+				.toArray(String[]::new);
+	}
+
+	@Override
+	public Map<String, Object> getBeansWithAnnotation(Class<? extends Annotation> annotationType) {
+		Map<String, Object> result = new LinkedHashMap<>();
+		for (String name : getBeanNamesForAnnotation(annotationType)) {
+			result.put(name, getBean(name));
+		}
+		return result;
+	}
+
+	@Override
+	public <A extends Annotation> A findAnnotationOnBean(String beanName, Class<A> annotationType) {
+		return AnnotationUtils.findAnnotation(getType(beanName), annotationType);
+	}
+
+	@Override
+	public String getMessage(String code, Object[] args, String defaultMessage, Locale locale) {
+		return messageSource.getMessage(code, args, defaultMessage, locale);
+	}
+
+	@Override
+	public String getMessage(String code, Object[] args, Locale locale) throws NoSuchMessageException {
+		return messageSource.getMessage(code, args, locale);
+	}
+
+	@Override
+	public String getMessage(MessageSourceResolvable resolvable, Locale locale) throws NoSuchMessageException {
+		return messageSource.getMessage(resolvable, locale);
+	}
+
+	/**
+	 * Discards the event, as there are no listeners.
+	 */
+	@Override
+	public void publishEvent(Object event) {
+		// Intentionally left empty
+	}
+
+	@Override
+	public Resource getResource(String location) {
+		return resourceResolver.getResource(location);
+	}
+
+	@Override
+	public Resource[] getResources(String locationPattern) throws IOException {
+		return resourceResolver.getResources(locationPattern);
+	}
+
+	@Override
+	public ClassLoader getClassLoader() {
+		return resourceResolver.getClassLoader();
+	}
+
+	@Override
+	public String toString() {
+		return getDisplayName() + ": beans " + beans.keySet();
+	}
+}
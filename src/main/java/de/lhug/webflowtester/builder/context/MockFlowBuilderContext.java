@@ -1,12 +1,16 @@
 package de.lhug.webflowtester.builder.context;
 
 import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.context.support.StaticMessageSource;
 import org.springframework.webflow.core.collection.AttributeMap;
 import org.springframework.webflow.core.collection.CollectionUtils;
 import org.springframework.webflow.definition.registry.FlowDefinitionRegistryImpl;
 import org.springframework.webflow.engine.Flow;
 import org.springframework.webflow.engine.builder.support.FlowBuilderContextImpl;
+import org.springframework.webflow.engine.builder.support.FlowBuilderServices;
 
 import de.lhug.webflowtester.builder.services.TestFlowBuilderServicesFactory;
 
@@ -24,6 +28,10 @@ import de.lhug.webflowtester.builder.services.TestFlowBuilderServicesFactory;
  * {@link #registerBean(String, Object)} method. Beans registered are typically
  * mocks or stubs of business services invoked by the flow.
  * </p>
+ * <p>
+ * Instead of a {@link ConfigurableApplicationContext}, the services may hold a
+ * {@link LightweightApplicationContext}, which is cheaper to create.
+ * </p>
  */
 public class MockFlowBuilderContext extends FlowBuilderContextImpl {
 
@@ -45,8 +53,22 @@ public class MockFlowBuilderContext extends FlowBuilderContextImpl {
 	 * @param attributes the AttributeMap containing flow attributes
 	 */
 	public MockFlowBuilderContext(String flowId, AttributeMap<Object> attributes) {
-		super(flowId, attributes, new FlowDefinitionRegistryImpl(),
-				TestFlowBuilderServicesFactory.getServices());
+		this(flowId, attributes, TestFlowBuilderServicesFactory.getServices());
+	}
+
+	/**
+	 * Creates a new mock flow service locator for a {@link Flow} with the given id
+	 * and attributes, using the given services
+	 *
+	 * @param flowId     the String denoting the id of the flow to build
+	 * @param attributes the AttributeMap containing flow attributes
+	 * @param services   the FlowBuilderServices to build the flow with, holding a
+	 *                   {@link ConfigurableApplicationContext} or a
+	 *                   {@link LightweightApplicationContext} to register beans in
+	 * @see TestFlowBuilderServicesFactory#getSharedServices()
+	 */
+	public MockFlowBuilderContext(String flowId, AttributeMap<Object> attributes, FlowBuilderServices services) {
+		super(flowId, attributes, new FlowDefinitionRegistryImpl(), services);
 	}
 
 	/**
@@ -74,8 +96,29 @@ public class MockFlowBuilderContext extends FlowBuilderContextImpl {
 	 * @param bean     the singleton instance
 	 */
 	public void registerBean(String beanName, Object bean) {
-		((ConfigurableApplicationContext) getApplicationContext()).getBeanFactory()
-				.registerSingleton(beanName, bean);
+		ApplicationContext applicationContext = getApplicationContext();
+		if (applicationContext instanceof LightweightApplicationContext) {
+			((LightweightApplicationContext) applicationContext).registerBean(beanName, bean);
+		} else {
+			((ConfigurableApplicationContext) applicationContext).getBeanFactory()
+					.registerSingleton(beanName, bean);
+		}
+	}
+
+	/**
+	 * Returns the message source of the backing application context, to register
+	 * messages used by the flow.
+	 *
+	 * @return the {@link StaticMessageSource} of either a
+	 *         {@link StaticApplicationContext} or a
+	 *         {@link LightweightApplicationContext}
+	 */
+	public StaticMessageSource getStaticMessageSource() {
+		ApplicationContext applicationContext = getApplicationContext();
+		if (applicationContext instanceof LightweightApplicationContext) {
+			return ((LightweightApplicationContext) applicationContext).getStaticMessageSource();
+		}
+		return ((StaticApplicationContext) applicationContext).getStaticMessageSource();
 	}
 
 }
@@ -11,6 +11,7 @@ import org.springframework.webflow.execution.View;
 import org.springframework.webflow.execution.ViewFactory;
 import org.springframework.webflow.validation.ValidationHintResolver;
 
+import de.lhug.webflowtester.builder.services.view.BindingMapperCache;
 import de.lhug.webflowtester.builder.services.view.MockView;
 import lombok.RequiredArgsConstructor;
 
@@ -18,10 +19,19 @@ import lombok.RequiredArgsConstructor;
  * A view factory creator that returns view factories that produce Mock View
  * implementations that can be used to assert that the correct view id was
  * selected as part of a flow execution test.
- *
+ * <p>
+ * All created views share the {@link BindingMapperCache} of this creator,
+ * which lives as long as the services holding it.
  */
+@RequiredArgsConstructor
 class MockViewFactoryCreator implements ViewFactoryCreator {
 
+	private final BindingMapperCache mapperCache;
+
+	MockViewFactoryCreator() {
+		this(new BindingMapperCache(BindingMapperCache.DEFAULT_MAX_ENTRIES));
+	}
+
 	@Override
 	public ViewFactory createViewFactory(
 			Expression viewId,
@@ -30,7 +40,7 @@ class MockViewFactoryCreator implements ViewFactoryCreator {
 			BinderConfiguration binderConfiguration,
 			Validator validator,
 			ValidationHintResolver validationHintResolver) {
-		return new MockViewFactory(viewId, expressionParser);
+		return new MockViewFactory(viewId, expressionParser, mapperCache);
 	}
 
 	@Override
@@ -47,12 +57,14 @@ class MockViewFactoryCreator implements ViewFactoryCreator {
 	static class MockViewFactory implements ViewFactory {
 		private final Expression viewIdExpression;
 		private final ExpressionParser expressionParser;
+		private final BindingMapperCache mapperCache;
 
 		@Override
 		public View getView(RequestContext context) {
 			String viewId = (String) this.viewIdExpression.getValue(context);
 			MockView view = new MockView(viewId, context);
 			view.setExpressionParser(expressionParser);
+			view.setMapperCache(mapperCache);
 			return view;
 		}
 	}
@@ -0,0 +1,55 @@
+package de.lhug.webflowtester.builder.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.expression.ParseException;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+
+/**
+ * {@link SpelExpressionParser} remembering all parsed expressions, so that the
+ * {@link SpelCompilationReport} can tell which of them have been compiled.
+ * <p>
+ * Each parser records only its own expressions. At most
+ * {@value #MAX_RECORDED} expressions are remembered until the recording is
+ * {@link #reset()}.
+ * </p>
+ */
+class RecordingSpelExpressionParser extends SpelExpressionParser {
+
+	static final int MAX_RECORDED = 10_000;
+
+	private final Queue<SpelExpression> recorded = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger recordedCount = new AtomicInteger();
+
+	RecordingSpelExpressionParser(SpelParserConfiguration configuration) {
+		super(configuration);
+	}
+
+	@Override
+	protected SpelExpression doParseExpression(String expressionString, ParserContext context)
+			throws ParseException {
+		SpelExpression expression = super.doParseExpression(expressionString, context);
+		if (recordedCount.incrementAndGet() <= MAX_RECORDED) {
+			recorded.add(expression);
+		} else {
+			recordedCount.decrementAndGet();
+		}
+		return expression;
+	}
+
+	List<SpelExpression> getRecorded() {
+		return new ArrayList<>(recorded);
+	}
+
+	void reset() {
+		recorded.clear();
+		recordedCount.set(0);
+	}
+}
@@ -0,0 +1,157 @@
+package de.lhug.webflowtester.builder.services;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.springframework.expression.spel.standard.SpelExpression;
+import org.springframework.util.ReflectionUtils;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Snapshot of the compilation state of all flow expressions parsed by flow
+ * builder services using a
+ * {@link org.springframework.expression.spel.SpelCompilerMode SpelCompilerMode}
+ * other than {@code OFF}.
+ * <p>
+ * Spring compiles an expression only after it has been evaluated, in
+ * {@code IMMEDIATE} mode on its second evaluation, in {@code MIXED} mode only
+ * after a number of interpreted evaluations, and only
+ * if every part of it can be compiled. Expressions accessing flow scopes or
+ * beans through Web Flow's property accessors usually can not be compiled and
+ * keep being interpreted.
+ * </p>
+ *
+ * @see TestFlowBuilderServicesFactory#getSpelCompilationReport(org.springframework.webflow.engine.builder.support.FlowBuilderServices)
+ * @see de.lhug.webflowtester.builder.ExternalizedMockFlowBuilder#withSpelCompilerMode(org.springframework.expression.spel.SpelCompilerMode)
+ */
+public final class SpelCompilationReport {
+
+	/**
+	 * The compilation state of an expression
+	 */
+	public enum Status {
+		/**
+		 * The expression has been compiled and is evaluated as byte code
+		 */
+		COMPILED,
+		/**
+		 * Compiling the expression failed, it falls back to interpretation
+		 */
+		FALLEN_BACK,
+		/**
+		 * The expression has not been compiled (yet) and is interpreted
+		 */
+		INTERPRETED
+	}
+
+	/**
+	 * A single parsed expression
+	 */
+	@Getter
+	@RequiredArgsConstructor
+	public static final class Entry {
+		private final String expressionString;
+		private final Status status;
+		private final int interpretedCount;
+
+		@Override
+		public String toString() {
+			return status + " " + expressionString + " (interpreted " + interpretedCount + " times)";
+		}
+	}
+
+	private static final Field COMPILED_AST = findField("compiledAst");
+	private static final Field INTERPRETED_COUNT = findField("interpretedCount");
+	private static final Field FAILED_ATTEMPTS = findField("failedAttempts");
+
+	@Getter
+	private final List<Entry> entries;
+
+	SpelCompilationReport(List<SpelExpression> expressions) {
+		this.entries = Collections.unmodifiableList(expressions.stream()
+				.map(SpelCompilationReport::toEntry)
+				.collect(Collectors.toList()));
+	}
+
+	/**
+	 * @return a report without any expressions
+	 */
+	public static SpelCompilationReport empty() {
+		return new SpelCompilationReport(Collections.emptyList());
+	}
+
+	private static Field findField(String name) {
+		Field field = ReflectionUtils.findField(SpelExpression.class, name);
+		if (field != null) {
+			ReflectionUtils.makeAccessible(field);
+		}
+		return field;
+	}
+
+	private static Entry toEntry(SpelExpression expression) {
+		Status status;
+		if (read(COMPILED_AST, expression) != null) {
+			status = Status.COMPILED;
+		} else if (readInt(FAILED_ATTEMPTS, expression) > 0) {
+			status = Status.FALLEN_BACK;
+		} else {
+			status = Status.INTERPRETED;
+		}
+		return new Entry(expression.getExpressionString(), status, readInt(INTERPRETED_COUNT, expression));
+	}
+
+	private static Object read(Field field, SpelExpression expression) {
+		return field == null ? null : ReflectionUtils.getField(field, expression);
+	}
+
+	private static int readInt(Field field, SpelExpression expression) {
+		Object value = read(field, expression);
+		return value instanceof Number ? ((Number) value).intValue() : 0;
+	}
+
+	/**
+	 * @return the distinct strings of all compiled expressions
+	 */
+	public Set<String> getCompiledExpressions() {
+		return expressionsWith(Status.COMPILED);
+	}
+
+	/**
+	 * @return the distinct strings of all expressions which failed to compile and
+	 *         fell back to interpretation
+	 */
+	public Set<String> getFallenBackExpressions() {
+		return expressionsWith(Status.FALLEN_BACK);
+	}
+
+	/**
+	 * @return the distinct strings of all expressions which have not been
+	 *         compiled, whether they failed to compile or were never attempted
+	 */
+	public Set<String> getInterpretedExpressions() {
+		Set<String> interpreted = new TreeSet<>(expressionsWith(Status.INTERPRETED));
+		interpreted.addAll(expressionsWith(Status.FALLEN_BACK));
+		return Collections.unmodifiableSet(interpreted);
+	}
+
+	private Set<String> expressionsWith(Status status) {
+		return entries.stream()
+				.filter(entry -> entry.getStatus() == status)
+				.map(Entry::getExpressionString)
+				.collect(Collectors.collectingAndThen(Collectors.toCollection(TreeSet::new),
+						Collections::unmodifiableSet));
+	}
+
+	@Override
+	public String toString() {
+		return entries.stream()
+				.map(Entry::toString)
+				.collect(Collectors.joining(System.lineSeparator()));
+	}
+}
@@ -1,38 +1,252 @@
 package de.lhug.webflowtester.builder.services;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import org.springframework.binding.convert.ConversionService;
 import org.springframework.binding.convert.service.DefaultConversionService;
+import org.springframework.binding.expression.ExpressionParser;
 import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.ResolvableType;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.util.Assert;
+import org.springframework.webflow.engine.builder.ViewFactoryCreator;
 import org.springframework.webflow.engine.builder.support.FlowBuilderServices;
 import org.springframework.webflow.expression.spel.WebFlowSpringELExpressionParser;
 
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class TestFlowBuilderServicesFactory {
 
+	/**
+	 * Creates a report of the compilation state of all expressions parsed by the
+	 * expression parser of the given services.
+	 * <p>
+	 * Expressions are only recorded by services created with a
+	 * {@link SpelCompilerMode} other than {@link SpelCompilerMode#OFF}, for other
+	 * services the report is empty. As the shared services of a compiler mode
+	 * share one parser, their report covers all flows built with them.
+	 *
+	 * @param services the {@link FlowBuilderServices} to report on
+	 * @return a snapshot of the current compilation state
+	 * @see #getServices(ApplicationContext, SpelCompilerMode)
+	 * @see #getSharedServices(ApplicationContext, SpelCompilerMode)
+	 */
+	public static SpelCompilationReport getSpelCompilationReport(FlowBuilderServices services) {
+		Assert.notNull(services, "FlowBuilderServices may not be null");
+		ExpressionParser parser = services.getExpressionParser();
+		return parser instanceof CompilingExpressionParser
+				? new SpelCompilationReport(((CompilingExpressionParser) parser).spelParser.getRecorded())
+				: SpelCompilationReport.empty();
+	}
+
+	/**
+	 * Forgets all expressions recorded for the
+	 * {@link #getSpelCompilationReport(FlowBuilderServices) compilation report}
+	 * of the given services.
+	 *
+	 * @param services the {@link FlowBuilderServices} to reset the report of
+	 */
+	public static void resetSpelCompilationReport(FlowBuilderServices services) {
+		Assert.notNull(services, "FlowBuilderServices may not be null");
+		ExpressionParser parser = services.getExpressionParser();
+		if (parser instanceof CompilingExpressionParser) {
+			((CompilingExpressionParser) parser).spelParser.reset();
+		}
+	}
+
 	public static FlowBuilderServices getServices() {
-		FlowBuilderServices services = new TestFlowBuilderServices();
+		return getServices(createApplicationContext(null));
+	}
+
+	/**
+	 * Creates new {@link FlowBuilderServices} like {@link #getServices()}, holding
+	 * the given {@link ApplicationContext} for the beans of the flow.
+	 *
+	 * @param applicationContext the context to hold the beans of the flow, e.G. a
+	 *                           {@link de.lhug.webflowtester.builder.context.LightweightApplicationContext
+	 *                           LightweightApplicationContext}
+	 * @return a new {@link FlowBuilderServices} instance
+	 * @see #createApplicationContext(ApplicationContext)
+	 */
+	public static FlowBuilderServices getServices(ApplicationContext applicationContext) {
+		return getServices(applicationContext, SpelCompilerMode.OFF);
+	}
+
+	/**
+	 * Creates new {@link FlowBuilderServices} like
+	 * {@link #getServices(ApplicationContext)}, whose expression parser uses the
+	 * SpEL compiler in the given mode.
+	 * <p>
+	 * With {@link SpelCompilerMode#OFF}, all flow expressions are interpreted.
+	 * With {@link SpelCompilerMode#IMMEDIATE}, expressions are compiled to byte
+	 * code after their second evaluation, with {@link SpelCompilerMode#MIXED}
+	 * after a number of interpreted evaluations, falling back to interpretation
+	 * if compiling or evaluating the compiled form fails. Which expressions
+	 * actually have been compiled is available via
+	 * {@link #getSpelCompilationReport(FlowBuilderServices)}.
+	 *
+	 * @param applicationContext the context to hold the beans of the flow
+	 * @param mode               the {@link SpelCompilerMode} to use, not
+	 *                           {@code null}
+	 * @return a new {@link FlowBuilderServices} instance
+	 */
+	public static FlowBuilderServices getServices(ApplicationContext applicationContext, SpelCompilerMode mode) {
+		Assert.notNull(applicationContext, "ApplicationContext may not be null");
+		Assert.notNull(mode, "SpelCompilerMode may not be null");
+		FlowBuilderServices services = new TestFlowBuilderServices(mode);
 		services.setViewFactoryCreator(new MockViewFactoryCreator());
 		services.setConversionService(new DefaultConversionService());
-		services.setApplicationContext(createTestApplicationContext());
+		services.setApplicationContext(applicationContext);
 		return services;
 	}
 
+	/**
+	 * Creates {@link FlowBuilderServices} using the JVM-wide conversion service,
+	 * expression parser and view factory creator.
+	 * <p>
+	 * Unlike {@link #getServices()}, this does not create a new conversion service
+	 * and expression parser for every flow, so their internal caches, e.G. of
+	 * converter lookups and parsed SpEL expressions, are kept between builds. Only
+	 * the {@link ApplicationContext} holding the beans of the flow is created per
+	 * call. The shared services must be treated as immutable, as any change to
+	 * them, like registering an additional converter, would affect all flows.
+	 *
+	 * @return a new {@link FlowBuilderServices} instance backed by shared services
+	 */
+	public static FlowBuilderServices getSharedServices() {
+		return getSharedServices(createApplicationContext(null));
+	}
+
+	/**
+	 * Creates {@link FlowBuilderServices} like {@link #getSharedServices()},
+	 * holding the given {@link ApplicationContext} for the beans of the flow.
+	 *
+	 * @param applicationContext the context to hold the beans of the flow, e.G. a
+	 *                           {@link de.lhug.webflowtester.builder.context.LightweightApplicationContext
+	 *                           LightweightApplicationContext}
+	 * @return a new {@link FlowBuilderServices} instance backed by shared services
+	 */
+	public static FlowBuilderServices getSharedServices(ApplicationContext applicationContext) {
+		return getSharedServices(applicationContext, SpelCompilerMode.OFF);
+	}
+
+	/**
+	 * Creates {@link FlowBuilderServices} like
+	 * {@link #getSharedServices(ApplicationContext)}, using the JVM-wide
+	 * expression parser of the given SpEL compiler mode.
+	 *
+	 * @param applicationContext the context to hold the beans of the flow
+	 * @param mode               the {@link SpelCompilerMode} to use, not
+	 *                           {@code null}
+	 * @return a new {@link FlowBuilderServices} instance backed by shared services
+	 * @see #getServices(ApplicationContext, SpelCompilerMode)
+	 */
+	public static FlowBuilderServices getSharedServices(ApplicationContext applicationContext,
+			SpelCompilerMode mode) {
+		Assert.notNull(applicationContext, "ApplicationContext may not be null");
+		Assert.notNull(mode, "SpelCompilerMode may not be null");
+		FlowBuilderServices services = new FlowBuilderServices();
+		services.setViewFactoryCreator(SharedServices.VIEW_FACTORY_CREATOR);
+		services.setConversionService(SharedServices.CONVERSION_SERVICE);
+		services.setExpressionParser(SharedServices.getExpressionParser(mode));
+		services.setApplicationContext(applicationContext);
+		return services;
+	}
+
+	@RequiredArgsConstructor
 	private static class TestFlowBuilderServices extends FlowBuilderServices {
+		private final SpelCompilerMode spelCompilerMode;
+
 		@Override
 		public void setConversionService(ConversionService conversionService) {
 			super.setConversionService(conversionService);
-			setExpressionParser(new WebFlowSpringELExpressionParser(new SpelExpressionParser(), conversionService));
+			setExpressionParser(createExpressionParser(conversionService, spelCompilerMode));
 		}
 	}
 
-	private static ApplicationContext createTestApplicationContext() {
-		StaticApplicationContext context = new StaticApplicationContext();
+	private static ExpressionParser createExpressionParser(ConversionService conversionService,
+			SpelCompilerMode mode) {
+		if (mode == SpelCompilerMode.OFF) {
+			return new WebFlowSpringELExpressionParser(new SpelExpressionParser(), conversionService);
+		}
+		return new CompilingExpressionParser(
+				new RecordingSpelExpressionParser(new SpelParserConfiguration(mode, null)), conversionService);
+	}
+
+	/**
+	 * Expression parser using the SpEL compiler, keeping the SpEL parser which
+	 * records the parsed expressions
+	 */
+	private static class CompilingExpressionParser extends WebFlowSpringELExpressionParser {
+		private final RecordingSpelExpressionParser spelParser;
+
+		CompilingExpressionParser(RecordingSpelExpressionParser spelParser, ConversionService conversionService) {
+			super(spelParser, conversionService);
+			this.spelParser = spelParser;
+		}
+	}
+
+	/**
+	 * Creates the {@link StaticApplicationContext} holding the beans and messages
+	 * of a single flow.
+	 * <p>
+	 * If a parent is passed, e.G. a context cached by Spring's TestContext
+	 * framework, the flow can use all beans of the parent, which are not created
+	 * again. Only the returned child context is created per flow. Events
+	 * published by the child, like the {@link ContextRefreshedEvent} of every
+	 * created context, are not propagated to the parent, so its listeners are
+	 * not notified once per flow.
+	 *
+	 * @param parent the parent {@link ApplicationContext}, or {@code null}
+	 * @return a new, refreshed {@link StaticApplicationContext}
+	 */
+	public static StaticApplicationContext createApplicationContext(ApplicationContext parent) {
+		StaticApplicationContext context = new ChildApplicationContext(parent);
 		context.refresh();
 		return context;
 	}
+
+	/**
+	 * Context multicasting published events to its own listeners only, instead
+	 * of propagating them to its parent
+	 */
+	private static class ChildApplicationContext extends StaticApplicationContext {
+
+		ChildApplicationContext(ApplicationContext parent) {
+			super(parent);
+		}
+
+		@Override
+		protected void publishEvent(Object event, ResolvableType eventType) {
+			ApplicationEvent applicationEvent = event instanceof ApplicationEvent
+					? (ApplicationEvent) event
+					: new PayloadApplicationEvent<>(this, event);
+			getBean(APPLICATION_EVENT_MULTICASTER_BEAN_NAME, ApplicationEventMulticaster.class)
+					.multicastEvent(applicationEvent, eventType);
+		}
+	}
+
+	/**
+	 * Lazily initialized holder of the services shared by all flows
+	 */
+	private static class SharedServices {
+		static final ConversionService CONVERSION_SERVICE = new DefaultConversionService();
+		static final ViewFactoryCreator VIEW_FACTORY_CREATOR = new MockViewFactoryCreator();
+		static final Map<SpelCompilerMode, ExpressionParser> EXPRESSION_PARSERS = new ConcurrentHashMap<>();
+
+		static ExpressionParser getExpressionParser(SpelCompilerMode mode) {
+			return EXPRESSION_PARSERS.computeIfAbsent(mode, m -> createExpressionParser(CONVERSION_SERVICE, m));
+		}
+	}
 }
@@ -0,0 +1,216 @@
+package de.lhug.webflowtester.builder.services.view;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.RequiredArgsConstructor;
+import org.springframework.binding.expression.Expression;
+import org.springframework.binding.expression.ExpressionParser;
+import org.springframework.binding.expression.support.FluentParserContext;
+import org.springframework.binding.mapping.impl.DefaultMapper;
+import org.springframework.util.Assert;
+
+/**
+ * Bounded cache of the parsed target expressions and the prepared
+ * {@link DefaultMapper}s used by {@link MockView} to bind request parameters.
+ * <p>
+ * Binding a submitted form requires parsing one target expression per request
+ * parameter against the model class, and assembling them into a
+ * {@link DefaultMapper}. As forms are usually submitted with the same set of
+ * parameters over and over again, this cache keeps the mappers keyed by
+ * expression parser, model class and parameter names, and the parsed
+ * expressions keyed by expression parser, model class and parameter name.
+ * </p>
+ * <p>
+ * Both caches are evicted in least-recently-used order once they exceed their
+ * maximum number of entries. Cached mappers and expressions are immutable and
+ * can safely be shared between {@link MockView}s, even across threads.
+ * </p>
+ * <p>
+ * As parsers are compared by identity, an instance is held per
+ * {@link org.springframework.webflow.engine.builder.support.FlowBuilderServices
+ * FlowBuilderServices}, so it is discarded together with the parser its entries
+ * were parsed with.
+ * </p>
+ */
+public final class BindingMapperCache {
+
+	/**
+	 * The default maximum number of mappers; the maximum number of expressions
+	 * is a multiple of it
+	 */
+	public static final int DEFAULT_MAX_ENTRIES = 512;
+
+	private static final int EXPRESSIONS_PER_MAPPER = 16;
+
+	private final Map<MapperKey, DefaultMapper> mappers;
+	private final Map<ExpressionKey, Expression> expressions;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Creates a new, empty cache.
+	 *
+	 * @param maxEntries the maximum number of cached mappers, must be positive
+	 */
+	public BindingMapperCache(int maxEntries) {
+		Assert.isTrue(maxEntries > 0, "Max entries must be positive");
+		this.mappers = boundedMap(maxEntries);
+		this.expressions = boundedMap(maxEntries * EXPRESSIONS_PER_MAPPER);
+	}
+
+	private static <K, V> Map<K, V> boundedMap(int maxEntries) {
+		return new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached mapper for the given parameter names, or prepares and
+	 * caches it if absent.
+	 * <p>
+	 * The factory is called outside of any lock. Should two threads prepare the
+	 * same mapper at the same time, the first result is kept and returned to
+	 * both.
+	 * </p>
+	 *
+	 * @param parser         the parser the target expressions are parsed with
+	 * @param modelClass     the class of the bound model
+	 * @param parameterNames the names of the bound request parameters
+	 * @param factory        used to prepare the mapper on a cache miss
+	 * @return the cached or newly prepared {@link DefaultMapper}
+	 */
+	public DefaultMapper getMapper(ExpressionParser parser, Class<?> modelClass, Set<String> parameterNames,
+			Supplier<DefaultMapper> factory) {
+		MapperKey key = new MapperKey(parser, modelClass, parameterNames);
+		DefaultMapper mapper = get(mappers, key);
+		if (mapper != null) {
+			hits.increment();
+			return mapper;
+		}
+		misses.increment();
+		MapperKey storedKey = new MapperKey(parser, modelClass,
+				Collections.unmodifiableSet(new LinkedHashSet<>(parameterNames)));
+		return putIfAbsent(mappers, storedKey, factory.get());
+	}
+
+	/**
+	 * Returns the target expression for the given parameter, parsing it against
+	 * the model class if it is not cached yet.
+	 *
+	 * @param parser        the parser to parse the expression with
+	 * @param modelClass    the class of the bound model
+	 * @param parameterName the name of the request parameter
+	 * @return the parsed target {@link Expression}
+	 */
+	public Expression getTargetExpression(ExpressionParser parser, Class<?> modelClass, String parameterName) {
+		ExpressionKey key = new ExpressionKey(parser, modelClass, parameterName);
+		Expression expression = get(expressions, key);
+		if (expression == null) {
+			FluentParserContext parserContext = new FluentParserContext().evaluate(modelClass);
+			expression = putIfAbsent(expressions, key, parser.parseExpression(parameterName, parserContext));
+		}
+		return expression;
+	}
+
+	private synchronized <K, V> V get(Map<K, V> map, K key) {
+		return map.get(key);
+	}
+
+	private synchronized <K, V> V putIfAbsent(Map<K, V> map, K key, V value) {
+		V existing = map.putIfAbsent(key, value);
+		return existing != null ? existing : value;
+	}
+
+	/**
+	 * Removes all mappers and expressions from this cache. The counters are kept.
+	 */
+	public synchronized void clear() {
+		mappers.clear();
+		expressions.clear();
+	}
+
+	/**
+	 * @return the number of mapper lookups answered from the cache
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of mapper lookups which required preparing a new mapper
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of currently cached mappers
+	 */
+	public synchronized int getSize() {
+		return mappers.size();
+	}
+
+	/**
+	 * Key of a cached mapper; parsers are compared by identity, as parsers
+	 * configured differently may produce different expressions
+	 */
+	@RequiredArgsConstructor
+	private static final class MapperKey {
+		private final ExpressionParser parser;
+		private final Class<?> modelClass;
+		private final Set<String> parameterNames;
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MapperKey)) {
+				return false;
+			}
+			MapperKey other = (MapperKey) obj;
+			return parser == other.parser
+					&& modelClass == other.modelClass
+					&& parameterNames.equals(other.parameterNames);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(parser), modelClass, parameterNames);
+		}
+	}
+
+	/**
+	 * Key of a cached expression, comparing parsers by identity
+	 */
+	@RequiredArgsConstructor
+	private static final class ExpressionKey {
+		private final ExpressionParser parser;
+		private final Class<?> modelClass;
+		private final String parameterName;
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof ExpressionKey)) {
+				return false;
+			}
+			ExpressionKey other = (ExpressionKey) obj;
+			return parser == other.parser
+					&& modelClass == other.modelClass
+					&& parameterName.equals(other.parameterName);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(parser), modelClass, parameterName);
+		}
+	}
+}
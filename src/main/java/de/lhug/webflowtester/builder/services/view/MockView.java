@@ -51,6 +51,8 @@ public class MockView implements View {
 	private Validator validator;
 	@Setter
 	private ExpressionParser expressionParser;
+	@Setter
+	private BindingMapperCache mapperCache;
 	private boolean userEventProcessed = false;
 
 	@Override
@@ -115,6 +117,14 @@ public class MockView implements View {
 
 	private DefaultMapper createDefaultMapper(Class<?> modelClass, ParameterMap requestParameters) {
 		Set<String> parameterNames = requestParameters.asMap().keySet();
+		if (mapperCache == null) {
+			return createDefaultMapper(modelClass, parameterNames);
+		}
+		return mapperCache.getMapper(expressionParser, modelClass, parameterNames,
+				() -> createDefaultMapper(modelClass, parameterNames));
+	}
+
+	private DefaultMapper createDefaultMapper(Class<?> modelClass, Set<String> parameterNames) {
 		DefaultMapper mapper = new DefaultMapper();
 
 		for (String parameterName : parameterNames) {
@@ -126,11 +136,18 @@ public class MockView implements View {
 	}
 
 	private DefaultMapping createMapping(Class<?> modelClass, String parameterName) {
-		FluentParserContext parserContext = new FluentParserContext().evaluate(modelClass);
-		Expression targetExpression = expressionParser.parseExpression(parameterName, parserContext);
+		Expression targetExpression = parseTargetExpression(modelClass, parameterName);
 		return new DefaultMapping(new RequestParameterExpression(parameterName), targetExpression);
 	}
 
+	private Expression parseTargetExpression(Class<?> modelClass, String parameterName) {
+		if (mapperCache != null) {
+			return mapperCache.getTargetExpression(expressionParser, modelClass, parameterName);
+		}
+		FluentParserContext parserContext = new FluentParserContext().evaluate(modelClass);
+		return expressionParser.parseExpression(parameterName, parserContext);
+	}
+
 	private String getEventId() {
 		return context.getRequestParameters().get("_eventId");
 	}
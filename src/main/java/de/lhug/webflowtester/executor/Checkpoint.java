@@ -0,0 +1,67 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.Collections;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.webflow.definition.FlowDefinition;
+
+/**
+ * Immutable capture of an active flow execution, created by
+ * {@link MockFlowTester#checkpoint()}.
+ * <p>
+ * A checkpoint holds the serialized state of the execution, meaning all active
+ * flow sessions with their current states and flow scopes, as well as the
+ * conversation scope. It can be {@link MockFlowTester#restore(Checkpoint)
+ * restored} any number of times, and each restore creates a new, independent
+ * execution. This allows running a long flow up to an interesting state once,
+ * and then branching many tests off that state.
+ * </p>
+ */
+public final class Checkpoint {
+
+	/**
+	 * The id of the root flow the checkpoint was taken from
+	 */
+	@Getter
+	private final String flowId;
+
+	/**
+	 * The id of the state the execution was in when the checkpoint was taken
+	 */
+	@Getter
+	private final String stateId;
+
+	@Getter(AccessLevel.PACKAGE)
+	private final Map<String, FlowDefinition> sessionDefinitions;
+
+	@Getter(AccessLevel.PACKAGE)
+	private final boolean compressed;
+
+	private final byte[] data;
+
+	Checkpoint(String flowId, String stateId, Map<String, FlowDefinition> sessionDefinitions, byte[] data,
+			boolean compressed) {
+		this.flowId = flowId;
+		this.stateId = stateId;
+		this.sessionDefinitions = Collections.unmodifiableMap(sessionDefinitions);
+		this.data = data;
+		this.compressed = compressed;
+	}
+
+	byte[] getData() {
+		return data;
+	}
+
+	/**
+	 * @return the size of the captured state in bytes
+	 */
+	public int getSize() {
+		return data.length;
+	}
+
+	@Override
+	public String toString() {
+		return "Checkpoint[" + flowId + "@" + stateId + ", " + data.length + " bytes]";
+	}
+}
@@ -0,0 +1,35 @@
+package de.lhug.webflowtester.executor;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.webflow.definition.StateDefinition;
+import org.springframework.webflow.definition.TransitionDefinition;
+import org.springframework.webflow.engine.DecisionState;
+import org.springframework.webflow.execution.FlowExecutionListener;
+import org.springframework.webflow.execution.RequestContext;
+
+/**
+ * {@link FlowExecutionListener} counting entered states and executed
+ * transitions in a {@link FlowCoverage}.
+ * <p>
+ * Decision states execute their transitions without notifying listeners, so
+ * these are counted when the target state has been entered.
+ * </p>
+ */
+@RequiredArgsConstructor
+class CoverageFlowExecutionListener implements FlowExecutionListener {
+
+	private final FlowCoverage coverage;
+
+	@Override
+	public void stateEntered(RequestContext context, StateDefinition previousState, StateDefinition state) {
+		coverage.hitState(state);
+		if (previousState instanceof DecisionState && context.getCurrentTransition() != null) {
+			coverage.hitTransition(previousState, context.getCurrentTransition());
+		}
+	}
+
+	@Override
+	public void transitionExecuting(RequestContext context, TransitionDefinition transition) {
+		coverage.hitTransition(context.getCurrentState(), transition);
+	}
+}
@@ -0,0 +1,237 @@
+package de.lhug.webflowtester.executor;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.util.Assert;
+
+/**
+ * State and transition coverage of one or more flows, possibly merged from
+ * the reports of multiple JVMs.
+ * <p>
+ * Reports are stored as one text file per flow and JVM, holding a line per
+ * state and transition with its number of hits. As all states and
+ * transitions are listed, including those never hit, merging the files of all
+ * JVMs yields the coverage of the whole test suite.
+ * </p>
+ *
+ * @see FlowCoverage
+ */
+public final class CoverageReport {
+
+	static final String SUFFIX = ".coverage";
+
+	private static final String FLOW = "flow";
+	private static final String STATE = "state";
+	private static final String TRANSITION = "transition";
+
+	private final Map<String, Map<String, Long>> states = new TreeMap<>();
+	private final Map<String, Map<String, Long>> transitions = new TreeMap<>();
+
+	private CoverageReport() {
+	}
+
+	/**
+	 * Creates a report of the current counts of the given coverages.
+	 *
+	 * @param coverages the {@link FlowCoverage}s to report
+	 * @return a new {@link CoverageReport}
+	 */
+	public static CoverageReport of(Collection<FlowCoverage> coverages) {
+		CoverageReport report = new CoverageReport();
+		for (FlowCoverage coverage : coverages) {
+			coverage.getStateHits().forEach((name, hits) -> report.add(STATE, coverage.getFlowId(), name, hits));
+			coverage.getTransitionHits()
+					.forEach((name, hits) -> report.add(TRANSITION, coverage.getFlowId(), name, hits));
+		}
+		return report;
+	}
+
+	/**
+	 * Reads and merges all reports in the given directory, summing up the hits
+	 * of equal states and transitions.
+	 * <p>
+	 * Reports of earlier runs are merged as well, so the directory should be
+	 * cleared before each run, or the reports should be read with
+	 * {@link #read(Path, Instant)}.
+	 * </p>
+	 *
+	 * @param directory the directory the reports have been written to
+	 * @return the merged {@link CoverageReport}
+	 * @throws UncheckedIOException if the directory or a report can not be read
+	 */
+	public static CoverageReport read(Path directory) {
+		return read(directory, Instant.EPOCH);
+	}
+
+	/**
+	 * Reads and merges the reports in the given directory which have been
+	 * written at or after the given instant, typically the start of the current
+	 * run, summing up the hits of equal states and transitions.
+	 *
+	 * @param directory the directory the reports have been written to
+	 * @param since     the instant before which reports are ignored
+	 * @return the merged {@link CoverageReport}
+	 * @throws UncheckedIOException if the directory or a report can not be read
+	 */
+	public static CoverageReport read(Path directory, Instant since) {
+		Assert.notNull(directory, "Directory may not be null");
+		Assert.notNull(since, "Instant may not be null");
+		CoverageReport report = new CoverageReport();
+		try (Stream<Path> files = Files.list(directory)) {
+			List<Path> reports = files.filter(file -> file.toString().endsWith(SUFFIX))
+					.sorted()
+					.collect(Collectors.toList());
+			for (Path file : reports) {
+				if (!Files.getLastModifiedTime(file).toInstant().isBefore(since)) {
+					report.readFile(file);
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read coverage reports from " + directory, e);
+		}
+		return report;
+	}
+
+	private void readFile(Path file) throws IOException {
+		try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			String flowId = null;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t");
+				if (fields.length == 2 && FLOW.equals(fields[0])) {
+					flowId = fields[1];
+				} else if (fields.length == 3 && flowId != null) {
+					add(fields[0], flowId, fields[1], parseHits(file, fields[2]));
+				}
+			}
+		}
+	}
+
+	private static long parseHits(Path file, String hits) throws IOException {
+		try {
+			return Long.parseLong(hits);
+		} catch (NumberFormatException e) {
+			throw new IOException("Malformed coverage report " + file, e);
+		}
+	}
+
+	private void add(String kind, String flowId, String name, long hits) {
+		Map<String, Long> stateHits = states.computeIfAbsent(flowId, id -> new TreeMap<>());
+		Map<String, Long> transitionHits = transitions.computeIfAbsent(flowId, id -> new TreeMap<>());
+		if (STATE.equals(kind)) {
+			stateHits.merge(name, hits, Long::sum);
+		} else if (TRANSITION.equals(kind)) {
+			transitionHits.merge(name, hits, Long::sum);
+		}
+	}
+
+	/**
+	 * Writes a file per flow into the given directory, named after the flow id,
+	 * a hash of it and the id of the current process. The hash keeps flow ids
+	 * apart which only differ in characters not allowed in file names.
+	 *
+	 * @param directory the directory to write to, created if it does not exist
+	 * @throws UncheckedIOException if the reports can not be written
+	 */
+	public void writeTo(Path directory) {
+		Assert.notNull(directory, "Directory may not be null");
+		long pid = ProcessHandle.current().pid();
+		try {
+			Files.createDirectories(directory);
+			for (String flowId : getFlowIds()) {
+				Path file = directory.resolve(fileNameOf(flowId) + "-" + pid + SUFFIX);
+				try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+					writer.write(FLOW + "\t" + flowId + "\n");
+					write(writer, STATE, getStateHits(flowId));
+					write(writer, TRANSITION, getTransitionHits(flowId));
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not write coverage reports to " + directory, e);
+		}
+	}
+
+	static String fileNameOf(String flowId) {
+		return flowId.replaceAll("[^A-Za-z0-9._-]", "_") + "-" + String.format("%08x", flowId.hashCode());
+	}
+
+	private static void write(BufferedWriter writer, String kind, Map<String, Long> hits) throws IOException {
+		for (Map.Entry<String, Long> entry : hits.entrySet()) {
+			writer.write(kind + "\t" + entry.getKey() + "\t" + entry.getValue() + "\n");
+		}
+	}
+
+	/**
+	 * @return the ids of all reported flows, sorted
+	 */
+	public Set<String> getFlowIds() {
+		return Collections.unmodifiableSet(states.keySet());
+	}
+
+	/**
+	 * @param flowId the id of a reported flow
+	 * @return the number of times each state has been entered, by state id
+	 */
+	public Map<String, Long> getStateHits(String flowId) {
+		return Collections.unmodifiableMap(states.getOrDefault(flowId, Collections.emptyMap()));
+	}
+
+	/**
+	 * @param flowId the id of a reported flow
+	 * @return the number of times each transition has been executed, by
+	 *         transition name
+	 */
+	public Map<String, Long> getTransitionHits(String flowId) {
+		return Collections.unmodifiableMap(transitions.getOrDefault(flowId, Collections.emptyMap()));
+	}
+
+	/**
+	 * @param flowId the id of a reported flow
+	 * @return the ids of all states which have never been entered
+	 */
+	public Set<String> getUncoveredStates(String flowId) {
+		return FlowCoverage.uncovered(getStateHits(flowId));
+	}
+
+	/**
+	 * @param flowId the id of a reported flow
+	 * @return the names of all transitions which have never been executed
+	 */
+	public Set<String> getUncoveredTransitions(String flowId) {
+		return FlowCoverage.uncovered(getTransitionHits(flowId));
+	}
+
+	/**
+	 * Summarizes the number of covered states and transitions per flow.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (String flowId : getFlowIds()) {
+			Map<String, Long> stateHits = getStateHits(flowId);
+			Map<String, Long> transitionHits = getTransitionHits(flowId);
+			result.append(flowId)
+					.append(": states ").append(stateHits.size() - getUncoveredStates(flowId).size())
+					.append('/').append(stateHits.size())
+					.append(", transitions ")
+					.append(transitionHits.size() - getUncoveredTransitions(flowId).size())
+					.append('/').append(transitionHits.size())
+					.append('\n');
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,107 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+/**
+ * Hands executions over between {@link MockFlowTester}s, simulating a
+ * conversation resumed on another node of a cluster, and measures the cost of
+ * doing so.
+ * <p>
+ * Each tester should be created from its own copy of the flow, e.G. by a
+ * separate builder, just as every node builds its own flows. Every
+ * {@link #transfer(MockFlowTester, MockFlowTester) transfer} exports the
+ * execution of one tester, records the size of the exported bytes and the
+ * time taken, and imports it into the other tester, recording the time taken
+ * to rehydrate it. A hand-off can be shared by many pairs of testers, also
+ * running in parallel.
+ * </p>
+ *
+ * <pre>
+ * ExecutionHandOff handOff = new ExecutionHandOff();
+ * nodeA.startFlow();
+ * handOff.transfer(nodeA, nodeB);
+ * nodeB.setEventId("next");
+ * nodeB.resumeFlow();
+ *
+ * System.out.println(handOff);
+ * </pre>
+ *
+ * @see MockFlowTester#exportExecution()
+ * @see MockFlowTester#importExecution(byte[])
+ */
+public final class ExecutionHandOff {
+
+	/**
+	 * The time taken to export executions
+	 */
+	@Getter
+	private final LatencyHistogram exportTimes = new LatencyHistogram();
+
+	/**
+	 * The time taken to import and rehydrate executions
+	 */
+	@Getter
+	private final LatencyHistogram rehydrationTimes = new LatencyHistogram();
+
+	private final LongAdder totalSize = new LongAdder();
+	private final AtomicLong maxSize = new AtomicLong();
+
+	/**
+	 * Moves the current execution of one tester to another.
+	 * <p>
+	 * The execution of the source tester is not affected, so both testers can
+	 * continue independently afterwards.
+	 *
+	 * @param from the tester to export the current execution of
+	 * @param to   the tester to import the execution into
+	 * @return the exported execution
+	 * @throws IllegalStateException    if the source has no active execution, or
+	 *                                  the execution can not be transferred
+	 * @throws IllegalArgumentException if the testers test different flows
+	 */
+	public byte[] transfer(MockFlowTester from, MockFlowTester to) {
+		Assert.notNull(from, "Source tester may not be null");
+		Assert.notNull(to, "Target tester may not be null");
+		long start = System.nanoTime();
+		byte[] exported = from.exportExecution();
+		exportTimes.record(System.nanoTime() - start);
+		totalSize.add(exported.length);
+		maxSize.accumulateAndGet(exported.length, Math::max);
+		start = System.nanoTime();
+		to.importExecution(exported);
+		rehydrationTimes.record(System.nanoTime() - start);
+		return exported;
+	}
+
+	/**
+	 * @return the number of executions transferred
+	 */
+	public long getTransferCount() {
+		return rehydrationTimes.getCount();
+	}
+
+	/**
+	 * @return the size of the largest exported execution in bytes
+	 */
+	public long getMaxTransferSize() {
+		return maxSize.get();
+	}
+
+	/**
+	 * @return the average size of the exported executions in bytes, or 0 if
+	 *         nothing was exported
+	 */
+	public double getMeanTransferSize() {
+		long count = exportTimes.getCount();
+		return count == 0 ? 0 : (double) totalSize.sum() / count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("transfers=%d, mean=%.0fB, max=%dB, export %s, rehydration %s", getTransferCount(),
+				getMeanTransferSize(), getMaxTransferSize(), exportTimes, rehydrationTimes);
+	}
+}
@@ -0,0 +1,81 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.List;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Outcome of a {@link FlowExplorer#explore() state-space exploration}.
+ *
+ * State ids refer to the states of the explored flow. Transitions are denoted
+ * as {@code sourceStateId->targetStateId}, where a transition without target
+ * state is denoted with its source state as target.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ExplorationResult {
+
+	/**
+	 * The ids of all states which have been entered at least once
+	 */
+	private final Set<String> reachedStates;
+
+	/**
+	 * The ids of all states which have never been entered
+	 */
+	private final Set<String> unreachedStates;
+
+	/**
+	 * All transitions of the explored flow which have never been executed,
+	 * excluding global transitions
+	 */
+	private final Set<String> deadTransitions;
+
+	/**
+	 * The ids of all end states the flow has ended in
+	 */
+	private final Set<String> outcomes;
+
+	/**
+	 * All explored event sequences which threw an exception
+	 */
+	private final List<FailingPath> failingPaths;
+
+	/**
+	 * The number of distinct configurations, made up of the current states and
+	 * the scopes, which have been explored
+	 */
+	private final int exploredConfigurations;
+
+	/**
+	 * {@code false}, if the exploration has been stopped by its time budget
+	 * before all configurations within the maximum depth have been explored
+	 */
+	private final boolean complete;
+
+	/**
+	 * An event sequence which threw an exception
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+	public static final class FailingPath {
+
+		/**
+		 * The event ids signaled after starting the flow, the last one causing
+		 * the failure
+		 */
+		private final List<String> eventIds;
+
+		/**
+		 * The thrown exception
+		 */
+		private final Throwable failure;
+
+		@Override
+		public String toString() {
+			return eventIds + ": " + failure;
+		}
+	}
+}
@@ -0,0 +1,252 @@
+package de.lhug.webflowtester.executor;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import lombok.Getter;
+import lombok.extern.java.Log;
+import org.springframework.util.Assert;
+import org.springframework.webflow.definition.StateDefinition;
+import org.springframework.webflow.definition.TransitionDefinition;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.State;
+import org.springframework.webflow.engine.TransitionableState;
+
+/**
+ * Counts how often each state of a {@link Flow} has been entered and each of
+ * its transitions has been executed.
+ * <p>
+ * All states and transitions are mapped to dense indices once, when this is
+ * created, and every hit increments a counter of an {@link AtomicLongArray}.
+ * Recording is therefore lock-free, does not allocate and can be shared by
+ * testers running in parallel. States and transitions unknown when this was
+ * created, e.G. of a changed flow with the same id, are not counted.
+ * </p>
+ * <p>
+ * Transitions are named {@code stateId:transitionId->targetStateId}, where
+ * global transitions use {@code *} as state id.
+ * </p>
+ * <p>
+ * The instances returned by {@link #of(Flow)} are registered JVM-wide, and
+ * written as {@link CoverageReport} at shutdown if a report directory has been
+ * configured, either by {@link #writeReportsOnShutdown(Path)} or by the system
+ * property {@value #DIRECTORY_PROPERTY}. Reports of forked test JVMs written to
+ * the same directory are merged by {@link CoverageReport#read(Path)}, or by
+ * {@link CoverageReport#read(Path, java.time.Instant)} to ignore reports of
+ * earlier runs.
+ * </p>
+ *
+ * @see MockFlowTester#recordCoverage(FlowCoverage)
+ */
+@Log
+public final class FlowCoverage {
+
+	/**
+	 * System property naming the directory to write the reports of all
+	 * registered coverages to at shutdown
+	 */
+	public static final String DIRECTORY_PROPERTY = "webflowtester.coverage.directory";
+
+	static final String GLOBAL_SOURCE = "*";
+
+	private static final Map<String, FlowCoverage> REGISTERED = new ConcurrentHashMap<>();
+	private static final AtomicReference<Path> REPORT_DIRECTORY = new AtomicReference<>();
+
+	static {
+		String directory = System.getProperty(DIRECTORY_PROPERTY);
+		if (directory != null && !directory.isEmpty()) {
+			writeReportsOnShutdown(Paths.get(directory));
+		}
+	}
+
+	/**
+	 * Returns the JVM-wide coverage of the flow with the id of the given flow,
+	 * creating it from the given flow if absent.
+	 *
+	 * @param flow the {@link Flow} to get the coverage of
+	 * @return the registered {@link FlowCoverage}
+	 */
+	public static FlowCoverage of(Flow flow) {
+		return REGISTERED.computeIfAbsent(flow.getId(), id -> new FlowCoverage(flow));
+	}
+
+	/**
+	 * @return all coverages registered by {@link #of(Flow)}
+	 */
+	public static Collection<FlowCoverage> getRegistered() {
+		return Collections.unmodifiableCollection(new ArrayList<>(REGISTERED.values()));
+	}
+
+	/**
+	 * Configures the reports of all registered coverages to be written to the
+	 * given directory when the JVM shuts down. Each JVM writes a file per flow,
+	 * named after the flow id and the process id. Reports of earlier runs are
+	 * not removed, see {@link CoverageReport#read(Path, java.time.Instant)}.
+	 *
+	 * @param directory the directory to write the reports to, created if it does
+	 *                  not exist
+	 */
+	public static void writeReportsOnShutdown(Path directory) {
+		Assert.notNull(directory, "Directory may not be null");
+		if (REPORT_DIRECTORY.getAndSet(directory) == null) {
+			Runtime.getRuntime().addShutdownHook(new Thread(FlowCoverage::writeReportsAtShutdown,
+					"flow-coverage-report"));
+		}
+	}
+
+	private static void writeReportsAtShutdown() {
+		try {
+			CoverageReport.of(getRegistered()).writeTo(REPORT_DIRECTORY.get());
+		} catch (RuntimeException e) {
+			log.log(Level.WARNING, "Could not write flow coverage reports", e);
+		}
+	}
+
+	@Getter
+	private final String flowId;
+	private final String[] names;
+	private final int stateCount;
+	private final Map<String, Integer> stateIndices = new HashMap<>();
+	private final Map<String, Map<String, Integer>> transitionIndices = new HashMap<>();
+	private final AtomicLongArray hits;
+
+	/**
+	 * Creates a coverage of the given flow, which is not registered JVM-wide.
+	 *
+	 * @param flow the {@link Flow} to map the states and transitions of
+	 * @see #of(Flow)
+	 */
+	public FlowCoverage(Flow flow) {
+		Assert.notNull(flow, "Flow may not be null");
+		this.flowId = flow.getId();
+		List<String> stateNames = new ArrayList<>();
+		List<String> transitionNames = new ArrayList<>();
+		for (String stateId : flow.getStateIds()) {
+			stateIndices.put(stateId, stateNames.size());
+			stateNames.add(stateId);
+		}
+		for (String stateId : flow.getStateIds()) {
+			State state = flow.getStateInstance(stateId);
+			if (state instanceof TransitionableState) {
+				index(stateId, ((TransitionableState) state).getTransitions(), transitionNames, stateNames.size());
+			}
+		}
+		index(GLOBAL_SOURCE, flow.getGlobalTransitionSet().toArray(), transitionNames, stateNames.size());
+		this.stateCount = stateNames.size();
+		this.names = new String[stateNames.size() + transitionNames.size()];
+		stateNames.addAll(transitionNames);
+		stateNames.toArray(names);
+		this.hits = new AtomicLongArray(names.length);
+	}
+
+	private void index(String source, TransitionDefinition[] transitions, List<String> transitionNames, int offset) {
+		Map<String, Integer> indices = transitionIndices.computeIfAbsent(source, s -> new HashMap<>());
+		for (TransitionDefinition transition : transitions) {
+			if (!indices.containsKey(transition.getId())) {
+				indices.put(transition.getId(), offset + transitionNames.size());
+				transitionNames.add(nameOf(source, transition));
+			}
+		}
+	}
+
+	static String nameOf(String source, TransitionDefinition transition) {
+		String target = transition.getTargetStateId();
+		return source + ":" + transition.getId() + "->" + (target != null ? target : source);
+	}
+
+	void hitState(StateDefinition state) {
+		if (flowId.equals(state.getOwner().getId())) {
+			Integer index = stateIndices.get(state.getId());
+			if (index != null) {
+				hits.incrementAndGet(index);
+			}
+		}
+	}
+
+	void hitTransition(StateDefinition source, TransitionDefinition transition) {
+		Integer index = null;
+		if (source != null && flowId.equals(source.getOwner().getId())) {
+			index = indexOf(source.getId(), transition);
+			if (index == null) {
+				index = indexOf(GLOBAL_SOURCE, transition);
+			}
+		}
+		if (index != null) {
+			hits.incrementAndGet(index);
+		}
+	}
+
+	private Integer indexOf(String source, TransitionDefinition transition) {
+		Map<String, Integer> indices = transitionIndices.get(source);
+		return indices != null ? indices.get(transition.getId()) : null;
+	}
+
+	/**
+	 * @return the number of times each state has been entered, by state id, in
+	 *         the order the states have been defined
+	 */
+	public Map<String, Long> getStateHits() {
+		return hitsBetween(0, stateCount);
+	}
+
+	/**
+	 * @return the number of times each transition has been executed, by
+	 *         transition name, in the order the transitions have been defined
+	 */
+	public Map<String, Long> getTransitionHits() {
+		return hitsBetween(stateCount, names.length);
+	}
+
+	private Map<String, Long> hitsBetween(int from, int to) {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (int i = from; i < to; i++) {
+			result.put(names[i], hits.get(i));
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * @return the ids of all states which have never been entered
+	 */
+	public Set<String> getUncoveredStates() {
+		return uncovered(getStateHits());
+	}
+
+	/**
+	 * @return the names of all transitions which have never been executed
+	 */
+	public Set<String> getUncoveredTransitions() {
+		return uncovered(getTransitionHits());
+	}
+
+	static Set<String> uncovered(Map<String, Long> hits) {
+		Set<String> result = new LinkedHashSet<>();
+		hits.forEach((name, count) -> {
+			if (count == 0) {
+				result.add(name);
+			}
+		});
+		return Collections.unmodifiableSet(result);
+	}
+
+	/**
+	 * Sets all counters back to zero.
+	 */
+	public void reset() {
+		for (int i = 0; i < hits.length(); i++) {
+			hits.set(i, 0);
+		}
+	}
+}
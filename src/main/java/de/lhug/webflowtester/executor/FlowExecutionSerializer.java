@@ -0,0 +1,165 @@
+package de.lhug.webflowtester.executor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.util.Assert;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.core.collection.MutableAttributeMap;
+import org.springframework.webflow.definition.registry.FlowDefinitionLocator;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.impl.FlowExecutionImpl;
+import org.springframework.webflow.engine.impl.FlowExecutionImplFactory;
+
+/**
+ * Serializes and restores {@link FlowExecutionImpl}s the way a flow execution
+ * repository does.
+ * <p>
+ * The serialized form contains the execution itself, meaning all flow sessions
+ * with their current state and flow scope, followed by the conversation scope,
+ * which a repository keeps in the conversation. Restored executions are
+ * rehydrated using a {@link FlowExecutionImplFactory}, which re-attaches the
+ * flow definitions and the registered listeners.
+ * </p>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+final class FlowExecutionSerializer {
+
+	/**
+	 * Serializes the execution and its conversation scope.
+	 *
+	 * @param execution the {@link FlowExecutionImpl} to serialize
+	 * @param compress  whether to compress the result with GZIP
+	 * @return the serialized execution
+	 * @throws IllegalStateException if the execution, or any object held in one
+	 *                               of its scopes, can not be serialized
+	 */
+	static byte[] serialize(FlowExecutionImpl execution, boolean compress) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(wrap(bytes, compress))) {
+			out.writeObject(execution);
+			out.writeObject(new LocalAttributeMap<>(execution.getConversationScope().asMap()));
+		} catch (IOException e) {
+			throw new IllegalStateException("Flow execution could not be serialized: " + e.getMessage(), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Determines the size of a single object, as it would be contained in an
+	 * uncompressed serialized execution.
+	 *
+	 * @param value the object to measure
+	 * @return the size of the serialized object in bytes
+	 * @throws IllegalStateException if the object can not be serialized
+	 */
+	static int sizeOf(Object value) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(value);
+		} catch (IOException e) {
+			throw new IllegalStateException("Object could not be serialized: " + e.getMessage(), e);
+		}
+		return bytes.size();
+	}
+
+	private static OutputStream wrap(OutputStream out, boolean compress) throws IOException {
+		return compress ? new GZIPOutputStream(out) : out;
+	}
+
+	/**
+	 * Restores an execution previously serialized by
+	 * {@link #serialize(FlowExecutionImpl, boolean)}.
+	 *
+	 * @param data              the serialized execution
+	 * @param compressed        whether the data is compressed
+	 * @param flow              the root {@link Flow} of the execution
+	 * @param executionFactory  the factory used to rehydrate the execution
+	 * @param subflowLocator    used to look up the definitions of active sub
+	 *                          flow sessions
+	 * @return the restored, fully functional {@link FlowExecutionImpl}
+	 * @throws IllegalStateException if the data can not be deserialized
+	 */
+	@SuppressWarnings("unchecked")
+	static FlowExecutionImpl restore(byte[] data, boolean compressed, Flow flow,
+			FlowExecutionImplFactory executionFactory, FlowDefinitionLocator subflowLocator) {
+		FlowExecutionImpl execution;
+		MutableAttributeMap<Object> conversationScope;
+		try (ObjectInputStream in = new ConfigurableObjectInputStream(
+				unwrap(new ByteArrayInputStream(data), compressed), flow.getClassLoader())) {
+			execution = (FlowExecutionImpl) in.readObject();
+			conversationScope = (MutableAttributeMap<Object>) in.readObject();
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException("Flow execution could not be restored: " + e.getMessage(), e);
+		}
+		return (FlowExecutionImpl) executionFactory
+				.restoreFlowExecution(execution, flow, null, conversationScope, subflowLocator);
+	}
+
+	/**
+	 * Serializes the execution into a self-contained, compressed form, prefixed
+	 * with the id of its root flow, to be transferred to another JVM.
+	 *
+	 * @param flowId    the id of the root flow of the execution
+	 * @param execution the {@link FlowExecutionImpl} to serialize
+	 * @return the exported execution
+	 * @throws IllegalStateException if the execution, or any object held in one
+	 *                               of its scopes, can not be serialized
+	 */
+	static byte[] export(String flowId, FlowExecutionImpl execution) {
+		byte[] data = serialize(execution, true);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + flowId.length() + 2);
+		try (DataOutputStream out = new DataOutputStream(bytes)) {
+			out.writeUTF(flowId);
+			out.write(data);
+		} catch (IOException e) {
+			throw new IllegalStateException("Flow execution could not be exported: " + e.getMessage(), e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Restores an execution previously exported by
+	 * {@link #export(String, FlowExecutionImpl)}.
+	 *
+	 * @param exported         the exported execution
+	 * @param flow             the root {@link Flow} of the execution, which must
+	 *                         have the id the execution was exported with
+	 * @param executionFactory the factory used to rehydrate the execution
+	 * @param subflowLocator   used to look up the definitions of active sub flow
+	 *                         sessions
+	 * @return the restored, fully functional {@link FlowExecutionImpl}
+	 * @throws IllegalArgumentException if the execution was exported from
+	 *                                  another flow
+	 * @throws IllegalStateException    if the data can not be deserialized
+	 */
+	static FlowExecutionImpl importExecution(byte[] exported, Flow flow, FlowExecutionImplFactory executionFactory,
+			FlowDefinitionLocator subflowLocator) {
+		String flowId;
+		byte[] data;
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(exported))) {
+			flowId = in.readUTF();
+			data = in.readAllBytes();
+		} catch (IOException e) {
+			throw new IllegalStateException("Flow execution could not be imported: " + e.getMessage(), e);
+		}
+		Assert.isTrue(flow.getId().equals(flowId),
+				"Execution was exported from flow " + flowId + " but is imported into " + flow.getId());
+		return restore(data, true, flow, executionFactory, subflowLocator);
+	}
+
+	private static InputStream unwrap(InputStream in, boolean compressed) throws IOException {
+		return compressed ? new GZIPInputStream(in) : in;
+	}
+}
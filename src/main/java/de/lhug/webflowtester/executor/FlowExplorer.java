@@ -0,0 +1,376 @@
+package de.lhug.webflowtester.executor;
+
+import de.lhug.webflowtester.builder.MockFlowBuilder;
+import de.lhug.webflowtester.executor.ExplorationResult.FailingPath;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.springframework.util.Assert;
+import org.springframework.webflow.core.collection.AttributeMap;
+import org.springframework.webflow.definition.StateDefinition;
+import org.springframework.webflow.definition.TransitionDefinition;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.TransitionableState;
+import org.springframework.webflow.engine.impl.FlowExecutionImplFactory;
+import org.springframework.webflow.execution.FlowExecution;
+import org.springframework.webflow.execution.FlowSession;
+
+/**
+ * Explores the state space of a {@link Flow} by signaling every event the
+ * current state can handle, recursively, on a pool of workers.
+ * <p>
+ * Starting from the started flow, each explored configuration is resumed once
+ * with the id of every transition of its current state and every global
+ * transition of the active flow. Action, decision and sub flow states are
+ * passed through as the flow executes them, so their transitions are covered
+ * by the events leading through them. Configurations are made up of the
+ * current states of all active flow sessions and the contents of the flow and
+ * conversation scopes; configurations already explored are not explored
+ * again. Attributes of types not overriding {@link Object#hashCode()} are only
+ * considered by their type.
+ * </p>
+ * <p>
+ * Every explored configuration is captured as {@link Checkpoint}, so that each
+ * event is signaled to an independent execution. If the scopes can not be
+ * serialized, the execution is instead reached by replaying its events from
+ * the start, which requires the flow to behave deterministically.
+ * </p>
+ *
+ * <pre>
+ * ExplorationResult result = FlowExplorer.of(builder)
+ * 		.withMaxDepth(10)
+ * 		.withTimeBudget(Duration.ofSeconds(5))
+ * 		.explore();
+ *
+ * assertThat(result.getUnreachedStates()).isEmpty();
+ * assertThat(result.getFailingPaths()).isEmpty();
+ * </pre>
+ */
+public final class FlowExplorer {
+
+	/**
+	 * Builds an explorer using a {@link MockFlowBuilder}, which is called
+	 * exactly once.
+	 *
+	 * @param builder an implementation of {@link MockFlowBuilder} to supply the
+	 *                {@link Flow} instance
+	 * @return a new {@link FlowExplorer}
+	 */
+	public static FlowExplorer of(MockFlowBuilder builder) {
+		return new FlowExplorer(builder.buildFlow());
+	}
+
+	private final Flow flow;
+	private final FlowExecutionImplFactory executionFactory = MockFlowTester.createExecutionFactory();
+
+	private int maxDepth = 20;
+	private Duration timeBudget = Duration.ofMinutes(1);
+	private int workers = Runtime.getRuntime().availableProcessors();
+	private Map<String, Object> input = Collections.emptyMap();
+
+	private FlowExplorer(Flow flow) {
+		Assert.notNull(flow, "Flow may not be null");
+		this.flow = flow;
+	}
+
+	/**
+	 * Sets the maximum number of events signaled after starting the flow.
+	 * Defaults to 20.
+	 *
+	 * @param maxDepth the maximum length of explored event sequences, greater
+	 *                 than 0
+	 * @return this
+	 */
+	public FlowExplorer withMaxDepth(int maxDepth) {
+		Assert.isTrue(maxDepth > 0, "Max depth must be positive");
+		this.maxDepth = maxDepth;
+		return this;
+	}
+
+	/**
+	 * Sets the time after which no further configurations are explored.
+	 * Defaults to one minute.
+	 *
+	 * @param timeBudget the maximum duration of the exploration
+	 * @return this
+	 */
+	public FlowExplorer withTimeBudget(Duration timeBudget) {
+		Assert.isTrue(timeBudget != null && !timeBudget.isNegative(), "Time budget must not be negative");
+		this.timeBudget = timeBudget;
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads exploring configurations. Defaults to the
+	 * number of available processors.
+	 *
+	 * @param workers the number of threads, greater than 0
+	 * @return this
+	 */
+	public FlowExplorer withWorkers(int workers) {
+		Assert.isTrue(workers > 0, "There must be at least one worker");
+		this.workers = workers;
+		return this;
+	}
+
+	/**
+	 * Sets the input the flow is started with. Defaults to no input.
+	 *
+	 * @param input the input arguments, not {@code null}
+	 * @return this
+	 */
+	public FlowExplorer withInput(Map<String, ?> input) {
+		Assert.notNull(input, "Input may not be null");
+		this.input = new HashMap<>(input);
+		return this;
+	}
+
+	/**
+	 * Explores the flow until all configurations within the maximum depth have
+	 * been explored, or the time budget is exhausted.
+	 *
+	 * @return the {@link ExplorationResult}
+	 * @throws IllegalStateException if interrupted while exploring
+	 */
+	public ExplorationResult explore() {
+		Exploration exploration = new Exploration(System.nanoTime() + timeBudget.toNanos());
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			List<Node> frontier = exploration.start();
+			while (!frontier.isEmpty() && !exploration.isOverBudget()) {
+				List<Future<List<Node>>> expansions = new ArrayList<>();
+				for (Node node : frontier) {
+					for (String eventId : node.eventIds) {
+						expansions.add(executor.submit(() -> exploration.signal(node, eventId)));
+					}
+				}
+				frontier = new ArrayList<>();
+				for (Future<List<Node>> expansion : expansions) {
+					frontier.addAll(expansion.get());
+				}
+			}
+			return exploration.toResult(frontier.isEmpty());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while exploring " + flow.getId(), e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Exploring " + flow.getId() + " failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * An explored configuration, reachable by signaling its events after start
+	 */
+	private static final class Node {
+		private final List<String> path;
+		private final Checkpoint checkpoint;
+		private final Set<String> eventIds;
+
+		Node(List<String> path, Checkpoint checkpoint, Set<String> eventIds) {
+			this.path = path;
+			this.checkpoint = checkpoint;
+			this.eventIds = eventIds;
+		}
+	}
+
+	/**
+	 * State of a single run of {@link #explore()}
+	 */
+	private final class Exploration {
+		private final long deadline;
+		private final Set<Long> configurations = ConcurrentHashMap.newKeySet();
+		private final FlowCoverage coverage = new FlowCoverage(flow);
+		private final Set<String> outcomes = ConcurrentHashMap.newKeySet();
+		private final ConcurrentLinkedQueue<FailingPath> failingPaths = new ConcurrentLinkedQueue<>();
+
+		Exploration(long deadline) {
+			this.deadline = deadline;
+		}
+
+		boolean isOverBudget() {
+			return System.nanoTime() - deadline >= 0;
+		}
+
+		List<Node> start() {
+			MockFlowTester tester = newTester();
+			List<String> path = Collections.emptyList();
+			try {
+				tester.startFlow(input);
+				return visit(tester, path);
+			} catch (RuntimeException | AssertionError e) {
+				failingPaths.add(new FailingPath(path, e));
+				return Collections.emptyList();
+			}
+		}
+
+		List<Node> signal(Node node, String eventId) {
+			if (isOverBudget()) {
+				return Collections.emptyList();
+			}
+			MockFlowTester tester = newTester();
+			List<String> path = new ArrayList<>(node.path);
+			path.add(eventId);
+			try {
+				reach(tester, node);
+				tester.setEventId(eventId);
+				tester.resumeFlow();
+				return path.size() < maxDepth ? visit(tester, path) : Collections.emptyList();
+			} catch (RuntimeException | AssertionError e) {
+				failingPaths.add(new FailingPath(Collections.unmodifiableList(path), e));
+				return Collections.emptyList();
+			}
+		}
+
+		/**
+		 * Creates a tester recording into the coverage of this exploration, which
+		 * counts states and transitions as soon as they are entered or executed,
+		 * even if the request fails afterwards
+		 */
+		private MockFlowTester newTester() {
+			MockFlowTester tester = new MockFlowTester(flow, executionFactory);
+			tester.recordCoverage(coverage);
+			return tester;
+		}
+
+		private void reach(MockFlowTester tester, Node node) {
+			if (node.checkpoint != null) {
+				tester.restore(node.checkpoint);
+			} else {
+				tester.startFlow(input);
+				for (String eventId : node.path) {
+					tester.setEventId(eventId);
+					tester.resumeFlow();
+				}
+			}
+		}
+
+		private List<Node> visit(MockFlowTester tester, List<String> path) {
+			if (tester.executionHasEnded()) {
+				outcomes.add(tester.getFlowOutcome());
+				return Collections.emptyList();
+			}
+			if (!configurations.add(fingerprint(tester.getCurrentFlowExecution()))) {
+				return Collections.emptyList();
+			}
+			Checkpoint checkpoint;
+			try {
+				checkpoint = tester.checkpoint();
+			} catch (IllegalStateException e) {
+				checkpoint = null;
+			}
+			Node node = new Node(Collections.unmodifiableList(path), checkpoint,
+					eventIdsOf(tester.getCurrentFlowExecution().getActiveSession()));
+			return Collections.singletonList(node);
+		}
+
+		ExplorationResult toResult(boolean complete) {
+			Set<String> reached = new TreeSet<>();
+			Set<String> unreached = new TreeSet<>();
+			coverage.getStateHits().forEach((stateId, hits) -> {
+				if (hits > 0) {
+					reached.add(stateId);
+				} else {
+					unreached.add(stateId);
+				}
+			});
+			Map<String, Long> transitionHits = coverage.getTransitionHits();
+			Set<String> executed = new TreeSet<>();
+			Set<String> dead = new TreeSet<>();
+			for (String stateId : flow.getStateIds()) {
+				StateDefinition state = flow.getState(stateId);
+				if (state instanceof TransitionableState) {
+					for (TransitionDefinition transition : ((TransitionableState) state).getTransitions()) {
+						Long hits = transitionHits.get(FlowCoverage.nameOf(stateId, transition));
+						if (hits != null && hits > 0) {
+							executed.add(keyOf(stateId, transition));
+						} else {
+							dead.add(keyOf(stateId, transition));
+						}
+					}
+				}
+			}
+			dead.removeAll(executed);
+			return new ExplorationResult(Collections.unmodifiableSet(reached), Collections.unmodifiableSet(unreached),
+					Collections.unmodifiableSet(dead), Collections.unmodifiableSet(new TreeSet<>(outcomes)),
+					Collections.unmodifiableList(new ArrayList<>(failingPaths)), configurations.size(),
+					complete && !isOverBudget());
+		}
+	}
+
+	private static Set<String> eventIdsOf(FlowSession session) {
+		Set<String> eventIds = new LinkedHashSet<>();
+		StateDefinition state = session.getState();
+		if (state instanceof TransitionableState) {
+			for (TransitionDefinition transition : ((TransitionableState) state).getTransitions()) {
+				eventIds.add(transition.getId());
+			}
+		}
+		for (TransitionDefinition transition : ((Flow) session.getDefinition()).getGlobalTransitionSet()
+				.toArray()) {
+			eventIds.add(transition.getId());
+		}
+		return eventIds;
+	}
+
+	/**
+	 * Names a transition by its source and target state, so that transitions
+	 * between the same states are reported once
+	 */
+	private static String keyOf(String stateId, TransitionDefinition transition) {
+		String target = transition.getTargetStateId();
+		return stateId + "->" + (target != null ? target : stateId);
+	}
+
+	private static long fingerprint(FlowExecution execution) {
+		long hash = 17;
+		for (FlowSession session = execution.getActiveSession(); session != null; session = session.getParent()) {
+			hash = mix(hash, session.getDefinition().getId().hashCode());
+			hash = mix(hash, session.getState() != null ? session.getState().getId().hashCode() : 0);
+			hash = mix(hash, fingerprint(session.getScope()));
+		}
+		return mix(hash, fingerprint(execution.getConversationScope()));
+	}
+
+	private static long fingerprint(AttributeMap<?> scope) {
+		long hash = 31;
+		for (Map.Entry<String, ?> attribute : new TreeMap<>(scope.asMap()).entrySet()) {
+			hash = mix(hash, attribute.getKey().hashCode());
+			hash = mix(hash, fingerprint(attribute.getValue()));
+		}
+		return hash;
+	}
+
+	private static int fingerprint(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		try {
+			if (value.getClass().getMethod("hashCode").getDeclaringClass() != Object.class) {
+				return value.hashCode();
+			}
+		} catch (NoSuchMethodException e) {
+			// every class has a public hashCode method
+		}
+		return value.getClass().getName().hashCode();
+	}
+
+	private static long mix(long hash, long value) {
+		long mixed = (hash ^ value) * 0x9E3779B97F4A7C15L;
+		return mixed ^ (mixed >>> 29);
+	}
+}
@@ -0,0 +1,279 @@
+package de.lhug.webflowtester.executor;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import de.lhug.webflowtester.builder.ExternalizedMockFlowBuilder;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import lombok.extern.java.Log;
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.webflow.config.FlowDefinitionResource;
+import org.springframework.webflow.engine.Flow;
+
+/**
+ * Rebuilds a {@link Flow} whenever one of its definition files changes, and
+ * hands the rebuilt flow to all registered {@link MockFlowTester}s.
+ * <p>
+ * This is intended for long-running test sessions, such as a continuous test
+ * runner, in which flow definitions are edited while the JVM is running. The
+ * directories of all file resources of the builder, the main flow as well as
+ * its parent flows, are watched by a {@link WatchService}. On a change, the
+ * flow is {@link ExternalizedMockFlowBuilder#rebuildFlow() rebuilt}, which
+ * parses only the changed models and the models inheriting from them again.
+ * Registered testers switch to the rebuilt flow with their next started
+ * execution, see {@link MockFlowTester#replaceFlow(Flow)}.
+ * </p>
+ * <p>
+ * Changes are either picked up by calling {@link #reloadIfChanged(Duration)},
+ * or by a background thread after calling {@link #start()}. Should the changed
+ * definition be invalid, the previous flow is kept.
+ * </p>
+ * <p>
+ * Instances are thread safe and must be {@link #close() closed} to release the
+ * watch service.
+ * </p>
+ */
+@Log
+public final class FlowReloader implements AutoCloseable {
+
+	private final ExternalizedMockFlowBuilder builder;
+	private final WatchService watchService;
+	private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+	private final Set<Path> watchedFiles = new HashSet<>();
+	private final List<MockFlowTester> testers = new CopyOnWriteArrayList<>();
+	private final AtomicInteger reloadCount = new AtomicInteger();
+
+	private volatile Flow flow;
+	private volatile boolean closed;
+	private Thread watcher;
+
+	/**
+	 * Builds the flow of the given builder and starts watching its file
+	 * resources.
+	 *
+	 * @param builder the {@link ExternalizedMockFlowBuilder} to build and rebuild
+	 *                the flow with
+	 * @return a new {@link FlowReloader}, which has to be closed
+	 * @throws IllegalStateException if none of the resources of the builder is a
+	 *                               file
+	 * @throws UncheckedIOException  if the files can not be watched
+	 */
+	public static FlowReloader watch(ExternalizedMockFlowBuilder builder) {
+		Assert.notNull(builder, "Builder may not be null");
+		try {
+			return new FlowReloader(builder, FileSystems.getDefault().newWatchService());
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not create watch service", e);
+		}
+	}
+
+	private FlowReloader(ExternalizedMockFlowBuilder builder, WatchService watchService) throws IOException {
+		this.builder = builder;
+		this.watchService = watchService;
+		try {
+			this.flow = builder.buildFlow();
+			registerFiles(builder.getResources());
+		} catch (IOException | RuntimeException e) {
+			watchService.close();
+			throw e;
+		}
+	}
+
+	private void registerFiles(List<FlowDefinitionResource> resources) throws IOException {
+		Map<Path, WatchKey> keys = new HashMap<>();
+		for (FlowDefinitionResource resource : resources) {
+			Resource path = resource.getPath();
+			if (path.isFile()) {
+				Path file = path.getFile().toPath().toAbsolutePath().normalize();
+				Path directory = file.getParent();
+				if (!keys.containsKey(directory)) {
+					WatchKey key = directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+					keys.put(directory, key);
+					watchedDirectories.put(key, directory);
+				}
+				watchedFiles.add(file);
+			}
+		}
+		Assert.state(!watchedFiles.isEmpty(), "None of the flow resources " + resources + " is a file");
+	}
+
+	/**
+	 * Creates a new {@link MockFlowTester} for the current flow, which receives
+	 * all rebuilt flows.
+	 *
+	 * @return a new, registered {@link MockFlowTester}
+	 */
+	public MockFlowTester newTester() {
+		MockFlowTester tester = MockFlowTester.from(this::getFlow);
+		register(tester);
+		return tester;
+	}
+
+	/**
+	 * Registers an existing {@link MockFlowTester} to receive all rebuilt flows.
+	 *
+	 * @param tester the {@link MockFlowTester} to register, not {@code null}
+	 */
+	public void register(MockFlowTester tester) {
+		Assert.notNull(tester, "Tester may not be null");
+		testers.add(tester);
+	}
+
+	/**
+	 * Removes a {@link MockFlowTester} registered before; it keeps its current
+	 * flow.
+	 *
+	 * @param tester the {@link MockFlowTester} to remove
+	 */
+	public void unregister(MockFlowTester tester) {
+		testers.remove(tester);
+	}
+
+	/**
+	 * @return the most recently built {@link Flow}
+	 */
+	public Flow getFlow() {
+		return flow;
+	}
+
+	/**
+	 * @return the number of times the flow has been rebuilt
+	 */
+	public int getReloadCount() {
+		return reloadCount.get();
+	}
+
+	/**
+	 * @return the absolute paths of all watched flow definition files
+	 */
+	public Set<Path> getWatchedFiles() {
+		return Collections.unmodifiableSet(watchedFiles);
+	}
+
+	/**
+	 * Waits for changes of the watched files for at most the given time, and
+	 * rebuilds the flow if any of them changed.
+	 * <p>
+	 * All changes reported at that time are collected, so that saving multiple
+	 * files at once results in a single rebuild.
+	 * </p>
+	 *
+	 * @param timeout the maximum time to wait for a change,
+	 *                {@link Duration#ZERO} to only check for changes already
+	 *                reported
+	 * @return {@code true}, if the flow has been rebuilt
+	 * @throws IllegalStateException if interrupted while waiting, or if this has
+	 *                               been closed
+	 * @throws RuntimeException      thrown while rebuilding, e.G. if a changed
+	 *                               definition is invalid; the previous flow is
+	 *                               kept in this case
+	 */
+	public boolean reloadIfChanged(Duration timeout) {
+		try {
+			WatchKey key = timeout.isZero()
+					? watchService.poll()
+					: watchService.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+			boolean changed = false;
+			while (key != null) {
+				changed |= isRelevant(key);
+				key = watchService.poll();
+			}
+			if (changed) {
+				reload();
+			}
+			return changed;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for changes", e);
+		} catch (ClosedWatchServiceException e) {
+			throw new IllegalStateException("Reloader has been closed", e);
+		}
+	}
+
+	private boolean isRelevant(WatchKey key) {
+		Path directory = watchedDirectories.get(key);
+		boolean relevant = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				relevant = true;
+			} else if (directory != null) {
+				relevant |= watchedFiles.contains(directory.resolve((Path) event.context()));
+			}
+		}
+		key.reset();
+		return relevant;
+	}
+
+	private synchronized void reload() {
+		Flow rebuilt = builder.rebuildFlow();
+		flow = rebuilt;
+		reloadCount.incrementAndGet();
+		testers.forEach(tester -> tester.replaceFlow(rebuilt));
+	}
+
+	/**
+	 * Starts a daemon thread picking up changes as soon as they are reported.
+	 * Failures while rebuilding are logged, and the previous flow is kept.
+	 * Calling this more than once has no effect.
+	 */
+	public synchronized void start() {
+		if (watcher == null) {
+			watcher = new Thread(this::watchContinuously, "flow-reloader-" + flow.getId());
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+	}
+
+	private void watchContinuously() {
+		while (!closed) {
+			try {
+				reloadIfChanged(Duration.ofDays(1));
+			} catch (RuntimeException e) {
+				if (!closed) {
+					log.log(Level.WARNING, "Could not reload flow " + flow.getId() + ", keeping the previous flow", e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops watching the files, and stops the background thread if started.
+	 * Registered testers keep their current flow.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		Thread current;
+		synchronized (this) {
+			current = watcher;
+		}
+		if (current != null) {
+			current.interrupt();
+		}
+		try {
+			watchService.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not close watch service", e);
+		}
+	}
+}
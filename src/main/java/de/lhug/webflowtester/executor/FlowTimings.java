@@ -0,0 +1,135 @@
+package de.lhug.webflowtester.executor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import lombok.Getter;
+
+/**
+ * Wall-clock and CPU time spent in the elements of a flow, recorded by
+ * {@link MockFlowTester} while executing it.
+ * <p>
+ * Elements are identified by the id of their flow and their own id, e.G.
+ * {@code "myFlow#viewState"} for states and
+ * {@code "myFlow#viewState->nextState"} for transitions.
+ * </p>
+ *
+ * @see MockFlowTester#recordTimings(FlowTimings)
+ */
+public final class FlowTimings {
+
+	/**
+	 * The kinds of timed elements
+	 */
+	public enum Kind {
+		/**
+		 * From entering a state until it is left or the request ends, including
+		 * actions and rendering
+		 */
+		STATE,
+		/**
+		 * The actions executed by a state, meaning entry actions and the actions of
+		 * action states, up to rendering or leaving the state
+		 */
+		ACTION,
+		/**
+		 * Rendering of a view state
+		 */
+		RENDER,
+		/**
+		 * Executing a transition, including its actions, until the next state is
+		 * entered
+		 */
+		TRANSITION
+	}
+
+	/**
+	 * The timings of a single element
+	 */
+	@Getter
+	public static final class ElementTiming {
+		private final LatencyHistogram wallTime = new LatencyHistogram();
+		private final LatencyHistogram cpuTime = new LatencyHistogram();
+	}
+
+	private final Map<Kind, ConcurrentMap<String, ElementTiming>> timings = new ConcurrentHashMap<>();
+
+	void record(Kind kind, String element, long wallNanos, long cpuNanos) {
+		ElementTiming timing = timings.computeIfAbsent(kind, k -> new ConcurrentHashMap<>())
+				.computeIfAbsent(element, e -> new ElementTiming());
+		timing.wallTime.record(wallNanos);
+		if (cpuNanos >= 0) {
+			timing.cpuTime.record(cpuNanos);
+		}
+	}
+
+	/**
+	 * Returns the timings of all elements of the given kind.
+	 *
+	 * @param kind the kind of elements
+	 * @return an unmodifiable map of element ids to their timings, sorted by id
+	 */
+	public Map<String, ElementTiming> get(Kind kind) {
+		return Collections.unmodifiableMap(new TreeMap<>(timings.getOrDefault(kind, new ConcurrentHashMap<>())));
+	}
+
+	/**
+	 * Returns the timings of a single element.
+	 *
+	 * @param kind    the kind of the element
+	 * @param element the id of the element
+	 * @return the timings, or {@code null} if the element was never timed
+	 */
+	public ElementTiming get(Kind kind, String element) {
+		Map<String, ElementTiming> elements = timings.get(kind);
+		return elements == null ? null : elements.get(element);
+	}
+
+	/**
+	 * Discards all recorded timings.
+	 */
+	public void clear() {
+		timings.clear();
+	}
+
+	/**
+	 * Writes a table of all recorded timings, one line per element.
+	 * <p>
+	 * All times are given in microseconds. CPU times are only recorded if the JVM
+	 * supports measuring thread CPU time.
+	 *
+	 * @param out the target to write the report to
+	 * @throws IOException if writing fails
+	 */
+	public void writeReport(Appendable out) throws IOException {
+		out.append(String.format("%-10s %-60s %8s %10s %10s %10s %10s %10s%n", "kind", "element", "count",
+				"mean", "p50", "p99", "max", "cpu mean"));
+		for (Kind kind : Kind.values()) {
+			for (Map.Entry<String, ElementTiming> entry : get(kind).entrySet()) {
+				LatencyHistogram wall = entry.getValue().getWallTime();
+				LatencyHistogram cpu = entry.getValue().getCpuTime();
+				out.append(String.format("%-10s %-60s %8d %10.1f %10.1f %10.1f %10.1f %10.1f%n", kind,
+						entry.getKey(), wall.getCount(), wall.getMeanNanos() / 1000,
+						wall.getPercentileNanos(50) / 1000d, wall.getPercentileNanos(99) / 1000d,
+						wall.getMaxNanos() / 1000d, cpu.getMeanNanos() / 1000));
+			}
+		}
+	}
+
+	/**
+	 * @return the report written by {@link #writeReport(Appendable)}
+	 */
+	public String toReport() {
+		StringBuilder report = new StringBuilder();
+		try {
+			writeReport(report);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return report.toString();
+	}
+}
@@ -0,0 +1,104 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.util.Assert;
+
+/**
+ * A single recorded user journey, read from one line of a trace.
+ * <p>
+ * A journey is a JSON object of the form
+ * </p>
+ *
+ * <pre>
+ * {"id": "4711", "input": {"customer": "42"}, "state": "start",
+ *  "steps": [{"event": "page", "parameters": {"name": "Jane"}, "state": "step"}],
+ *  "outcome": "bye"}
+ * </pre>
+ * <p>
+ * Only the events of the steps are required. The input, the parameters, the
+ * states entered and the outcome are optional, and missing states or outcomes
+ * are not verified when replaying.
+ * </p>
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+final class Journey {
+
+	private final String id;
+	private final long line;
+	private final Map<String, Object> input;
+	private final String state;
+	private final List<Step> steps;
+	private final String outcome;
+
+	/**
+	 * Parses the given line of a trace.
+	 *
+	 * @param json the JSON object describing the journey
+	 * @param line the number of the line, used as id if the journey has none
+	 * @return the parsed journey
+	 * @throws IllegalArgumentException if the line is not a valid journey
+	 */
+	static Journey parse(String json, long line) {
+		Map<String, Object> journey = asObject(JsonReader.read(json), "Journey");
+		List<Step> steps = new ArrayList<>();
+		Object recordedSteps = journey.getOrDefault("steps", Collections.emptyList());
+		Assert.isTrue(recordedSteps instanceof List, "Steps must be an array");
+		for (Object step : (List<?>) recordedSteps) {
+			steps.add(Step.parse(asObject(step, "Step")));
+		}
+		String id = journey.containsKey("id") ? Objects.toString(journey.get("id")) : String.valueOf(line);
+		return new Journey(id, line, asObject(journey.getOrDefault("input", Collections.emptyMap()), "Input"),
+				asString(journey.get("state"), "State"), Collections.unmodifiableList(steps),
+				asString(journey.get("outcome"), "Outcome"));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> asObject(Object value, String name) {
+		Assert.isTrue(value instanceof Map, name + " must be an object");
+		return (Map<String, Object>) value;
+	}
+
+	private static String asString(Object value, String name) {
+		Assert.isTrue(value == null || value instanceof String, name + " must be a string");
+		return (String) value;
+	}
+
+	/**
+	 * A single event signaled during a journey
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	static final class Step {
+
+		private final String event;
+		private final Map<String, Object> parameters;
+		private final String state;
+
+		private static Step parse(Map<String, Object> step) {
+			String event = asString(step.get("event"), "Event");
+			Assert.hasText(event, "Every step must have an event");
+			Map<String, Object> parameters = new LinkedHashMap<>();
+			asObject(step.getOrDefault("parameters", Collections.emptyMap()), "Parameters")
+					.forEach((name, value) -> parameters.put(name, toParameter(value)));
+			return new Step(event, Collections.unmodifiableMap(parameters), asString(step.get("state"), "State"));
+		}
+
+		private static Object toParameter(Object value) {
+			if (value instanceof List) {
+				return ((List<?>) value).stream()
+						.map(Objects::toString)
+						.toArray(String[]::new);
+			}
+			return Objects.toString(value);
+		}
+	}
+}
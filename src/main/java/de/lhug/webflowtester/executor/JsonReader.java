@@ -0,0 +1,205 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader of single JSON documents, as found on each line of a JSON
+ * lines file.
+ * <p>
+ * Objects are read as {@link LinkedHashMap}s, arrays as {@link ArrayList}s,
+ * numbers as {@link Long} or {@link Double}, and {@code true}, {@code false}
+ * and {@code null} as their Java counterparts. Malformed documents result in
+ * an {@link IllegalArgumentException}.
+ * </p>
+ */
+final class JsonReader {
+
+	private final String json;
+	private int position;
+
+	private JsonReader(String json) {
+		this.json = json;
+	}
+
+	/**
+	 * Reads the given JSON document.
+	 *
+	 * @param json the JSON document
+	 * @return the read value
+	 * @throws IllegalArgumentException if the document is malformed
+	 */
+	static Object read(String json) {
+		JsonReader reader = new JsonReader(json);
+		Object value = reader.readValue();
+		reader.skipWhitespace();
+		if (reader.position != json.length()) {
+			throw reader.error("Unexpected trailing content");
+		}
+		return value;
+	}
+
+	private Object readValue() {
+		skipWhitespace();
+		if (position >= json.length()) {
+			throw error("Unexpected end of document");
+		}
+		char current = json.charAt(position);
+		switch (current) {
+		case '{':
+			return readObject();
+		case '[':
+			return readArray();
+		case '"':
+			return readString();
+		case 't':
+			return readLiteral("true", Boolean.TRUE);
+		case 'f':
+			return readLiteral("false", Boolean.FALSE);
+		case 'n':
+			return readLiteral("null", null);
+		default:
+			return readNumber();
+		}
+	}
+
+	private Map<String, Object> readObject() {
+		Map<String, Object> result = new LinkedHashMap<>();
+		position++;
+		skipWhitespace();
+		if (consume('}')) {
+			return result;
+		}
+		do {
+			skipWhitespace();
+			if (position >= json.length() || json.charAt(position) != '"') {
+				throw error("Expected a property name");
+			}
+			String name = readString();
+			skipWhitespace();
+			expect(':');
+			result.put(name, readValue());
+			skipWhitespace();
+		} while (consume(','));
+		expect('}');
+		return result;
+	}
+
+	private List<Object> readArray() {
+		List<Object> result = new ArrayList<>();
+		position++;
+		skipWhitespace();
+		if (consume(']')) {
+			return result;
+		}
+		do {
+			result.add(readValue());
+			skipWhitespace();
+		} while (consume(','));
+		expect(']');
+		return result;
+	}
+
+	private String readString() {
+		StringBuilder result = new StringBuilder();
+		position++;
+		while (position < json.length()) {
+			char current = json.charAt(position++);
+			if (current == '"') {
+				return result.toString();
+			} else if (current == '\\') {
+				result.append(readEscaped());
+			} else {
+				result.append(current);
+			}
+		}
+		throw error("Unterminated string");
+	}
+
+	private char readEscaped() {
+		if (position >= json.length()) {
+			throw error("Unterminated escape sequence");
+		}
+		char escaped = json.charAt(position++);
+		switch (escaped) {
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'u':
+			if (position + 4 > json.length()) {
+				throw error("Unterminated unicode escape");
+			}
+			try {
+				char result = (char) Integer.parseInt(json.substring(position, position + 4), 16);
+				position += 4;
+				return result;
+			} catch (NumberFormatException e) {
+				throw error("Malformed unicode escape");
+			}
+		case '"':
+		case '\\':
+		case '/':
+			return escaped;
+		default:
+			throw error("Unknown escape sequence \\" + escaped);
+		}
+	}
+
+	private Object readLiteral(String literal, Object value) {
+		if (!json.startsWith(literal, position)) {
+			throw error("Unexpected token");
+		}
+		position += literal.length();
+		return value;
+	}
+
+	private Number readNumber() {
+		int start = position;
+		while (position < json.length() && "+-0123456789.eE".indexOf(json.charAt(position)) >= 0) {
+			position++;
+		}
+		String number = json.substring(start, position);
+		try {
+			if (number.indexOf('.') >= 0 || number.indexOf('e') >= 0 || number.indexOf('E') >= 0) {
+				return Double.valueOf(number);
+			}
+			return Long.valueOf(number);
+		} catch (NumberFormatException e) {
+			position = start;
+			throw error("Unexpected token");
+		}
+	}
+
+	private void skipWhitespace() {
+		while (position < json.length() && Character.isWhitespace(json.charAt(position))) {
+			position++;
+		}
+	}
+
+	private boolean consume(char expected) {
+		if (position < json.length() && json.charAt(position) == expected) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	private void expect(char expected) {
+		if (!consume(expected)) {
+			throw error("Expected '" + expected + "'");
+		}
+	}
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + position);
+	}
+}
@@ -0,0 +1,166 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import org.springframework.util.Assert;
+
+/**
+ * Thread safe histogram of durations in nanoseconds.
+ * <p>
+ * Values are counted in logarithmic buckets, eight per power of two, so every
+ * reported percentile is within 12.5% of the recorded value. Recording does
+ * not allocate and never blocks, allowing a single instance to be shared by
+ * many threads.
+ * </p>
+ */
+public final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder total = new LongAdder();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a single duration.
+	 *
+	 * @param nanos the duration in nanoseconds, negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		buckets.incrementAndGet(indexOf(value));
+		count.increment();
+		total.add(value);
+		min.accumulateAndGet(value, Math::min);
+		max.accumulateAndGet(value, Math::max);
+	}
+
+	/**
+	 * Adds all values recorded by another histogram to this.
+	 *
+	 * @param other the histogram to add
+	 */
+	public void add(LatencyHistogram other) {
+		if (other.getCount() == 0) {
+			return;
+		}
+		for (int i = 0; i < BUCKETS; i++) {
+			long bucket = other.buckets.get(i);
+			if (bucket > 0) {
+				buckets.addAndGet(i, bucket);
+			}
+		}
+		count.add(other.count.sum());
+		total.add(other.total.sum());
+		min.accumulateAndGet(other.min.get(), Math::min);
+		max.accumulateAndGet(other.max.get(), Math::max);
+	}
+
+	private static int indexOf(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long upperBoundOf(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		return ((SUB_BUCKETS + subBucket + 1) << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	/**
+	 * @return the number of recorded values
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * @return the sum of all recorded values in nanoseconds
+	 */
+	public long getTotalNanos() {
+		return total.sum();
+	}
+
+	/**
+	 * @return the smallest recorded value, or 0 if nothing was recorded
+	 */
+	public long getMinNanos() {
+		return getCount() == 0 ? 0 : min.get();
+	}
+
+	/**
+	 * @return the largest recorded value, or 0 if nothing was recorded
+	 */
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	/**
+	 * @return the arithmetic mean of all recorded values, or 0 if nothing was
+	 *         recorded
+	 */
+	public double getMeanNanos() {
+		long currentCount = getCount();
+		return currentCount == 0 ? 0 : (double) getTotalNanos() / currentCount;
+	}
+
+	/**
+	 * Returns the value below which the given percentage of recorded values fall.
+	 *
+	 * @param percentile the percentile, between 0 and 100
+	 * @return the percentile in nanoseconds, or 0 if nothing was recorded
+	 */
+	public long getPercentileNanos(double percentile) {
+		Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+		long currentCount = getCount();
+		if (currentCount == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(currentCount * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.max(getMinNanos(), Math.min(upperBoundOf(i), getMaxNanos()));
+			}
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * Discards all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			buckets.set(i, 0);
+		}
+		count.reset();
+		total.reset();
+		min.set(Long.MAX_VALUE);
+		max.set(0);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count=%d, mean=%.1fus, p50=%dus, p99=%dus, max=%dus", getCount(),
+				getMeanNanos() / 1000, toMicros(getPercentileNanos(50)), toMicros(getPercentileNanos(99)),
+				toMicros(getMaxNanos()));
+	}
+
+	private static long toMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos);
+	}
+}
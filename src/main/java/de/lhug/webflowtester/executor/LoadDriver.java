@@ -0,0 +1,209 @@
+package de.lhug.webflowtester.executor;
+
+import de.lhug.webflowtester.builder.MockFlowBuilder;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import lombok.extern.java.Log;
+import org.springframework.util.Assert;
+import org.springframework.webflow.engine.Flow;
+
+/**
+ * Generates load on a single, shared {@link Flow} by running a scripted
+ * journey on many threads, each with its own {@link MockFlowTester} and thus
+ * its own execution.
+ * <p>
+ * Every thread runs the journey repeatedly, either a fixed number of times or
+ * until a fixed duration has passed, and the time taken by every run is
+ * recorded. Runs throwing an exception or failing an assertion are counted as
+ * errors, and the thread continues with the next run. As the {@link Flow} and
+ * all beans registered with its context are shared, contention in these beans
+ * shows up as reduced throughput and increased latency.
+ * </p>
+ * <p>
+ * When running on a JVM supporting virtual threads, every journey thread is a
+ * virtual thread, so thousands of concurrent users can be simulated cheaply.
+ * Otherwise, or if {@link #withVirtualThreads(boolean) disabled}, one platform
+ * thread is started per journey thread.
+ * </p>
+ *
+ * <pre>
+ * LoadResult result = LoadDriver.from(builder)
+ * 		.withThreads(1000)
+ * 		.withDuration(Duration.ofSeconds(30))
+ * 		.run(tester -&gt; {
+ * 			tester.startFlow();
+ * 			tester.setEventId("continue");
+ * 			tester.resumeFlow();
+ * 		});
+ *
+ * System.out.println(result);
+ * </pre>
+ */
+@Log
+public final class LoadDriver {
+
+	/**
+	 * Builds a load driver using a {@link MockFlowBuilder}.
+	 * <p>
+	 * The {@link MockFlowBuilder#buildFlow()} method is called exactly once, and
+	 * the resulting {@link Flow} is shared by all threads.
+	 *
+	 * @param builder an implementation of {@link MockFlowBuilder} to supply the
+	 *                {@link Flow} instance
+	 * @return a new {@link LoadDriver}
+	 */
+	public static LoadDriver from(MockFlowBuilder builder) {
+		return new LoadDriver(MockFlowTesterPool.from(builder, 1));
+	}
+
+	private final MockFlowTesterPool pool;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private int iterations = 100;
+	private Duration duration;
+	private boolean virtualThreads = true;
+
+	private LoadDriver(MockFlowTesterPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Sets the number of threads running the journey concurrently, by default
+	 * the number of available processors.
+	 *
+	 * @param threads the number of threads, greater than 0
+	 * @return this driver
+	 */
+	public LoadDriver withThreads(int threads) {
+		Assert.isTrue(threads > 0, "There must be at least one thread");
+		this.threads = threads;
+		return this;
+	}
+
+	/**
+	 * Lets every thread run the journey the given number of times, which is the
+	 * default with 100 iterations.
+	 *
+	 * @param iterations the number of runs per thread, greater than 0
+	 * @return this driver
+	 */
+	public LoadDriver withIterations(int iterations) {
+		Assert.isTrue(iterations > 0, "There must be at least one iteration");
+		this.iterations = iterations;
+		this.duration = null;
+		return this;
+	}
+
+	/**
+	 * Lets every thread run the journey until the given duration has passed,
+	 * instead of a fixed number of times. A run started before the end is
+	 * always completed.
+	 *
+	 * @param duration how long to generate load, greater than zero
+	 * @return this driver
+	 */
+	public LoadDriver withDuration(Duration duration) {
+		Assert.isTrue(duration != null && !duration.isNegative() && !duration.isZero(),
+				"Duration must be greater than zero");
+		this.duration = duration;
+		return this;
+	}
+
+	/**
+	 * Enables or disables running the journeys on virtual threads, if the JVM
+	 * supports them. Enabled by default.
+	 *
+	 * @param virtualThreads {@code false} to always use platform threads
+	 * @return this driver
+	 */
+	public LoadDriver withVirtualThreads(boolean virtualThreads) {
+		this.virtualThreads = virtualThreads;
+		return this;
+	}
+
+	/**
+	 * Runs the journey on all threads and waits until they are done.
+	 *
+	 * @param journey the journey to run, receiving the tester of its thread
+	 * @return the throughput, latencies and errors of all runs
+	 * @throws IllegalStateException if the calling thread is interrupted while
+	 *                               waiting for the threads
+	 */
+	public LoadResult run(Consumer<MockFlowTester> journey) {
+		Assert.notNull(journey, "Journey may not be null");
+		LoadResult.Recorder recorder = new LoadResult.Recorder();
+		ExecutorService executor = newVirtualThreadExecutor();
+		boolean virtual = executor != null;
+		if (!virtual) {
+			executor = Executors.newFixedThreadPool(threads);
+		}
+		try {
+			CountDownLatch startSignal = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>(threads);
+			for (int i = 0; i < threads; i++) {
+				futures.add(executor.submit(() -> runThread(journey, recorder, startSignal)));
+			}
+			long start = System.nanoTime();
+			startSignal.countDown();
+			await(futures);
+			return recorder.toResult(threads, virtual, System.nanoTime() - start);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private ExecutorService newVirtualThreadExecutor() {
+		if (!virtualThreads) {
+			return null;
+		}
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (NoSuchMethodException e) {
+			log.fine("Virtual threads are not supported, using platform threads");
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			log.log(Level.FINE, "Virtual threads could not be created, using platform threads", e);
+		}
+		return null;
+	}
+
+	private Void runThread(Consumer<MockFlowTester> journey, LoadResult.Recorder recorder,
+			CountDownLatch startSignal) throws InterruptedException {
+		MockFlowTester tester = pool.newTester();
+		startSignal.await();
+		long deadline = duration != null ? System.nanoTime() + duration.toNanos() : 0;
+		for (int i = 0; duration != null ? System.nanoTime() - deadline < 0 : i < iterations; i++) {
+			long start = System.nanoTime();
+			try {
+				journey.accept(tester);
+				recorder.success(System.nanoTime() - start);
+			} catch (RuntimeException | AssertionError e) {
+				recorder.error(System.nanoTime() - start, e);
+			}
+		}
+		return null;
+	}
+
+	private static void await(List<Future<?>> futures) {
+		try {
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for load threads", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Load thread failed unexpectedly: " + e.getCause().getMessage(),
+					e.getCause());
+		}
+	}
+}
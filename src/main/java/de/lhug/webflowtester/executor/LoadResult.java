@@ -0,0 +1,94 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Outcome of a {@link LoadDriver#run(java.util.function.Consumer) load run}.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class LoadResult {
+
+	/**
+	 * The number of threads which ran the journey
+	 */
+	private final int threads;
+
+	/**
+	 * {@code true}, if the journeys ran on virtual threads
+	 */
+	private final boolean virtualThreads;
+
+	/**
+	 * The number of completed runs, including failed ones
+	 */
+	private final long runCount;
+
+	/**
+	 * The number of runs which threw an exception or failed an assertion
+	 */
+	private final long errorCount;
+
+	/**
+	 * The number of failed runs, by the class name of the thrown exception or
+	 * error, sorted by name
+	 */
+	private final Map<String, Long> errorsByType;
+
+	/**
+	 * The time taken by all runs, including failed ones
+	 */
+	private final LatencyHistogram latencies;
+
+	/**
+	 * The time from starting all threads until the last one finished, in
+	 * nanoseconds
+	 */
+	private final long elapsedNanos;
+
+	/**
+	 * @return the number of completed runs per second
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : runCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("threads=%d%s, runs=%d, errors=%d, throughput=%.1f/s, %s", threads,
+				virtualThreads ? " (virtual)" : "", runCount, errorCount, getThroughput(), latencies);
+	}
+
+	static final class Recorder {
+
+		private final LatencyHistogram latencies = new LatencyHistogram();
+		private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+		void success(long nanos) {
+			latencies.record(nanos);
+		}
+
+		void error(long nanos, Throwable error) {
+			latencies.record(nanos);
+			errors.computeIfAbsent(error.getClass().getName(), type -> new LongAdder()).increment();
+		}
+
+		LoadResult toResult(int threads, boolean virtualThreads, long elapsedNanos) {
+			Map<String, Long> errorsByType = new TreeMap<>();
+			errors.forEach((type, count) -> errorsByType.put(type, count.sum()));
+			long errorCount = errorsByType.values().stream()
+					.mapToLong(Long::longValue)
+					.sum();
+			return new LoadResult(threads, virtualThreads, latencies.getCount(), errorCount,
+					Collections.unmodifiableMap(errorsByType), latencies, elapsedNanos);
+		}
+	}
+}
@@ -3,30 +3,37 @@ package de.lhug.webflowtester.executor;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import de.lhug.webflowtester.builder.ExternalizedMockFlowBuilder;
 import de.lhug.webflowtester.builder.MockFlowBuilder;
+import de.lhug.webflowtester.executor.ReusableExternalContext.ReusableParameterMap;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import org.springframework.binding.message.Message;
 import org.springframework.util.Assert;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.webflow.context.ExternalContext;
 import org.springframework.webflow.core.collection.AttributeMap;
 import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.core.collection.ParameterMap;
+import org.springframework.webflow.definition.FlowDefinition;
 import org.springframework.webflow.definition.StateDefinition;
+import org.springframework.webflow.definition.registry.FlowDefinitionLocator;
+import org.springframework.webflow.definition.registry.NoSuchFlowDefinitionException;
 import org.springframework.webflow.engine.Flow;
 import org.springframework.webflow.engine.impl.FlowExecutionImpl;
 import org.springframework.webflow.engine.impl.FlowExecutionImplFactory;
 import org.springframework.webflow.execution.FlowExecution;
 import org.springframework.webflow.execution.FlowExecutionListener;
+import org.springframework.webflow.execution.FlowSession;
 import org.springframework.webflow.execution.RequestContext;
 import org.springframework.webflow.execution.View;
-import org.springframework.webflow.execution.factory.StaticFlowExecutionListenerLoader;
 import org.springframework.webflow.test.MockExternalContext;
 import org.springframework.webflow.test.MockParameterMap;
 
@@ -36,8 +43,9 @@ import org.springframework.webflow.test.MockParameterMap;
  * This class can be used for easy testing of Spring WebFlows. It exposes
  * necessary control mechanisms as well as a suite of convenience-methods for
  * common assertions. The passed {@link MockFlowBuilder} supplies the
- * {@link Flow} to be tested, which in turn will be built once and then kept,
- * meaning that this class does <b>not</b> support Flows stored in
+ * {@link Flow} to be tested, which in turn will be built once and then kept
+ * until it is {@link #replaceFlow(Flow) replaced}, meaning that this class does
+ * <b>not</b> support Flows stored in
  * {@link org.springframework.webflow.definition.registry.FlowDefinitionHolder}s.
  * A typical test case, given a simple flow like so
  *
@@ -64,9 +72,11 @@ import org.springframework.webflow.test.MockParameterMap;
  * All assertions will throw {@link IllegalStateException} when invoked at the
  * wrong time, e.G. an outcome-assertion before the flow was started.
  */
-@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class MockFlowTester {
 
+	private static final String EVENT_ID_PARAMETER = "_eventId";
+	private static final ThreadBoundListenerLoader LISTENER_LOADER = new ThreadBoundListenerLoader();
+
 	/**
 	 * Builds an instance of this using a {@link MockFlowBuilder}.
 	 * <p>
@@ -83,14 +93,52 @@ public class MockFlowTester {
 		return new MockFlowTester(builder.buildFlow());
 	}
 
-	private final FlowExecutionImplFactory executionFactory = new FlowExecutionImplFactory();
-	private final Flow testFlow;
+	/**
+	 * Creates a {@link FlowExecutionImplFactory} which can be shared between
+	 * multiple instances of this, possibly used by different threads.
+	 *
+	 * @return a new, thread safe {@link FlowExecutionImplFactory}
+	 */
+	static FlowExecutionImplFactory createExecutionFactory() {
+		FlowExecutionImplFactory factory = new FlowExecutionImplFactory();
+		factory.setExecutionListenerLoader(LISTENER_LOADER);
+		return factory;
+	}
+
+	private final FlowExecutionImplFactory executionFactory;
+	private final AtomicReference<Flow> replacementFlow = new AtomicReference<>();
+	private Flow testFlow;
 	private final MessageContextStoringFlowExecutionListener listener = new MessageContextStoringFlowExecutionListener();
+	private FlowExecutionListener timingListener;
+	private FlowExecutionListener coverageListener;
+	private FlowExecutionListener[] listeners = { listener };
 
 	private FlowExecutionImpl execution;
 	private MockExternalContext context;
 	private String eventId;
 	private Object request;
+	private boolean reuseExternalContext;
+	private SnapshotProfile snapshotProfile;
+	private SimulatedFlowExecutionRepository repository;
+	private String executionKey;
+
+	private MockFlowTester(Flow testFlow) {
+		this(testFlow, createExecutionFactory());
+	}
+
+	/**
+	 * Creates a tester using a shared {@link Flow} and
+	 * {@link FlowExecutionImplFactory}.
+	 * <p>
+	 * The factory must have been created by {@link #createExecutionFactory()}.
+	 * All execution state is held by the instance itself, so instances sharing
+	 * the flow and the factory can be used by different threads concurrently, as
+	 * long as each instance is confined to one thread at a time.
+	 */
+	MockFlowTester(Flow testFlow, FlowExecutionImplFactory executionFactory) {
+		this.testFlow = testFlow;
+		this.executionFactory = executionFactory;
+	}
 
 	/**
 	 * Returns the current Flow Execution.
@@ -141,23 +189,80 @@ public class MockFlowTester {
 		newContext();
 		eventId = null;
 		execution.start(new LocalAttributeMap<>(inputArguments), context);
+		profileSnapshot();
+		storeSnapshot();
+	}
+
+	private void profileSnapshot() {
+		if (snapshotProfile != null) {
+			snapshotProfile.record(execution);
+		}
+	}
+
+	private void storeSnapshot() {
+		if (repository == null) {
+			return;
+		}
+		if (execution.isActive()) {
+			executionKey = repository.store(executionKey, () -> createCheckpoint(repository.isCompressed()));
+		} else {
+			abandonConversation();
+		}
+	}
+
+	private void abandonConversation() {
+		if (repository != null) {
+			repository.end(executionKey);
+		}
+		executionKey = null;
+	}
+
+	private void restoreSnapshot() {
+		if (repository != null && executionKey != null) {
+			execution = repository.restore(executionKey, this::restoreExecution);
+		}
 	}
 
 	private void newContext() {
-		context = new MockExternalContext();
+		if (reuseExternalContext) {
+			if (!(context instanceof ReusableExternalContext)) {
+				context = new ReusableExternalContext();
+			}
+			((ReusableExternalContext) context).reset();
+		} else {
+			context = new MockExternalContext();
+		}
 		if (request != null) {
 			context.setNativeRequest(request);
 		}
 	}
 
 	private void initFlowExecution() {
-		registerFlowExecutionListener();
-		execution = (FlowExecutionImpl) executionFactory.createFlowExecution(testFlow);
+		abandonConversation();
+		Flow replacement = replacementFlow.getAndSet(null);
+		if (replacement != null) {
+			testFlow = replacement;
+		}
+		execution = withListeners(() -> (FlowExecutionImpl) executionFactory.createFlowExecution(testFlow));
 	}
 
-	private void registerFlowExecutionListener() {
-		executionFactory
-				.setExecutionListenerLoader(new StaticFlowExecutionListenerLoader(listener));
+	private <T> T withListeners(Supplier<T> action) {
+		return LISTENER_LOADER.withListeners(listeners, action);
+	}
+
+	/**
+	 * Replaces the tested {@link Flow} for all executions started after this.
+	 * <p>
+	 * The replacement takes effect on the next call of {@link #startFlow()} or
+	 * {@link #startFlowAt(String)}, the current execution, if any, keeps running
+	 * on the previous flow. This may be called from any thread, typically by a
+	 * {@link FlowReloader} which rebuilt the flow after its definition changed.
+	 *
+	 * @param flow the new {@link Flow} to test, not {@code null}
+	 */
+	public void replaceFlow(Flow flow) {
+		Assert.notNull(flow, "Flow may not be null");
+		replacementFlow.set(flow);
 	}
 
 	/**
@@ -176,6 +281,149 @@ public class MockFlowTester {
 	public void startFlowAt(String stateId) {
 		initFlowExecution();
 		execution.setCurrentState(stateId);
+		storeSnapshot();
+	}
+
+	/**
+	 * Captures the current flow execution in a {@link Checkpoint}.
+	 * <p>
+	 * In contrast to {@link #startFlowAt(String)}, a checkpoint contains the
+	 * complete state of the execution as reached by actually running the flow:
+	 * all active flow sessions, their current states and flow scopes, as well as
+	 * the conversation scope. Capturing is done once by serializing the
+	 * execution, so all objects held in these scopes must be
+	 * {@link java.io.Serializable}.
+	 * <p>
+	 * The current execution is not affected by this.
+	 *
+	 * @return a {@link Checkpoint} of the current execution
+	 * @throws IllegalStateException if no {@link FlowExecution} is present, the
+	 *                               current flow execution has ended, or the
+	 *                               execution can not be serialized
+	 * @see #restore(Checkpoint)
+	 */
+	public Checkpoint checkpoint() {
+		assertActiveExecution();
+		assertActiveSessionAccessible();
+
+		return createCheckpoint(false);
+	}
+
+	private Checkpoint createCheckpoint(boolean compress) {
+		return new Checkpoint(testFlow.getId(), getCurrentStateId(), collectSessionDefinitions(),
+				FlowExecutionSerializer.serialize(execution, compress), compress);
+	}
+
+	private Map<String, FlowDefinition> collectSessionDefinitions() {
+		Map<String, FlowDefinition> definitions = new HashMap<>();
+		for (FlowSession session = execution.getActiveSession(); session != null; session = session.getParent()) {
+			definitions.put(session.getDefinition().getId(), session.getDefinition());
+		}
+		return definitions;
+	}
+
+	/**
+	 * Replaces the current flow execution with a new execution restored from
+	 * the given {@link Checkpoint}.
+	 * <p>
+	 * Discards the previous {@link FlowExecution} if present, as well as the set
+	 * event id. The restored execution is completely independent of the
+	 * execution the checkpoint was taken from and of all other executions
+	 * restored from the same checkpoint, meaning that a single checkpoint can
+	 * serve as starting point for many tests. As every restore deserializes the
+	 * captured scopes, changes made to scoped objects in one branch never leak
+	 * into another.
+	 * <p>
+	 * Methods requiring an active session can be called after this.
+	 *
+	 * @param checkpoint the {@link Checkpoint} to restore, not {@code null}
+	 * @throws IllegalArgumentException if the checkpoint was taken from a
+	 *                                  different flow
+	 * @see #checkpoint()
+	 */
+	public void restore(Checkpoint checkpoint) {
+		Assert.notNull(checkpoint, "Checkpoint may not be null");
+		Assert.isTrue(testFlow.getId().equals(checkpoint.getFlowId()),
+				"Checkpoint was taken from flow " + checkpoint.getFlowId() + " but this tests " + testFlow.getId());
+		abandonConversation();
+		execution = restoreExecution(checkpoint);
+		eventId = null;
+		storeSnapshot();
+	}
+
+	private FlowExecutionImpl restoreExecution(Checkpoint checkpoint) {
+		return withListeners(() -> FlowExecutionSerializer.restore(checkpoint.getData(), checkpoint.isCompressed(),
+				testFlow, executionFactory, id -> {
+					FlowDefinition definition = checkpoint.getSessionDefinitions().get(id);
+					if (definition == null) {
+						throw new NoSuchFlowDefinitionException(id);
+					}
+					return definition;
+				}));
+	}
+
+	/**
+	 * Exports the current flow execution as bytes, to be
+	 * {@link #importExecution(byte[]) imported} by a tester of another copy of
+	 * the same flow.
+	 * <p>
+	 * This simulates a conversation being replicated to another node of a
+	 * cluster: the exported form is compressed and self-contained, containing
+	 * the id of the flow, all active flow sessions with their current states and
+	 * scopes, and the conversation scope, but no references to this tester or its
+	 * {@link Flow}. All objects held in these scopes must be
+	 * {@link java.io.Serializable}.
+	 * <p>
+	 * The current execution is not affected by this.
+	 *
+	 * @return the exported execution
+	 * @throws IllegalStateException if no {@link FlowExecution} is present, the
+	 *                               current flow execution has ended, or the
+	 *                               execution can not be serialized
+	 * @see ExecutionHandOff
+	 */
+	public byte[] exportExecution() {
+		assertActiveExecution();
+		assertActiveSessionAccessible();
+
+		return FlowExecutionSerializer.export(testFlow.getId(), execution);
+	}
+
+	/**
+	 * Replaces the current flow execution with an execution exported by
+	 * {@link #exportExecution()}, typically by another tester.
+	 * <p>
+	 * The execution is rehydrated against the {@link Flow} of this tester, which
+	 * must have the id of the flow it was exported from. Active sub flow
+	 * sessions are restored using the sub flows registered when building that
+	 * flow, see
+	 * {@link de.lhug.webflowtester.builder.ExternalizedMockFlowBuilder#FLOW_DEFINITION_LOCATOR_ATTRIBUTE}.
+	 * Discards the previous {@link FlowExecution} if present, as well as the set
+	 * event id.
+	 *
+	 * @param exportedExecution the exported execution, not {@code null}
+	 * @throws IllegalArgumentException if the execution was exported from
+	 *                                  another flow
+	 * @throws IllegalStateException    if the execution can not be restored
+	 */
+	public void importExecution(byte[] exportedExecution) {
+		Assert.notNull(exportedExecution, "Exported execution may not be null");
+		abandonConversation();
+		execution = withListeners(() -> FlowExecutionSerializer.importExecution(exportedExecution, testFlow,
+				executionFactory, this::findFlowDefinition));
+		eventId = null;
+		storeSnapshot();
+	}
+
+	private FlowDefinition findFlowDefinition(String id) {
+		if (testFlow.getId().equals(id)) {
+			return testFlow;
+		}
+		Object locator = testFlow.getAttributes().get(ExternalizedMockFlowBuilder.FLOW_DEFINITION_LOCATOR_ATTRIBUTE);
+		if (locator instanceof FlowDefinitionLocator) {
+			return ((FlowDefinitionLocator) locator).getFlowDefinition(id);
+		}
+		throw new NoSuchFlowDefinitionException(id);
 	}
 
 	/**
@@ -222,12 +470,64 @@ public class MockFlowTester {
 	 * @see #setEventId(String)
 	 */
 	public void resumeFlow(Map<? extends String, ?> inputArguments) {
+		restoreSnapshot();
 		assertActiveExecution();
 		Assert.state(eventId != null, "An event ID must be set to resume the flow");
 		newContext();
-		setRequestParameters(inputArguments);
-		context.setEventId(eventId);
+		if (context instanceof ReusableExternalContext) {
+			setReusableRequestParameters(inputArguments);
+		} else {
+			setRequestParameters(inputArguments);
+			context.setEventId(eventId);
+		}
 		execution.resume(context);
+		profileSnapshot();
+		storeSnapshot();
+	}
+
+	/**
+	 * Continues the active flow execution using the given request parameters as
+	 * they are.
+	 * <p>
+	 * Unlike {@link #resumeFlow(Map)}, the parameters are neither copied nor
+	 * converted, so a single, pre-built {@link ParameterMap} can be passed to any
+	 * number of requests. As the map is not modified, it must contain the event to
+	 * signal as parameter {@value #EVENT_ID_PARAMETER}, and any event set by
+	 * {@link #setEventId(String)} is ignored.
+	 * <p>
+	 * Combined with {@link #setReuseExternalContext(boolean) reusing the external
+	 * context}, resuming creates neither a new external context nor a new
+	 * parameter map.
+	 *
+	 * @param requestParameters the request parameters, including the event id
+	 * @throws IllegalStateException    when no flow execution is available
+	 * @throws IllegalArgumentException when the parameters do not contain an event
+	 *                                  id
+	 * @see MockParameterMap
+	 */
+	public void resumeFlow(ParameterMap requestParameters) {
+		restoreSnapshot();
+		assertActiveExecution();
+		Assert.notNull(requestParameters, "Request parameters may not be null");
+		Assert.isTrue(requestParameters.contains(EVENT_ID_PARAMETER),
+				"Request parameters must contain the event id as parameter " + EVENT_ID_PARAMETER);
+		newContext();
+		context.setRequestParameterMap(requestParameters);
+		execution.resume(context);
+		profileSnapshot();
+		storeSnapshot();
+	}
+
+	private void setReusableRequestParameters(Map<? extends String, ?> inputArguments) {
+		ReusableParameterMap parameterMap = ((ReusableExternalContext) context).getReusableParameterMap();
+		inputArguments.forEach((key, value) -> {
+			if (value instanceof String[] || value instanceof MultipartFile) {
+				parameterMap.put(key, value);
+			} else {
+				parameterMap.put(key, Objects.toString(value));
+			}
+		});
+		parameterMap.put(EVENT_ID_PARAMETER, eventId);
 	}
 
 	private void setRequestParameters(Map<? extends String, ?> inputArguments) {
@@ -414,7 +714,9 @@ public class MockFlowTester {
 	 * <p>
 	 * As every call of {@link #startFlow()} and {@link #resumeFlow()} creates a new
 	 * instance of {@link MockExternalContext}, this only returns the last used
-	 * context, which can then be asserted as desired.
+	 * context, which can then be asserted as desired. When
+	 * {@link #setReuseExternalContext(boolean) reusing the external context}, the
+	 * same instance is returned after every request.
 	 *
 	 * @return the last used {@link MockExternalContext}, or <code>null</code> if no
 	 * request has been sent
@@ -428,6 +730,106 @@ public class MockFlowTester {
 		return listener.messages;
 	}
 
+	/**
+	 * Records the time spent in the states, actions, views and transitions of
+	 * all executions started or restored after this in the given
+	 * {@link FlowTimings}.
+	 * <p>
+	 * Timings accumulate over all executions, until they are
+	 * {@link FlowTimings#clear() cleared}. The same timings can be passed to many
+	 * testers, also running in parallel. Pass {@code null} to stop recording.
+	 *
+	 * @param timings the {@link FlowTimings} to record into, or {@code null}
+	 * @see FlowTimings#toReport()
+	 */
+	public void recordTimings(FlowTimings timings) {
+		timingListener = timings == null ? null : new TimingFlowExecutionListener(timings);
+		updateListeners();
+	}
+
+	/**
+	 * Records the states entered and transitions executed by all executions
+	 * started or restored after this in the given {@link FlowCoverage}.
+	 * <p>
+	 * The same coverage can be passed to many testers, also running in parallel,
+	 * typically the JVM-wide {@link FlowCoverage#of(Flow) coverage} of the tested
+	 * flow. Pass {@code null} to stop recording.
+	 *
+	 * @param coverage the {@link FlowCoverage} to record into, or {@code null}
+	 */
+	public void recordCoverage(FlowCoverage coverage) {
+		coverageListener = coverage == null ? null : new CoverageFlowExecutionListener(coverage);
+		updateListeners();
+	}
+
+	private void updateListeners() {
+		listeners = Arrays.stream(new FlowExecutionListener[] { listener, timingListener, coverageListener })
+				.filter(Objects::nonNull)
+				.toArray(FlowExecutionListener[]::new);
+	}
+
+	/**
+	 * Serializes the execution after every request leaving it active, the way a
+	 * flow execution repository would, and records the snapshots in the given
+	 * {@link SnapshotProfile}.
+	 * <p>
+	 * As with a repository, all objects held in conversation scope, flow scope
+	 * and view scope must be {@link java.io.Serializable} while profiling. The
+	 * same profile can be passed to many testers, also running in parallel. Pass
+	 * {@code null} to stop profiling.
+	 *
+	 * @param profile the {@link SnapshotProfile} to record into, or {@code null}
+	 */
+	public void profileSnapshots(SnapshotProfile profile) {
+		this.snapshotProfile = profile;
+	}
+
+	/**
+	 * Stores the execution in the given repository between requests, instead of
+	 * keeping it in memory.
+	 * <p>
+	 * Every request leaving the execution active is followed by a snapshot, and
+	 * every resume restores a new execution from the latest snapshot, or from
+	 * the snapshot selected by {@link #setFlowExecutionKey(String)}. All objects
+	 * held in conversation scope, flow scope and view scope must therefore be
+	 * {@link java.io.Serializable}. The same repository can be passed to many
+	 * testers, also running in parallel. Pass {@code null} to keep executions in
+	 * memory again.
+	 *
+	 * @param repository the {@link SimulatedFlowExecutionRepository} to use, or
+	 *                   {@code null}
+	 */
+	public void useRepository(SimulatedFlowExecutionRepository repository) {
+		abandonConversation();
+		this.repository = repository;
+	}
+
+	/**
+	 * Returns the key of the snapshot taken after the latest request.
+	 *
+	 * @return the flow execution key, e.G. {@code e1s2}, or {@code null} if no
+	 *         repository is used or the execution has ended
+	 * @see #useRepository(SimulatedFlowExecutionRepository)
+	 */
+	public String getFlowExecutionKey() {
+		return executionKey;
+	}
+
+	/**
+	 * Selects the snapshot the next resume restores the execution from, as if
+	 * the user navigated back to an earlier page.
+	 *
+	 * @param flowExecutionKey the key of a snapshot of this tester's conversation
+	 * @throws IllegalStateException if no repository is used, or no snapshot with
+	 *                               the given key is kept
+	 */
+	public void setFlowExecutionKey(String flowExecutionKey) {
+		Assert.state(repository != null, "A repository must be used to select a snapshot");
+		Assert.state(repository.contains(flowExecutionKey), "No snapshot with key " + flowExecutionKey
+				+ " exists, it has been discarded or its execution has ended");
+		this.executionKey = flowExecutionKey;
+	}
+
 	private static class MessageContextStoringFlowExecutionListener implements FlowExecutionListener {
 		public Set<Message> messages = new HashSet<>();
 
@@ -454,4 +856,22 @@ public class MockFlowTester {
 	public void setRequest(Object request) {
 		this.request = request;
 	}
+
+	/**
+	 * Enables or disables reusing the external context between requests.
+	 * <p>
+	 * By default, every call of {@link #startFlow()} and {@link #resumeFlow()}
+	 * creates a fresh {@link MockExternalContext} and request parameter map. When
+	 * reuse is enabled, a single context is reset before each request instead,
+	 * which avoids allocating these structures in long running or high volume
+	 * tests. The reset discards everything recorded by the previous request,
+	 * meaning that {@link #getLastRequestContext()} always returns the same
+	 * instance, holding the state of the latest request only.
+	 *
+	 * @param reuseExternalContext {@code true} to reuse the external context
+	 * @see #resumeFlow(ParameterMap)
+	 */
+	public void setReuseExternalContext(boolean reuseExternalContext) {
+		this.reuseExternalContext = reuseExternalContext;
+	}
 }
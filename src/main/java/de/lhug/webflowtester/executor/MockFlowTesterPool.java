@@ -0,0 +1,156 @@
+package de.lhug.webflowtester.executor;
+
+import de.lhug.webflowtester.builder.MockFlowBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import lombok.Getter;
+import org.springframework.util.Assert;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.impl.FlowExecutionImplFactory;
+
+/**
+ * Runs test scenarios against a single, shared {@link Flow} from multiple
+ * threads concurrently.
+ * <p>
+ * The {@link Flow} is built once and shared by all workers, as is the
+ * {@link FlowExecutionImplFactory} creating the executions. Every worker gets
+ * its own {@link MockFlowTester}, so execution, external context, event and
+ * listener state is isolated per worker. Any contention observed is therefore
+ * caused by the flow itself, e.G. by action beans shared between executions.
+ * </p>
+ *
+ * <pre>
+ * MockFlowTesterPool pool = MockFlowTesterPool.from(builder, 8);
+ * PoolResult&lt;String&gt; result = pool.run(1000, tester -&gt; {
+ * 	tester.startFlow();
+ * 	tester.setEventId("continue");
+ * 	tester.resumeFlow();
+ * 	return tester.getCurrentStateId();
+ * });
+ *
+ * assertThat(result.getFailures()).isEmpty();
+ * </pre>
+ */
+public final class MockFlowTesterPool {
+
+	/**
+	 * Builds a pool using a {@link MockFlowBuilder}.
+	 * <p>
+	 * The {@link MockFlowBuilder#buildFlow()} method is called exactly once, and
+	 * the resulting {@link Flow} is shared by all workers.
+	 *
+	 * @param builder an implementation of {@link MockFlowBuilder} to supply the
+	 *                {@link Flow} instance
+	 * @param workers the number of threads to run scenarios on, greater than 0
+	 * @return an initialized MockFlowTesterPool
+	 */
+	public static MockFlowTesterPool from(MockFlowBuilder builder, int workers) {
+		return new MockFlowTesterPool(builder.buildFlow(), workers);
+	}
+
+	/**
+	 * The shared {@link Flow} all executions run against
+	 */
+	@Getter
+	private final Flow flow;
+
+	/**
+	 * The number of workers used by {@link #run(int, Function)}
+	 */
+	@Getter
+	private final int workers;
+
+	private final FlowExecutionImplFactory executionFactory = MockFlowTester.createExecutionFactory();
+
+	private MockFlowTesterPool(Flow flow, int workers) {
+		Assert.notNull(flow, "Flow may not be null");
+		Assert.isTrue(workers > 0, "There must be at least one worker");
+		this.flow = flow;
+		this.workers = workers;
+	}
+
+	/**
+	 * Creates a new {@link MockFlowTester} sharing the {@link Flow} and the
+	 * execution factory of this pool.
+	 * <p>
+	 * The returned tester must only be used by one thread at a time.
+	 *
+	 * @return a fresh {@link MockFlowTester}
+	 */
+	public MockFlowTester newTester() {
+		return new MockFlowTester(flow, executionFactory);
+	}
+
+	/**
+	 * Runs the passed scenario on all workers concurrently.
+	 * <p>
+	 * Every worker runs the scenario {@code invocationsPerWorker} times, reusing
+	 * its own {@link MockFlowTester}. All workers are started at the same time to
+	 * maximize contention. A scenario throwing an exception or failing an
+	 * assertion is recorded as a failure of its worker, and the worker continues
+	 * with the next invocation. This method blocks until all workers are done.
+	 *
+	 * @param invocationsPerWorker how often each worker runs the scenario
+	 * @param scenario             the scenario to run, receiving the tester of the
+	 *                             worker and returning a result to collect
+	 * @return the results of all workers
+	 * @throws IllegalStateException if the calling thread is interrupted while
+	 *                               waiting for the workers
+	 */
+	public <T> PoolResult<T> run(int invocationsPerWorker, Function<MockFlowTester, T> scenario) {
+		Assert.isTrue(invocationsPerWorker > 0, "There must be at least one invocation per worker");
+		Assert.notNull(scenario, "Scenario may not be null");
+		ExecutorService executor = Executors.newFixedThreadPool(workers);
+		try {
+			CountDownLatch startSignal = new CountDownLatch(1);
+			List<Future<WorkerResult<T>>> futures = new ArrayList<>(workers);
+			for (int worker = 0; worker < workers; worker++) {
+				int index = worker;
+				futures.add(executor.submit(() -> runWorker(index, invocationsPerWorker, scenario, startSignal)));
+			}
+			startSignal.countDown();
+			return new PoolResult<>(collect(futures));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private <T> WorkerResult<T> runWorker(int index, int invocations, Function<MockFlowTester, T> scenario,
+			CountDownLatch startSignal) throws InterruptedException {
+		MockFlowTester tester = newTester();
+		List<T> results = new ArrayList<>(invocations);
+		List<Throwable> failures = new ArrayList<>();
+		startSignal.await();
+		long start = System.nanoTime();
+		for (int i = 0; i < invocations; i++) {
+			try {
+				results.add(scenario.apply(tester));
+			} catch (RuntimeException | AssertionError e) {
+				failures.add(e);
+			}
+		}
+		return new WorkerResult<>(index, results, failures, System.nanoTime() - start);
+	}
+
+	private static <T> List<WorkerResult<T>> collect(List<Future<WorkerResult<T>>> futures) {
+		List<WorkerResult<T>> results = new ArrayList<>(futures.size());
+		try {
+			for (Future<WorkerResult<T>> future : futures) {
+				results.add(future.get());
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for workers", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Worker failed unexpectedly: " + e.getCause().getMessage(),
+					e.getCause());
+		}
+		return results;
+	}
+}
@@ -0,0 +1,62 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.Getter;
+
+/**
+ * The aggregated outcome of a {@link MockFlowTesterPool#run(int,
+ * java.util.function.Function) pool run}.
+ *
+ * @param <T> the type of results returned by the scenario
+ */
+public final class PoolResult<T> {
+
+	/**
+	 * The results of the individual workers, ordered by worker index
+	 */
+	@Getter
+	private final List<WorkerResult<T>> workerResults;
+
+	PoolResult(List<WorkerResult<T>> workerResults) {
+		this.workerResults = Collections.unmodifiableList(workerResults);
+	}
+
+	/**
+	 * @return the results of all successful invocations of all workers
+	 */
+	public List<T> getResults() {
+		return workerResults.stream()
+				.flatMap(worker -> worker.getResults().stream())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the failures of all workers
+	 */
+	public List<Throwable> getFailures() {
+		return workerResults.stream()
+				.flatMap(worker -> worker.getFailures().stream())
+				.collect(Collectors.toList());
+	}
+
+	/**
+	 * @return the total number of invocations run by all workers
+	 */
+	public int getInvocationCount() {
+		return workerResults.stream()
+				.mapToInt(WorkerResult::getInvocationCount)
+				.sum();
+	}
+
+	/**
+	 * @return the time taken by the slowest worker, in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return workerResults.stream()
+				.mapToLong(WorkerResult::getElapsedNanos)
+				.max()
+				.orElse(0L);
+	}
+}
@@ -0,0 +1,145 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.List;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Outcome of {@link TraceReplayer#replay(java.nio.file.Path) replaying a
+ * trace}.
+ * <p>
+ * Steps are numbered from 1, in the order they have been recorded, with step 0
+ * denoting the start of the flow. Latencies are grouped by the signaled event
+ * id, with the start of the flow grouped as {@value #START}. Requests failing
+ * with an exception are reported as failures, without latency.
+ * </p>
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class ReplayReport {
+
+	/**
+	 * Key of the latencies of starting the flow
+	 */
+	public static final String START = "<start>";
+
+	/**
+	 * The number of journeys read from the trace
+	 */
+	private final long journeyCount;
+
+	/**
+	 * The first divergence of every diverging journey, ordered by line
+	 */
+	private final List<Divergence> divergences;
+
+	/**
+	 * All journeys which could not be read or threw an exception, ordered by
+	 * line
+	 */
+	private final List<Failure> failures;
+
+	/**
+	 * The latencies of starting the flow and of every signaled event, by event
+	 * id
+	 */
+	private final Map<String, LatencyHistogram> latencies;
+
+	/**
+	 * @return {@code true}, if all journeys have been replayed as recorded
+	 */
+	public boolean isSuccessful() {
+		return divergences.isEmpty() && failures.isEmpty();
+	}
+
+	/**
+	 * Summarizes the divergences, failures and latencies of the replay.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder()
+				.append(journeyCount).append(" journeys, ")
+				.append(divergences.size()).append(" diverged, ")
+				.append(failures.size()).append(" failed\n");
+		latencies.forEach((key, histogram) -> result.append(key).append(": ").append(histogram).append('\n'));
+		return result.toString();
+	}
+
+	/**
+	 * A step of a journey which entered another state or ended with another
+	 * outcome than recorded
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+	public static final class Divergence {
+
+		/**
+		 * The id of the journey, or its line if it has none
+		 */
+		private final String journeyId;
+
+		/**
+		 * The line of the journey within the trace, starting at 1
+		 */
+		private final long line;
+
+		/**
+		 * The diverging step, 0 for the start of the flow
+		 */
+		private final int step;
+
+		/**
+		 * The event signaled by the diverging step, {@code null} for the start of
+		 * the flow
+		 */
+		private final String eventId;
+
+		/**
+		 * The recorded state or outcome
+		 */
+		private final String expected;
+
+		/**
+		 * The id of the current state, or of the end state if the execution has
+		 * ended
+		 */
+		private final String actual;
+
+		@Override
+		public String toString() {
+			return "journey " + journeyId + " (line " + line + "), step " + step
+					+ (eventId != null ? " '" + eventId + "'" : "")
+					+ ": expected '" + expected + "' but was '" + actual + "'";
+		}
+	}
+
+	/**
+	 * A journey which could not be read or threw an exception
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+	public static final class Failure {
+
+		/**
+		 * The id of the journey, or its line if it has none or could not be read
+		 */
+		private final String journeyId;
+
+		/**
+		 * The line of the journey within the trace, starting at 1
+		 */
+		private final long line;
+
+		/**
+		 * The thrown exception
+		 */
+		private final Throwable failure;
+
+		@Override
+		public String toString() {
+			return "journey " + journeyId + " (line " + line + "): " + failure;
+		}
+	}
+}
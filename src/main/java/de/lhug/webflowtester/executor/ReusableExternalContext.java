@@ -0,0 +1,193 @@
+package de.lhug.webflowtester.executor;
+
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.binding.collection.SharedMapDecorator;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.core.collection.LocalParameterMap;
+import org.springframework.webflow.core.collection.LocalSharedAttributeMap;
+import org.springframework.webflow.core.collection.MutableAttributeMap;
+import org.springframework.webflow.core.collection.SharedAttributeMap;
+import org.springframework.webflow.test.MockExternalContext;
+
+/**
+ * {@link MockExternalContext} which can be reset and reused for the next
+ * request, used by {@link MockFlowTester} when reusing external contexts.
+ * <p>
+ * {@link MockExternalContext} offers no way to reset the redirects and the
+ * response state recorded during a request, so this keeps track of them
+ * itself.
+ * </p>
+ */
+class ReusableExternalContext extends MockExternalContext {
+
+	private final LocalAttributeMap<Object> requestMap = new LocalAttributeMap<>();
+	private final LocalSharedAttributeMap<Object> sessionMap = new LocalSharedAttributeMap<>(
+			new SharedMapDecorator<>(new HashMap<>()));
+	private final ReusableParameterMap parameterMap = new ReusableParameterMap();
+	private final StringWriter responseWriter = new StringWriter();
+
+	private boolean responseComplete;
+	private boolean flowExecutionRedirectRequested;
+	private String flowRedirectFlowId;
+	private MutableAttributeMap<Object> flowRedirectFlowInput;
+	private String externalRedirectUrl;
+	private boolean redirectInPopup;
+
+	/**
+	 * Prepares this for the next request, discarding everything recorded by the
+	 * previous one. Like a new {@link MockExternalContext}, this holds an empty
+	 * Object as native request afterwards.
+	 */
+	void reset() {
+		setNativeRequest(new Object());
+		requestMap.clear();
+		sessionMap.clear();
+		parameterMap.clear();
+		setRequestParameterMap(parameterMap);
+		responseWriter.getBuffer().setLength(0);
+		responseComplete = false;
+		flowExecutionRedirectRequested = false;
+		flowRedirectFlowId = null;
+		flowRedirectFlowInput = null;
+		externalRedirectUrl = null;
+		redirectInPopup = false;
+	}
+
+	/**
+	 * Returns the parameter map held by this, which is cleared on every
+	 * {@link #reset()}.
+	 *
+	 * @return the reusable request parameter map
+	 */
+	ReusableParameterMap getReusableParameterMap() {
+		return parameterMap;
+	}
+
+	@Override
+	public MutableAttributeMap<Object> getRequestMap() {
+		return requestMap;
+	}
+
+	@Override
+	public SharedAttributeMap<Object> getSessionMap() {
+		return sessionMap;
+	}
+
+	@Override
+	public SharedAttributeMap<Object> getGlobalSessionMap() {
+		return sessionMap;
+	}
+
+	@Override
+	public Writer getResponseWriter() {
+		return responseWriter;
+	}
+
+	@Override
+	public boolean isResponseComplete() {
+		return responseComplete;
+	}
+
+	@Override
+	public void recordResponseComplete() {
+		responseComplete = true;
+	}
+
+	@Override
+	public boolean isResponseCompleteFlowExecutionRedirect() {
+		return flowExecutionRedirectRequested;
+	}
+
+	@Override
+	public void requestFlowExecutionRedirect() {
+		flowExecutionRedirectRequested = true;
+		recordResponseComplete();
+	}
+
+	@Override
+	public void requestFlowDefinitionRedirect(String flowId, MutableAttributeMap<?> input) {
+		flowRedirectFlowId = flowId;
+		flowRedirectFlowInput = new LocalAttributeMap<>();
+		if (input != null) {
+			flowRedirectFlowInput.putAll(input);
+		}
+		recordResponseComplete();
+	}
+
+	@Override
+	public void requestExternalRedirect(String location) {
+		externalRedirectUrl = location;
+		recordResponseComplete();
+	}
+
+	@Override
+	public void requestRedirectInPopup() {
+		redirectInPopup = true;
+	}
+
+	@Override
+	public boolean getFlowExecutionRedirectRequested() {
+		return flowExecutionRedirectRequested;
+	}
+
+	@Override
+	public boolean getFlowDefinitionRedirectRequested() {
+		return flowRedirectFlowId != null;
+	}
+
+	@Override
+	public String getFlowRedirectFlowId() {
+		return flowRedirectFlowId;
+	}
+
+	@Override
+	public MutableAttributeMap<Object> getFlowRedirectFlowInput() {
+		return flowRedirectFlowInput;
+	}
+
+	@Override
+	public boolean getExternalRedirectRequested() {
+		return externalRedirectUrl != null;
+	}
+
+	@Override
+	public String getExternalRedirectUrl() {
+		return externalRedirectUrl;
+	}
+
+	@Override
+	public boolean getRedirectInPopup() {
+		return redirectInPopup;
+	}
+
+	/**
+	 * {@link LocalParameterMap} backed by a map which is cleared instead of
+	 * replaced between requests.
+	 */
+	static class ReusableParameterMap extends LocalParameterMap {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Map<String, Object> parameters;
+
+		ReusableParameterMap() {
+			this(new HashMap<>());
+		}
+
+		private ReusableParameterMap(Map<String, Object> parameters) {
+			super(parameters);
+			this.parameters = parameters;
+		}
+
+		void put(String name, Object value) {
+			parameters.put(name, value);
+		}
+
+		void clear() {
+			parameters.clear();
+		}
+	}
+}
@@ -0,0 +1,242 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.Getter;
+import org.springframework.util.Assert;
+
+/**
+ * Stores the executions of {@link MockFlowTester}s as snapshots between
+ * requests, the way the default flow execution repository of Spring WebFlow
+ * does.
+ * <p>
+ * Without a repository, a tester keeps the live execution in memory between
+ * requests. When using this, the execution is serialized after every request
+ * leaving it active, and every following request resumes a fresh execution
+ * restored from the latest snapshot. Problems which only occur when restoring
+ * executions, such as objects in scope which can not be serialized, or state
+ * lost because it is held in transient fields, become visible in tests, and
+ * the time taken to snapshot and restore is recorded.
+ * </p>
+ * <p>
+ * Like the original, every conversation keeps at most
+ * {@link #withMaxSnapshots(int) a number of snapshots}, identified by flow
+ * execution keys like {@code e1s2}, so earlier snapshots can be resumed as if
+ * the user navigated back. The oldest snapshots are discarded when the limit
+ * is exceeded, and all snapshots of a conversation are discarded once its
+ * execution has ended. A repository can be shared by many testers, also
+ * running in parallel.
+ * </p>
+ *
+ * <pre>
+ * SimulatedFlowExecutionRepository repository = new SimulatedFlowExecutionRepository().withMaxSnapshots(5);
+ * tester.useRepository(repository);
+ * // run the flow
+ *
+ * System.out.println(repository.getRestoreTimes());
+ * </pre>
+ *
+ * @see MockFlowTester#useRepository(SimulatedFlowExecutionRepository)
+ */
+public final class SimulatedFlowExecutionRepository {
+
+	/**
+	 * The number of snapshots kept per conversation by default, as in Spring
+	 * WebFlow
+	 */
+	public static final int DEFAULT_MAX_SNAPSHOTS = 30;
+
+	private static final Pattern KEY = Pattern.compile("e(\\d+)s(\\d+)");
+
+	/**
+	 * Whether snapshots are compressed with GZIP, {@code true} by default
+	 */
+	@Getter
+	private boolean compressed = true;
+
+	/**
+	 * The number of snapshots kept per conversation
+	 */
+	@Getter
+	private int maxSnapshots = DEFAULT_MAX_SNAPSHOTS;
+
+	/**
+	 * The time taken to serialize executions
+	 */
+	@Getter
+	private final LatencyHistogram snapshotTimes = new LatencyHistogram();
+
+	/**
+	 * The time taken to deserialize and rehydrate executions
+	 */
+	@Getter
+	private final LatencyHistogram restoreTimes = new LatencyHistogram();
+
+	private final AtomicLong conversationIds = new AtomicLong();
+	private final Map<Long, Conversation> conversations = new ConcurrentHashMap<>();
+	private final LongAdder totalSize = new LongAdder();
+	private final AtomicLong maxSize = new AtomicLong();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Enables or disables compressing the snapshots with GZIP.
+	 *
+	 * @param compressed {@code true} to compress snapshots
+	 * @return this repository
+	 */
+	public SimulatedFlowExecutionRepository withCompression(boolean compressed) {
+		this.compressed = compressed;
+		return this;
+	}
+
+	/**
+	 * Sets the number of snapshots kept per conversation.
+	 *
+	 * @param maxSnapshots the number of snapshots, greater than 0
+	 * @return this repository
+	 */
+	public SimulatedFlowExecutionRepository withMaxSnapshots(int maxSnapshots) {
+		Assert.isTrue(maxSnapshots > 0, "At least one snapshot must be kept");
+		this.maxSnapshots = maxSnapshots;
+		return this;
+	}
+
+	String store(String previousKey, Supplier<Checkpoint> snapshot) {
+		long start = System.nanoTime();
+		Checkpoint checkpoint = snapshot.get();
+		snapshotTimes.record(System.nanoTime() - start);
+		totalSize.add(checkpoint.getSize());
+		maxSize.accumulateAndGet(checkpoint.getSize(), Math::max);
+		Conversation conversation = previousKey != null ? conversations.get(conversationIdOf(previousKey)) : null;
+		if (conversation == null) {
+			conversation = new Conversation(conversationIds.incrementAndGet());
+			conversations.put(conversation.id, conversation);
+		}
+		return conversation.add(checkpoint);
+	}
+
+	<T> T restore(String key, Function<Checkpoint, T> restorer) {
+		Checkpoint checkpoint = find(key);
+		long start = System.nanoTime();
+		T result = restorer.apply(checkpoint);
+		restoreTimes.record(System.nanoTime() - start);
+		return result;
+	}
+
+	private Checkpoint find(String key) {
+		Conversation conversation = conversations.get(conversationIdOf(key));
+		Checkpoint checkpoint = conversation != null ? conversation.get(snapshotIdOf(key)) : null;
+		Assert.state(checkpoint != null, "No snapshot with key " + key
+				+ " exists, it has been discarded or its execution has ended");
+		return checkpoint;
+	}
+
+	void end(String key) {
+		if (key != null) {
+			conversations.remove(conversationIdOf(key));
+		}
+	}
+
+	private static long conversationIdOf(String key) {
+		return Long.parseLong(parse(key).group(1));
+	}
+
+	private static long snapshotIdOf(String key) {
+		return Long.parseLong(parse(key).group(2));
+	}
+
+	private static Matcher parse(String key) {
+		Matcher matcher = KEY.matcher(key);
+		Assert.isTrue(matcher.matches(), "Malformed flow execution key " + key);
+		return matcher;
+	}
+
+	/**
+	 * @param key a flow execution key
+	 * @return {@code true}, if a snapshot with the given key is kept
+	 */
+	public boolean contains(String key) {
+		Conversation conversation = conversations.get(conversationIdOf(key));
+		return conversation != null && conversation.get(snapshotIdOf(key)) != null;
+	}
+
+	/**
+	 * @return the number of conversations whose executions have not ended
+	 */
+	public int getConversationCount() {
+		return conversations.size();
+	}
+
+	/**
+	 * @return the number of snapshots taken
+	 */
+	public long getSnapshotCount() {
+		return snapshotTimes.getCount();
+	}
+
+	/**
+	 * @return the number of snapshots discarded because a conversation exceeded
+	 *         the maximum number of snapshots
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the size of the largest snapshot taken in bytes
+	 */
+	public long getMaxSnapshotSize() {
+		return maxSize.get();
+	}
+
+	/**
+	 * @return the average size of the snapshots taken in bytes, or 0 if none was
+	 *         taken
+	 */
+	public double getMeanSnapshotSize() {
+		long count = getSnapshotCount();
+		return count == 0 ? 0 : (double) totalSize.sum() / count;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("snapshots=%d, mean=%.0fB, max=%dB, evicted=%d, snapshot %s, restore %s",
+				getSnapshotCount(), getMeanSnapshotSize(), getMaxSnapshotSize(), getEvictionCount(), snapshotTimes,
+				restoreTimes);
+	}
+
+	private final class Conversation {
+
+		private final long id;
+		private final Deque<Long> snapshotIds = new ArrayDeque<>();
+		private final Map<Long, Checkpoint> snapshots = new ConcurrentHashMap<>();
+		private long nextSnapshotId = 1;
+
+		private Conversation(long id) {
+			this.id = id;
+		}
+
+		private synchronized String add(Checkpoint checkpoint) {
+			long snapshotId = nextSnapshotId++;
+			snapshots.put(snapshotId, checkpoint);
+			snapshotIds.addLast(snapshotId);
+			while (snapshotIds.size() > maxSnapshots) {
+				snapshots.remove(snapshotIds.removeFirst());
+				evictions.increment();
+			}
+			return "e" + id + "s" + snapshotId;
+		}
+
+		private Checkpoint get(long snapshotId) {
+			return snapshots.get(snapshotId);
+		}
+	}
+}
@@ -0,0 +1,247 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import org.springframework.webflow.core.collection.AttributeMap;
+import org.springframework.webflow.engine.ViewState;
+import org.springframework.webflow.engine.impl.FlowExecutionImpl;
+import org.springframework.webflow.execution.FlowSession;
+
+/**
+ * Sizes and serialization times of the snapshots a flow execution repository
+ * would take of the executions of a {@link MockFlowTester}.
+ * <p>
+ * A repository serializes the execution after every request and stores the
+ * result in the HTTP session, so the size of the snapshots directly affects
+ * the memory held per user. When profiling, the execution is serialized after
+ * every request leaving it active, exactly as it would be stored, and the size
+ * and time taken are recorded for the state the execution paused in. To help
+ * finding the cause of large snapshots, the uncompressed size of every
+ * attribute in conversation scope, flash scope, flow scope and view scope is
+ * recorded as well. Web Flow holds the flash scope in conversation scope and
+ * the view scope in flow scope; these are not recorded as attributes of their
+ * holding scope.
+ * </p>
+ * <p>
+ * Executions holding objects which can not be serialized fail the request with
+ * an {@link IllegalStateException}, as they would fail in production. A single
+ * profile can be shared by many testers, also running in parallel.
+ * </p>
+ *
+ * <pre>
+ * SnapshotProfile profile = new SnapshotProfile();
+ * tester.profileSnapshots(profile);
+ * // run the flow
+ *
+ * profile.assertMaxSnapshotSize(16 * 1024);
+ * </pre>
+ *
+ * @see MockFlowTester#profileSnapshots(SnapshotProfile)
+ */
+public final class SnapshotProfile {
+
+	private static final Set<String> NESTED_SCOPES = Set.of("conversationScope.flashScope", "flowScope.viewScope");
+
+	/**
+	 * Whether snapshots are compressed with GZIP
+	 */
+	@Getter
+	private final boolean compressed;
+
+	private final Map<String, StateSnapshots> states = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates a profile of compressed snapshots, as taken by default by Spring
+	 * WebFlow.
+	 */
+	public SnapshotProfile() {
+		this(true);
+	}
+
+	/**
+	 * Creates a profile of snapshots.
+	 *
+	 * @param compressed whether snapshots are compressed with GZIP
+	 */
+	public SnapshotProfile(boolean compressed) {
+		this.compressed = compressed;
+	}
+
+	void record(FlowExecutionImpl execution) {
+		if (!execution.isActive()) {
+			return;
+		}
+		long start = System.nanoTime();
+		byte[] snapshot = FlowExecutionSerializer.serialize(execution, compressed);
+		long nanos = System.nanoTime() - start;
+		FlowSession session = execution.getActiveSession();
+		StateSnapshots snapshots = states.computeIfAbsent(
+				session.getDefinition().getId() + "#" + session.getState().getId(), StateSnapshots::new);
+		snapshots.record(snapshot.length, nanos);
+		snapshots.recordAttributes("conversationScope", execution.getConversationScope());
+		snapshots.recordAttributes("flashScope", execution.getFlashScope());
+		snapshots.recordAttributes("flowScope", session.getScope());
+		if (session.getState() instanceof ViewState) {
+			snapshots.recordAttributes("viewScope", session.getViewScope());
+		}
+	}
+
+	/**
+	 * Returns the snapshots taken in all states the executions paused in.
+	 *
+	 * @return an unmodifiable map of state ids, prefixed with their flow id as
+	 *         in {@code "myFlow#viewState"}, to their snapshots, sorted by id
+	 */
+	public Map<String, StateSnapshots> getStates() {
+		return Collections.unmodifiableMap(new TreeMap<>(states));
+	}
+
+	/**
+	 * @return the size of the largest snapshot taken in any state in bytes, or 0
+	 *         if no snapshot was taken
+	 */
+	public long getMaxSnapshotSize() {
+		return states.values().stream()
+				.mapToLong(StateSnapshots::getMaxSize)
+				.max()
+				.orElse(0L);
+	}
+
+	/**
+	 * Asserts that no snapshot taken is larger than the given size.
+	 * <p>
+	 * Raises an {@link AssertionError} listing all states with larger snapshots
+	 * and their largest attributes otherwise.
+	 *
+	 * @param maxBytes the maximum size of a snapshot in bytes
+	 */
+	public void assertMaxSnapshotSize(long maxBytes) {
+		String exceeding = getStates().values().stream()
+				.filter(snapshots -> snapshots.getMaxSize() > maxBytes)
+				.map(StateSnapshots::toString)
+				.collect(Collectors.joining("\n"));
+		if (!exceeding.isEmpty()) {
+			throw new AssertionError("Snapshots exceed " + maxBytes + " bytes:\n" + exceeding);
+		}
+	}
+
+	/**
+	 * Discards all recorded snapshots.
+	 */
+	public void clear() {
+		states.clear();
+	}
+
+	@Override
+	public String toString() {
+		return getStates().values().stream()
+				.map(StateSnapshots::toString)
+				.collect(Collectors.joining("\n"));
+	}
+
+	/**
+	 * The snapshots taken while the executions paused in a single state
+	 */
+	public static final class StateSnapshots {
+
+		private static final int REPORTED_ATTRIBUTES = 3;
+
+		/**
+		 * The id of the state, prefixed with the id of its flow
+		 */
+		@Getter
+		private final String stateId;
+
+		/**
+		 * The time taken to serialize the executions
+		 */
+		@Getter
+		private final LatencyHistogram serializationTimes = new LatencyHistogram();
+
+		private final LongAdder count = new LongAdder();
+		private final LongAdder totalSize = new LongAdder();
+		private final AtomicLong maxSize = new AtomicLong();
+		private final Map<String, AtomicLong> attributeSizes = new ConcurrentHashMap<>();
+
+		private StateSnapshots(String stateId) {
+			this.stateId = stateId;
+		}
+
+		private void record(int size, long nanos) {
+			count.increment();
+			totalSize.add(size);
+			maxSize.accumulateAndGet(size, Math::max);
+			serializationTimes.record(nanos);
+		}
+
+		private void recordAttributes(String scope, AttributeMap<?> attributes) {
+			attributes.asMap().forEach((name, value) -> {
+				String key = scope + "." + name;
+				if (!NESTED_SCOPES.contains(key)) {
+					attributeSizes.computeIfAbsent(key, k -> new AtomicLong())
+							.accumulateAndGet(FlowExecutionSerializer.sizeOf(value), Math::max);
+				}
+			});
+		}
+
+		/**
+		 * @return the number of snapshots taken
+		 */
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * @return the size of the largest snapshot in bytes
+		 */
+		public long getMaxSize() {
+			return maxSize.get();
+		}
+
+		/**
+		 * @return the average size of the snapshots in bytes, or 0 if none was
+		 *         taken
+		 */
+		public double getMeanSize() {
+			long currentCount = getCount();
+			return currentCount == 0 ? 0 : (double) totalSize.sum() / currentCount;
+		}
+
+		/**
+		 * Returns the largest uncompressed size of every attribute held while the
+		 * executions paused in this state.
+		 *
+		 * @return an unmodifiable map of attribute names, prefixed with their
+		 *         scope as in {@code "flowScope.order"}, to their size in bytes,
+		 *         ordered from largest to smallest
+		 */
+		public Map<String, Long> getLargestAttributes() {
+			Map<String, Long> result = new LinkedHashMap<>();
+			attributeSizes.entrySet().stream()
+					.sorted(Comparator.comparingLong((Map.Entry<String, AtomicLong> entry) -> entry.getValue().get())
+							.reversed()
+							.thenComparing(Map.Entry::getKey))
+					.forEach(entry -> result.put(entry.getKey(), entry.getValue().get()));
+			return Collections.unmodifiableMap(result);
+		}
+
+		@Override
+		public String toString() {
+			String largest = getLargestAttributes().entrySet().stream()
+					.limit(REPORTED_ATTRIBUTES)
+					.map(entry -> entry.getKey() + "=" + entry.getValue() + "B")
+					.collect(Collectors.joining(", "));
+			return String.format("%s: count=%d, mean=%.0fB, max=%dB, serialization %s, largest [%s]", stateId,
+					getCount(), getMeanSize(), getMaxSize(), serializationTimes, largest);
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.function.Supplier;
+import org.springframework.webflow.definition.FlowDefinition;
+import org.springframework.webflow.execution.FlowExecutionListener;
+import org.springframework.webflow.execution.factory.FlowExecutionListenerLoader;
+
+/**
+ * Supplies the listeners bound to the current thread.
+ * <p>
+ * A {@link org.springframework.webflow.engine.impl.FlowExecutionImplFactory
+ * FlowExecutionImplFactory} asks its listener loader for listeners whenever it
+ * creates or restores an execution. Binding the listeners of a
+ * {@link MockFlowTester} to the calling thread for the duration of that call
+ * allows multiple testers, each with their own listeners, to share a single
+ * factory across threads.
+ * </p>
+ */
+class ThreadBoundListenerLoader implements FlowExecutionListenerLoader {
+
+	private static final FlowExecutionListener[] NO_LISTENERS = new FlowExecutionListener[0];
+
+	private final ThreadLocal<FlowExecutionListener[]> boundListeners = new ThreadLocal<>();
+
+	/**
+	 * Binds the passed listeners to the current thread while running the given
+	 * action.
+	 *
+	 * @param listeners the listeners to hand out
+	 * @param action    the action creating or restoring an execution
+	 * @return the result of the action
+	 */
+	<T> T withListeners(FlowExecutionListener[] listeners, Supplier<T> action) {
+		boundListeners.set(listeners);
+		try {
+			return action.get();
+		} finally {
+			boundListeners.remove();
+		}
+	}
+
+	@Override
+	public FlowExecutionListener[] getListeners(FlowDefinition flowDefinition) {
+		FlowExecutionListener[] listeners = boundListeners.get();
+		return listeners != null ? listeners : NO_LISTENERS;
+	}
+}
@@ -0,0 +1,152 @@
+package de.lhug.webflowtester.executor;
+
+import de.lhug.webflowtester.executor.FlowTimings.Kind;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.webflow.core.collection.MutableAttributeMap;
+import org.springframework.webflow.definition.StateDefinition;
+import org.springframework.webflow.definition.TransitionDefinition;
+import org.springframework.webflow.execution.FlowExecutionException;
+import org.springframework.webflow.execution.FlowExecutionListener;
+import org.springframework.webflow.execution.FlowSession;
+import org.springframework.webflow.execution.RequestContext;
+import org.springframework.webflow.execution.View;
+
+/**
+ * {@link FlowExecutionListener} recording the time spent in states, actions,
+ * view rendering and transitions into {@link FlowTimings}.
+ * <p>
+ * Spring Web Flow does not notify listeners about individual actions, so the
+ * {@link Kind#ACTION action} time of a state is measured from the moment it has
+ * been entered until it renders its view or is left. Time spent in requests
+ * that fail with an exception is discarded.
+ * </p>
+ * <p>
+ * Instances are not thread safe and must be confined to the thread executing
+ * the flow, while the recorded {@link FlowTimings} may be shared.
+ * </p>
+ */
+@RequiredArgsConstructor
+class TimingFlowExecutionListener implements FlowExecutionListener {
+
+	private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+	private static final boolean CPU_TIME_SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported();
+
+	private final FlowTimings timings;
+
+	private final Map<String, Span> states = new HashMap<>();
+	private Span action;
+	private Span render;
+	private Span transition;
+
+	@Override
+	public void stateEntering(RequestContext context, StateDefinition state) {
+		transition = close(transition);
+		states.put(keyOf(state), new Span(Kind.STATE, keyOf(state)));
+	}
+
+	@Override
+	public void stateEntered(RequestContext context, StateDefinition previousState, StateDefinition state) {
+		action = new Span(Kind.ACTION, keyOf(state));
+	}
+
+	@Override
+	public void viewRendering(RequestContext context, View view, StateDefinition viewState) {
+		action = close(action);
+		transition = close(transition);
+		render = new Span(Kind.RENDER, keyOf(viewState));
+	}
+
+	@Override
+	public void viewRendered(RequestContext context, View view, StateDefinition viewState) {
+		render = close(render);
+	}
+
+	@Override
+	public void transitionExecuting(RequestContext context, TransitionDefinition definition) {
+		action = close(action);
+		StateDefinition source = context.getCurrentState();
+		if (source != null) {
+			close(states.remove(keyOf(source)));
+		}
+		transition = new Span(Kind.TRANSITION, keyOf(source, definition));
+	}
+
+	@Override
+	public void sessionEnding(RequestContext context, FlowSession session, String outcome,
+			MutableAttributeMap<?> output) {
+		action = close(action);
+		transition = close(transition);
+		if (session.getState() != null) {
+			close(states.remove(keyOf(session.getState())));
+		}
+	}
+
+	@Override
+	public void paused(RequestContext context) {
+		closeAll();
+	}
+
+	@Override
+	public void requestProcessed(RequestContext context) {
+		closeAll();
+	}
+
+	@Override
+	public void exceptionThrown(RequestContext context, FlowExecutionException exception) {
+		states.clear();
+		action = null;
+		render = null;
+		transition = null;
+	}
+
+	private void closeAll() {
+		action = close(action);
+		render = close(render);
+		transition = close(transition);
+		states.values().forEach(this::close);
+		states.clear();
+	}
+
+	private Span close(Span span) {
+		if (span != null) {
+			span.close();
+		}
+		return null;
+	}
+
+	private static String keyOf(StateDefinition state) {
+		return state.getOwner().getId() + "#" + state.getId();
+	}
+
+	private static String keyOf(StateDefinition source, TransitionDefinition transition) {
+		String sourceKey = source != null ? keyOf(source) : "?";
+		String target = transition.getTargetStateId();
+		return sourceKey + "->" + (target != null ? target : source != null ? source.getId() : "?");
+	}
+
+	private static long currentCpuTime() {
+		return CPU_TIME_SUPPORTED ? THREADS.getCurrentThreadCpuTime() : -1;
+	}
+
+	private class Span {
+		private final Kind kind;
+		private final String element;
+		private final long wallStart = System.nanoTime();
+		private final long cpuStart = currentCpuTime();
+
+		Span(Kind kind, String element) {
+			this.kind = kind;
+			this.element = element;
+		}
+
+		void close() {
+			long cpuEnd = currentCpuTime();
+			long cpu = cpuStart >= 0 && cpuEnd >= 0 ? cpuEnd - cpuStart : -1;
+			timings.record(kind, element, System.nanoTime() - wallStart, cpu);
+		}
+	}
+}
@@ -0,0 +1,221 @@
+package de.lhug.webflowtester.executor;
+
+import de.lhug.webflowtester.builder.MockFlowBuilder;
+import de.lhug.webflowtester.executor.ReplayReport.Divergence;
+import de.lhug.webflowtester.executor.ReplayReport.Failure;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import org.springframework.util.Assert;
+import org.springframework.webflow.engine.Flow;
+
+/**
+ * Replays recorded user journeys against a {@link Flow} and reports where the
+ * flow behaves differently than recorded.
+ * <p>
+ * A trace holds one journey per line, as described by {@link Journey}: the
+ * input the flow has been started with, and the event and request parameters
+ * of every subsequent request, each optionally with the state entered. The
+ * trace is streamed line by line, so its size is not limited by the available
+ * memory. Journeys are replayed concurrently by the workers of a
+ * {@link MockFlowTesterPool}, each worker reusing its own
+ * {@link MockFlowTester}, while reading is paused as long as all workers are
+ * busy.
+ * </p>
+ * <p>
+ * A journey diverges if a state other than the recorded one is entered, or if
+ * the flow ends with another outcome. Only the first divergence of each
+ * journey is reported, as all later steps would not be meaningful.
+ * </p>
+ *
+ * <pre>
+ * ReplayReport report = TraceReplayer.from(builder, 8).replay(Paths.get("journeys.jsonl"));
+ *
+ * assertThat(report.getDivergences()).isEmpty();
+ * System.out.println(report.getLatencies().get("submit"));
+ * </pre>
+ */
+public final class TraceReplayer {
+
+	/**
+	 * Builds a replayer using a {@link MockFlowBuilder}.
+	 * <p>
+	 * The {@link MockFlowBuilder#buildFlow()} method is called exactly once, and
+	 * the resulting {@link Flow} is shared by all workers.
+	 *
+	 * @param builder an implementation of {@link MockFlowBuilder} to supply the
+	 *                {@link Flow} instance
+	 * @param workers the number of threads to replay journeys on, greater than 0
+	 * @return an initialized TraceReplayer
+	 */
+	public static TraceReplayer from(MockFlowBuilder builder, int workers) {
+		return new TraceReplayer(MockFlowTesterPool.from(builder, workers));
+	}
+
+	private final MockFlowTesterPool pool;
+
+	private TraceReplayer(MockFlowTesterPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Replays all journeys of the given UTF-8 encoded file.
+	 *
+	 * @param trace the file holding one journey per line
+	 * @return the report of the replay
+	 * @throws UncheckedIOException  if the file can not be read
+	 * @throws IllegalStateException if the calling thread is interrupted while
+	 *                               waiting for the workers
+	 */
+	public ReplayReport replay(Path trace) {
+		Assert.notNull(trace, "Trace may not be null");
+		try (Reader reader = Files.newBufferedReader(trace, StandardCharsets.UTF_8)) {
+			return replay(reader);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read trace " + trace, e);
+		}
+	}
+
+	/**
+	 * Replays all journeys read from the given reader, which is not closed.
+	 * Blank lines are skipped.
+	 *
+	 * @param trace the reader supplying one journey per line
+	 * @return the report of the replay
+	 * @throws UncheckedIOException  if the reader fails
+	 * @throws IllegalStateException if the calling thread is interrupted while
+	 *                               waiting for the workers
+	 */
+	public ReplayReport replay(Reader trace) {
+		Assert.notNull(trace, "Trace may not be null");
+		int maxInFlight = pool.getWorkers() * 4;
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		ThreadLocal<MockFlowTester> testers = ThreadLocal.withInitial(pool::newTester);
+		Replay replay = new Replay();
+		ExecutorService executor = Executors.newFixedThreadPool(pool.getWorkers());
+		try {
+			BufferedReader reader = trace instanceof BufferedReader ? (BufferedReader) trace
+					: new BufferedReader(trace);
+			long line = 0;
+			String json;
+			while ((json = reader.readLine()) != null) {
+				line++;
+				if (json.isBlank()) {
+					continue;
+				}
+				inFlight.acquire();
+				long current = line;
+				String journey = json;
+				executor.execute(() -> {
+					try {
+						replay.replay(testers.get(), journey, current);
+					} finally {
+						inFlight.release();
+					}
+				});
+			}
+			inFlight.acquire(maxInFlight);
+			return replay.toReport();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Could not read trace", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while replaying trace", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static final class Replay {
+
+		private final Collection<Divergence> divergences = new ConcurrentLinkedQueue<>();
+		private final Collection<Failure> failures = new ConcurrentLinkedQueue<>();
+		private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+		private final LongAdder journeys = new LongAdder();
+
+		private void replay(MockFlowTester tester, String json, long line) {
+			journeys.increment();
+			String journeyId = String.valueOf(line);
+			try {
+				Journey journey = Journey.parse(json, line);
+				journeyId = journey.getId();
+				replay(tester, journey);
+			} catch (RuntimeException | AssertionError e) {
+				failures.add(new Failure(journeyId, line, e));
+			}
+		}
+
+		private void replay(MockFlowTester tester, Journey journey) {
+			long start = System.nanoTime();
+			tester.startFlow(journey.getInput());
+			record(ReplayReport.START, start);
+			if (diverges(tester, journey, 0, null, journey.getState())) {
+				return;
+			}
+			List<Journey.Step> steps = journey.getSteps();
+			for (int i = 0; i < steps.size(); i++) {
+				Journey.Step step = steps.get(i);
+				Assert.state(!tester.executionHasEnded(),
+						"Flow execution ended before step " + (i + 1) + " '" + step.getEvent() + "'");
+				tester.setEventId(step.getEvent());
+				start = System.nanoTime();
+				tester.resumeFlow(step.getParameters());
+				record(step.getEvent(), start);
+				if (diverges(tester, journey, i + 1, step.getEvent(), step.getState())) {
+					return;
+				}
+			}
+			String lastEvent = steps.isEmpty() ? null : steps.get(steps.size() - 1).getEvent();
+			diverges(tester, journey, steps.size(), lastEvent, journey.getOutcome());
+		}
+
+		private void record(String key, long start) {
+			long nanos = System.nanoTime() - start;
+			latencies.computeIfAbsent(key, k -> new LatencyHistogram()).record(nanos);
+		}
+
+		private boolean diverges(MockFlowTester tester, Journey journey, int step, String eventId,
+				String expected) {
+			if (expected == null) {
+				return false;
+			}
+			String actual = tester.executionHasEnded() ? tester.getFlowOutcome() : tester.getCurrentStateId();
+			if (Objects.equals(expected, actual)) {
+				return false;
+			}
+			divergences.add(new Divergence(journey.getId(), journey.getLine(), step, eventId, expected, actual));
+			return true;
+		}
+
+		private ReplayReport toReport() {
+			return new ReplayReport(journeys.sum(), sortedByLine(divergences, Divergence::getLine),
+					sortedByLine(failures, Failure::getLine),
+					Collections.unmodifiableMap(new TreeMap<>(latencies)));
+		}
+
+		private static <T> List<T> sortedByLine(Collection<T> values, ToLongFunction<T> line) {
+			return values.stream()
+					.sorted(Comparator.comparingLong(line))
+					.collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package de.lhug.webflowtester.executor;
+
+import java.util.Collections;
+import java.util.List;
+import lombok.Getter;
+
+/**
+ * The outcome of a single worker of a {@link MockFlowTesterPool}.
+ *
+ * @param <T> the type of results returned by the scenario
+ */
+@Getter
+public final class WorkerResult<T> {
+
+	/**
+	 * The index of the worker, starting at 0
+	 */
+	private final int workerIndex;
+
+	/**
+	 * The results of all successful invocations, in invocation order
+	 */
+	private final List<T> results;
+
+	/**
+	 * The exceptions and assertion errors of all failed invocations
+	 */
+	private final List<Throwable> failures;
+
+	/**
+	 * The time the worker spent running its invocations, in nanoseconds
+	 */
+	private final long elapsedNanos;
+
+	WorkerResult(int workerIndex, List<T> results, List<Throwable> failures, long elapsedNanos) {
+		this.workerIndex = workerIndex;
+		this.results = Collections.unmodifiableList(results);
+		this.failures = Collections.unmodifiableList(failures);
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * @return the number of invocations run by this worker
+	 */
+	public int getInvocationCount() {
+		return results.size() + failures.size();
+	}
+}
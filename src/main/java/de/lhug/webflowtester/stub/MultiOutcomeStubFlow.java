@@ -0,0 +1,165 @@
+package de.lhug.webflowtester.stub;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+import org.springframework.webflow.core.collection.AttributeMap;
+import org.springframework.webflow.definition.FlowDefinition;
+import org.springframework.webflow.definition.registry.FlowDefinitionHolder;
+import org.springframework.webflow.engine.Flow;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Implementation of {@link FlowDefinitionHolder} to test Sub-Flows ending with
+ * one of several known outcomes.
+ *
+ * In contrast to {@link StubFlow}, all possible outcomes are declared up front,
+ * and a {@link Flow} is built once for each of them. Selecting another outcome
+ * using {@link #selectOutcome(String)} just switches between these flows, so
+ * tests alternating between outcomes, e.G. parameterized tests, never rebuild
+ * a flow.
+ */
+@EqualsAndHashCode(of = { "flowDefinitionId", "outcomes" })
+public class MultiOutcomeStubFlow implements FlowDefinitionHolder {
+
+	@Getter
+	private final String flowDefinitionId;
+
+	/**
+	 * All possible outcomes, in the order they have been declared
+	 */
+	@Getter
+	private final List<String> outcomes;
+	private final Map<String, Flow> flows = new HashMap<>();
+
+	private volatile Flow selectedFlow;
+	/**
+	 * The simulated latency and the statistics of the invocations of this stub
+	 */
+	@Getter
+	private final StubTiming timing;
+	private final StubFlowSupport support;
+
+	/**
+	 * Creates an instance of this {@link FlowDefinitionHolder}, building a
+	 * {@link Flow} for each of the passed outcomes.
+	 *
+	 * The first outcome is selected initially.
+	 *
+	 * @param flowId   the String identifying the flow, not {@code null}
+	 * @param outcomes the Strings which may be emitted as
+	 *                 {@link org.springframework.webflow.execution.FlowExecutionOutcome}
+	 *                 id, at least one, not {@code null} and without duplicates
+	 */
+	public MultiOutcomeStubFlow(String flowId, String... outcomes) {
+		Assert.notNull(flowId, "Flow Id may not be null");
+		Assert.notEmpty(outcomes, "At least one outcome is required");
+		Assert.noNullElements(outcomes, "Outcomes may not be null");
+		this.flowDefinitionId = flowId;
+		this.timing = new StubTiming(flowId);
+		this.support = new StubFlowSupport(timing);
+		Map<String, Flow> built = new LinkedHashMap<>();
+		for (String outcome : outcomes) {
+			Assert.isTrue(!built.containsKey(outcome), "Outcome " + outcome + " is declared more than once");
+			built.put(outcome, support.buildFlow(flowId, outcome));
+		}
+		this.flows.putAll(built);
+		this.outcomes = Collections.unmodifiableList(new ArrayList<>(built.keySet()));
+		this.selectedFlow = built.get(outcomes[0]);
+	}
+
+	/**
+	 * Selects the outcome emitted by all following invocations of the flow.
+	 *
+	 * This does not rebuild the flow, and can be called at any time.
+	 *
+	 * @param outcome one of the declared outcomes
+	 * @throws IllegalArgumentException if the outcome has not been declared
+	 */
+	public void selectOutcome(String outcome) {
+		Flow flow = flows.get(outcome);
+		Assert.isTrue(flow != null, "Outcome " + outcome + " is not one of " + outcomes);
+		selectedFlow = flow;
+	}
+
+	/**
+	 * @return the outcome emitted by the next invocation of the flow
+	 */
+	public String getSelectedOutcome() {
+		return selectedFlow.getPossibleOutcomes()[0];
+	}
+
+	/**
+	 * Returns the prebuilt {@link Flow} of the selected outcome.
+	 */
+	@Override
+	public FlowDefinition getFlowDefinition() {
+		return selectedFlow;
+	}
+
+	/**
+	 * Used to fetch the input arguments passed to the flow
+	 *
+	 * Specifically, this creates a copy of all captured input arguments, clears all
+	 * captured input arguments, and then returns the copy as an
+	 * {@link AttributeMap}
+	 *
+	 * @return a copy of all captured input attributes, never <code>null</code>
+	 * @see StubFlow#getInputAttributes()
+	 */
+	public AttributeMap<Object> getInputAttributes() {
+		return support.takeInputAttributes();
+	}
+
+	/**
+	 * Adds a single Parameter to be emitted when the flow ends, regardless of the
+	 * selected outcome
+	 *
+	 * @param key   the String key to which the value will be bound
+	 * @param value the actual value Object
+	 */
+	public void addOutputAttribute(String key, Object value) {
+		support.addOutputAttribute(key, value);
+	}
+
+	/**
+	 * Replaces all Parameters to be emitted when the flow ends, regardless of the
+	 * selected outcome
+	 *
+	 * @param outputAttributes the Map of keys and values to emit
+	 */
+	public void setOutputAttributes(Map<String, Object> outputAttributes) {
+		support.setOutputAttributes(outputAttributes);
+	}
+
+	/**
+	 * As stub flow does not mirror a resource, this will always return {@code null}
+	 */
+	@Override
+	public String getFlowDefinitionResourceString() {
+		return null;
+	}
+
+	/**
+	 * does nothing, as all flows are built up front
+	 */
+	@Override
+	public void refresh() {
+		// Intentionally left empty
+	}
+
+	/**
+	 * does nothing as no resources are bound
+	 */
+	@Override
+	public void destroy() {
+		// Intentionally left empty
+	}
+}
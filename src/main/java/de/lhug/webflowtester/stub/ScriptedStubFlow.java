@@ -0,0 +1,237 @@
+package de.lhug.webflowtester.stub;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.util.Assert;
+import org.springframework.webflow.core.collection.AttributeMap;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.definition.FlowDefinition;
+import org.springframework.webflow.definition.registry.FlowDefinitionHolder;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.RequestControlContext;
+import org.springframework.webflow.engine.State;
+import org.springframework.webflow.execution.FlowExecutionContext;
+import org.springframework.webflow.execution.FlowSession;
+
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Implementation of {@link FlowDefinitionHolder} determining the outcome and
+ * output of every invocation from its input, safe to be invoked by many
+ * executions in parallel.
+ *
+ * The {@link Flow} is built once. Every invocation keeps its input in its own
+ * flow session, passes it to the script to determine the {@link StubResult},
+ * and appends an {@link Invocation} to a lock-free log. Unlike
+ * {@link StubFlow}, inputs of parallel executions therefore never mix, and the
+ * invocations of a single execution can be told apart by
+ * {@link #getInvocations(FlowExecutionContext)}.
+ */
+@EqualsAndHashCode(of = "flowDefinitionId")
+public class ScriptedStubFlow implements FlowDefinitionHolder {
+
+	private static final String DISPATCH_STATE_ID = "dispatch";
+
+	@Getter
+	private final String flowDefinitionId;
+	private final Function<AttributeMap<Object>, StubResult> script;
+	private final Flow flow;
+	private final Collection<Invocation> invocations = new ConcurrentLinkedQueue<>();
+	/**
+	 * The simulated latency and the statistics of the invocations of this stub
+	 */
+	@Getter
+	private final StubTiming timing;
+
+	/**
+	 * Creates a stub determining the result of every invocation by applying the
+	 * given function to its input.
+	 *
+	 * @param flowId the String identifying the flow, not {@code null}
+	 * @param script the function receiving the input of an invocation and
+	 *               returning its result, not {@code null}; may be called
+	 *               concurrently
+	 */
+	public ScriptedStubFlow(String flowId, Function<AttributeMap<Object>, StubResult> script) {
+		Assert.notNull(flowId, "Flow Id may not be null");
+		Assert.notNull(script, "Script may not be null");
+		this.flowDefinitionId = flowId;
+		this.script = script;
+		this.timing = new StubTiming(flowId);
+		this.flow = buildFlow();
+	}
+
+	/**
+	 * Creates a stub returning the given results in order, one per invocation,
+	 * and the last one for all invocations after the script is exhausted.
+	 *
+	 * @param flowId  the String identifying the flow, not {@code null}
+	 * @param results the results to return, at least one
+	 * @return a new {@link ScriptedStubFlow}
+	 */
+	public static ScriptedStubFlow sequence(String flowId, StubResult... results) {
+		Assert.notEmpty(results, "At least one result is required");
+		Assert.noNullElements(results, "Results may not be null");
+		List<StubResult> script = Arrays.asList(results.clone());
+		AtomicInteger next = new AtomicInteger();
+		return new ScriptedStubFlow(flowId,
+				input -> script.get(Math.min(next.getAndIncrement(), script.size() - 1)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Flow buildFlow() {
+		Flow result = new Flow(flowDefinitionId);
+		result.setStartState(new DispatchState(result));
+		result.setInputMapper((input, context) -> {
+			if (input != null) {
+				((RequestControlContext) context).getFlowScope().putAll((AttributeMap<Object>) input);
+			}
+			return null;
+		});
+		return result;
+	}
+
+	@Override
+	public FlowDefinition getFlowDefinition() {
+		return flow;
+	}
+
+	/**
+	 * @return all invocations, in the order they have been logged
+	 */
+	public List<Invocation> getInvocations() {
+		return Collections.unmodifiableList(new ArrayList<>(invocations));
+	}
+
+	/**
+	 * Returns the invocations made by a single execution, e.G.
+	 * {@code tester.getCurrentFlowExecution()}.
+	 *
+	 * @param callerExecution the execution which invoked the stub
+	 * @return the invocations of the given execution, in the order they have been
+	 *         logged
+	 */
+	public List<Invocation> getInvocations(FlowExecutionContext callerExecution) {
+		return invocations.stream()
+				.filter(invocation -> invocation.getCallerExecution() == callerExecution)
+				.collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
+	}
+
+	/**
+	 * @return the number of logged invocations
+	 */
+	public int getInvocationCount() {
+		return invocations.size();
+	}
+
+	/**
+	 * Discards all logged invocations.
+	 */
+	public void clearInvocations() {
+		invocations.clear();
+	}
+
+	/**
+	 * As stub flow does not mirror a resource, this will always return {@code null}
+	 */
+	@Override
+	public String getFlowDefinitionResourceString() {
+		return null;
+	}
+
+	/**
+	 * does nothing, as the flow never changes
+	 */
+	@Override
+	public void refresh() {
+		// Intentionally left empty
+	}
+
+	/**
+	 * does nothing as no resources are bound
+	 */
+	@Override
+	public void destroy() {
+		// Intentionally left empty
+	}
+
+	/**
+	 * A single invocation of the stub
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	public static final class Invocation {
+
+		/**
+		 * The input passed to the flow, unmodifiable
+		 */
+		private final Map<String, Object> input;
+
+		/**
+		 * The execution which invoked the stub
+		 */
+		private final FlowExecutionContext callerExecution;
+
+		/**
+		 * The id of the flow invoking the stub, or {@code null} if the stub has
+		 * been started directly
+		 */
+		private final String callerFlowId;
+
+		/**
+		 * The id of the state invoking the stub, or {@code null} if the stub has
+		 * been started directly
+		 */
+		private final String callerStateId;
+
+		/**
+		 * The time of the invocation
+		 */
+		private final Instant timestamp;
+
+		/**
+		 * The result determined by the script
+		 */
+		private final StubResult result;
+
+		@Override
+		public String toString() {
+			return callerFlowId + "#" + callerStateId + " " + input + " -> " + result;
+		}
+	}
+
+	private final class DispatchState extends State {
+
+		private DispatchState(Flow flow) {
+			super(flow, DISPATCH_STATE_ID);
+		}
+
+		@Override
+		protected void doEnter(RequestControlContext context) {
+			Map<String, Object> input = Collections.unmodifiableMap(
+					new LinkedHashMap<>(context.getFlowScope().asMap()));
+			timing.invoke();
+			StubResult result = script.apply(new LocalAttributeMap<>(input));
+			Assert.state(result != null, "Script of stub flow " + flowDefinitionId + " returned no result");
+			FlowSession caller = context.getFlowExecutionContext().getActiveSession().getParent();
+			invocations.add(new Invocation(input, context.getFlowExecutionContext(),
+					caller != null ? caller.getDefinition().getId() : null,
+					caller != null ? caller.getState().getId() : null, Instant.now(), result));
+			context.endActiveFlowSession(result.getOutcome(), new LocalAttributeMap<>(result.getOutput()));
+		}
+	}
+}
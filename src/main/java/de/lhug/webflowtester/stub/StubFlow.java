@@ -1,20 +1,15 @@
 package de.lhug.webflowtester.stub;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import org.springframework.util.Assert;
 import org.springframework.webflow.core.collection.AttributeMap;
-import org.springframework.webflow.core.collection.LocalAttributeMap;
-import org.springframework.webflow.core.collection.MutableAttributeMap;
 import org.springframework.webflow.definition.FlowDefinition;
 import org.springframework.webflow.definition.registry.FlowDefinitionHolder;
-import org.springframework.webflow.engine.EndState;
 import org.springframework.webflow.engine.Flow;
 
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.Setter;
 
 /**
  * Implementation of {@link FlowDefinitionHolder} to allow easy testing of
@@ -28,11 +23,14 @@ public class StubFlow implements FlowDefinitionHolder {
 
 	@Getter
 	private String endStateId;
-	private final MutableAttributeMap<Object> inputAttributes = new LocalAttributeMap<>();
-	@Setter
-	private Map<String, Object> outputAttributes = new HashMap<>();
 
 	private Flow cachedFlow;
+	/**
+	 * The simulated latency and the statistics of the invocations of this stub
+	 */
+	@Getter
+	private final StubTiming timing;
+	private final StubFlowSupport support;
 
 	/**
 	 * Creates an initial instance of this {@link FlowDefinitionHolder}.
@@ -51,6 +49,8 @@ public class StubFlow implements FlowDefinitionHolder {
 		Assert.notNull(endStateId, "EndState Id may not be null");
 		this.flowDefinitionId = flowId;
 		this.endStateId = endStateId;
+		this.timing = new StubTiming(flowId);
+		this.support = new StubFlowSupport(timing);
 	}
 
 	/**
@@ -68,20 +68,10 @@ public class StubFlow implements FlowDefinitionHolder {
 		this.endStateId = endStateId;
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public FlowDefinition getFlowDefinition() {
 		if (cachedFlow == null || !cachedFlow.getPossibleOutcomes()[0].equals(endStateId)) {
-			cachedFlow = new Flow(flowDefinitionId);
-			new EndState(cachedFlow, endStateId);
-			cachedFlow.setInputMapper((inputMap, requestControlContext) -> {
-				inputAttributes.putAll((AttributeMap<Object>) inputMap);
-				return null;
-			});
-			cachedFlow.setOutputMapper((requestControlContext, outputMap) -> {
-				((MutableAttributeMap<Object>) outputMap).putAll(new LocalAttributeMap<>(outputAttributes));
-				return null;
-			});
+			cachedFlow = support.buildFlow(flowDefinitionId, endStateId);
 		}
 		return cachedFlow;
 	}
@@ -96,10 +86,7 @@ public class StubFlow implements FlowDefinitionHolder {
 	 * @return a copy of all captured input attributes, never <code>null</code>
 	 */
 	public AttributeMap<Object> getInputAttributes() {
-		MutableAttributeMap<Object> result = new LocalAttributeMap<>();
-		result.putAll(inputAttributes);
-		inputAttributes.clear();
-		return result;
+		return support.takeInputAttributes();
 	}
 
 	/**
@@ -112,7 +99,16 @@ public class StubFlow implements FlowDefinitionHolder {
 	 * @param value the actual value Object
 	 */
 	public void addOutputAttribute(String key, Object value) {
-		outputAttributes.put(key, value);
+		support.addOutputAttribute(key, value);
+	}
+
+	/**
+	 * Replaces all Parameters to be emitted when the flow ends
+	 *
+	 * @param outputAttributes the Map of keys and values to emit
+	 */
+	public void setOutputAttributes(Map<String, Object> outputAttributes) {
+		support.setOutputAttributes(outputAttributes);
 	}
 
 	/**
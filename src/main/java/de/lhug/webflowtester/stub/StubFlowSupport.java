@@ -0,0 +1,75 @@
+package de.lhug.webflowtester.stub;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.webflow.core.collection.AttributeMap;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.core.collection.MutableAttributeMap;
+import org.springframework.webflow.engine.EndState;
+import org.springframework.webflow.engine.Flow;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Builds the ending {@link Flow}s of {@link StubFlow} and
+ * {@link MultiOutcomeStubFlow}, captures the input of their invocations and
+ * holds the output they emit.
+ *
+ * The captured input is shared by all invocations. Capturing and fetching it
+ * is synchronized, but inputs of parallel executions are mixed, see
+ * {@link ScriptedStubFlow} for a stub telling them apart.
+ */
+@RequiredArgsConstructor
+final class StubFlowSupport {
+
+	private final StubTiming timing;
+	private final MutableAttributeMap<Object> inputAttributes = new LocalAttributeMap<>();
+	@Setter
+	private Map<String, Object> outputAttributes = new HashMap<>();
+
+	/**
+	 * Builds a {@link Flow} ending immediately with the given outcome, after
+	 * capturing its input and simulating the latency of the stub.
+	 *
+	 * @param flowId  the id of the flow
+	 * @param outcome the id of the single end state
+	 * @return the built {@link Flow}
+	 */
+	@SuppressWarnings("unchecked")
+	Flow buildFlow(String flowId, String outcome) {
+		Flow flow = new Flow(flowId);
+		new EndState(flow, outcome);
+		flow.setInputMapper((inputMap, requestControlContext) -> {
+			timing.invoke();
+			synchronized (inputAttributes) {
+				inputAttributes.putAll((AttributeMap<Object>) inputMap);
+			}
+			return null;
+		});
+		flow.setOutputMapper((requestControlContext, outputMap) -> {
+			((MutableAttributeMap<Object>) outputMap).putAll(new LocalAttributeMap<>(outputAttributes));
+			return null;
+		});
+		return flow;
+	}
+
+	/**
+	 * Creates a copy of all captured input attributes and clears them.
+	 *
+	 * @return the copy, never {@code null}
+	 */
+	AttributeMap<Object> takeInputAttributes() {
+		MutableAttributeMap<Object> result = new LocalAttributeMap<>();
+		synchronized (inputAttributes) {
+			result.putAll(inputAttributes);
+			inputAttributes.clear();
+		}
+		return result;
+	}
+
+	void addOutputAttribute(String key, Object value) {
+		outputAttributes.put(key, value);
+	}
+}
@@ -0,0 +1,77 @@
+package de.lhug.webflowtester.stub;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.springframework.util.Assert;
+
+/**
+ * Distribution of the time a stubbed sub flow takes to run, to simulate slow
+ * downstream work in load tests.
+ *
+ * Implementations are called by every invocation of a stub, possibly
+ * concurrently, and must therefore be thread safe.
+ *
+ * @see StubTiming#setLatency(StubLatency)
+ * @see StubStatistics
+ */
+@FunctionalInterface
+public interface StubLatency {
+
+	/**
+	 * @return the time the next invocation takes, in nanoseconds
+	 */
+	long nextNanos();
+
+	/**
+	 * @return a latency letting every invocation end immediately
+	 */
+	static StubLatency none() {
+		return () -> 0L;
+	}
+
+	/**
+	 * @param latency the time every invocation takes, not negative
+	 * @return a latency of the same duration for every invocation
+	 */
+	static StubLatency fixed(Duration latency) {
+		Assert.isTrue(latency != null && !latency.isNegative(), "Latency may not be negative");
+		long nanos = latency.toNanos();
+		return () -> nanos;
+	}
+
+	/**
+	 * @param min the shortest time an invocation takes, not negative
+	 * @param max the longest time an invocation takes, not shorter than
+	 *            {@code min}
+	 * @return a latency uniformly distributed between both durations
+	 */
+	static StubLatency uniform(Duration min, Duration max) {
+		Assert.isTrue(min != null && !min.isNegative(), "Minimum latency may not be negative");
+		Assert.isTrue(max != null && max.compareTo(min) >= 0, "Maximum latency may not be less than minimum");
+		long minNanos = min.toNanos();
+		long maxNanos = max.toNanos();
+		return () -> minNanos == maxNanos ? minNanos : ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+	}
+
+	/**
+	 * Creates a latency replaying recorded durations, e.G. response times of
+	 * the real sub flow measured in production. Every invocation takes one of
+	 * the samples, chosen at random, so that the distribution of the samples is
+	 * preserved.
+	 *
+	 * @param samples the recorded durations, at least one, none negative
+	 * @return a latency drawn from the samples
+	 */
+	static StubLatency sampled(Collection<Duration> samples) {
+		Assert.notEmpty(samples, "At least one sample is required");
+		long[] nanos = new long[samples.size()];
+		int index = 0;
+		for (Duration sample : samples) {
+			Assert.isTrue(sample != null && !sample.isNegative(), "Samples may not be negative");
+			nanos[index++] = sample.toNanos();
+		}
+		return () -> nanos[ThreadLocalRandom.current().nextInt(nanos.length)];
+	}
+}
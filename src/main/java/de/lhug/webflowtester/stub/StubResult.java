@@ -0,0 +1,63 @@
+package de.lhug.webflowtester.stub;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.util.Assert;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Immutable result of a single invocation of a {@link ScriptedStubFlow},
+ * consisting of the outcome and the output attributes to emit.
+ */
+@Getter
+@EqualsAndHashCode
+public final class StubResult {
+
+	/**
+	 * The id of the {@link org.springframework.webflow.execution.FlowExecutionOutcome}
+	 */
+	private final String outcome;
+
+	/**
+	 * The attributes emitted as output of the flow, unmodifiable
+	 */
+	private final Map<String, Object> output;
+
+	private StubResult(String outcome, Map<String, Object> output) {
+		this.outcome = outcome;
+		this.output = Collections.unmodifiableMap(output);
+	}
+
+	/**
+	 * Creates a result ending the flow with the given outcome, without output.
+	 *
+	 * @param outcome the outcome id, not {@code null}
+	 * @return a new {@link StubResult}
+	 */
+	public static StubResult outcome(String outcome) {
+		Assert.notNull(outcome, "Outcome may not be null");
+		return new StubResult(outcome, new LinkedHashMap<>());
+	}
+
+	/**
+	 * Creates a copy of this result emitting an additional output attribute.
+	 *
+	 * @param key   the String key to which the value will be bound
+	 * @param value the actual value Object
+	 * @return a new {@link StubResult}
+	 */
+	public StubResult withOutput(String key, Object value) {
+		Map<String, Object> result = new LinkedHashMap<>(output);
+		result.put(key, value);
+		return new StubResult(outcome, result);
+	}
+
+	@Override
+	public String toString() {
+		return outcome + output;
+	}
+}
@@ -0,0 +1,108 @@
+package de.lhug.webflowtester.stub;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.springframework.util.Assert;
+
+import de.lhug.webflowtester.executor.LatencyHistogram;
+
+import lombok.Getter;
+
+/**
+ * Invocation count and latencies of a single stubbed sub flow.
+ *
+ * Every invocation of a {@link StubFlow}, {@link MultiOutcomeStubFlow} or
+ * {@link ScriptedStubFlow} is counted, and the time it spent simulating work
+ * according to its {@link StubLatency} is recorded. Comparing these with the
+ * throughput of the parent flow shows how the parent degrades when a sub flow
+ * slows down.
+ *
+ * @see StubTiming#getStatistics()
+ */
+public final class StubStatistics {
+
+	/**
+	 * Sums up the statistics of stubs with the same id, e.G. of the stubs
+	 * registered for several flows under test sharing a sub flow.
+	 *
+	 * The returned statistics are a snapshot, further invocations of the stubs
+	 * are not reflected.
+	 *
+	 * @param statistics the statistics to sum up, not {@code null}
+	 * @return the summed up statistics, by stub id, sorted by id
+	 */
+	public static Map<String, StubStatistics> byStubId(Collection<StubStatistics> statistics) {
+		Assert.notNull(statistics, "Statistics may not be null");
+		Map<String, StubStatistics> result = new TreeMap<>();
+		for (StubStatistics single : statistics) {
+			result.computeIfAbsent(single.getStubId(), StubStatistics::new).add(single);
+		}
+		return Collections.unmodifiableMap(result);
+	}
+
+	/**
+	 * The flow id of the stub
+	 */
+	@Getter
+	private final String stubId;
+
+	/**
+	 * The time the invocations spent simulating work
+	 */
+	@Getter
+	private final LatencyHistogram latencies = new LatencyHistogram();
+
+	private final LongAdder invocations = new LongAdder();
+
+	StubStatistics(String stubId) {
+		this.stubId = stubId;
+	}
+
+	/**
+	 * Counts an invocation and blocks the calling thread for the next duration
+	 * of the given latency.
+	 *
+	 * @param latency the {@link StubLatency} of the invoked stub
+	 */
+	void invoke(StubLatency latency) {
+		invocations.increment();
+		long start = System.nanoTime();
+		long nanos = latency.nextNanos();
+		long remaining = nanos;
+		while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+			LockSupport.parkNanos(remaining);
+			remaining = nanos - (System.nanoTime() - start);
+		}
+		latencies.record(System.nanoTime() - start);
+	}
+
+	private void add(StubStatistics other) {
+		invocations.add(other.getInvocationCount());
+		latencies.add(other.latencies);
+	}
+
+	/**
+	 * @return the number of invocations
+	 */
+	public long getInvocationCount() {
+		return invocations.sum();
+	}
+
+	/**
+	 * Discards the counted invocations and recorded latencies.
+	 */
+	public void reset() {
+		invocations.reset();
+		latencies.reset();
+	}
+
+	@Override
+	public String toString() {
+		return stubId + ": invocations=" + getInvocationCount() + ", " + latencies;
+	}
+}
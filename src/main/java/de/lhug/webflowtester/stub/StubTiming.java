@@ -0,0 +1,52 @@
+package de.lhug.webflowtester.stub;
+
+import org.springframework.util.Assert;
+
+import lombok.Getter;
+
+/**
+ * Latency simulated by a single stubbed sub flow, and the statistics of its
+ * invocations.
+ *
+ * Every {@link StubFlow}, {@link MultiOutcomeStubFlow} and
+ * {@link ScriptedStubFlow} owns one instance, which every invocation of the
+ * stub passes through before it ends.
+ */
+public final class StubTiming {
+
+	/**
+	 * The time every invocation of the stub takes before it ends
+	 */
+	@Getter
+	private volatile StubLatency latency = StubLatency.none();
+
+	/**
+	 * The invocation count and latencies of the stub
+	 */
+	@Getter
+	private final StubStatistics statistics;
+
+	StubTiming(String stubId) {
+		this.statistics = new StubStatistics(stubId);
+	}
+
+	/**
+	 * Sets the time every invocation of the stub takes before it ends, e.G. to
+	 * simulate a slow sub flow in load tests. By default, invocations end
+	 * immediately.
+	 *
+	 * @param latency the {@link StubLatency} to simulate, not {@code null}
+	 */
+	public void setLatency(StubLatency latency) {
+		Assert.notNull(latency, "Latency may not be null");
+		this.latency = latency;
+	}
+
+	/**
+	 * Counts an invocation of the stub and blocks the calling thread for the
+	 * next duration of the latency.
+	 */
+	void invoke() {
+		statistics.invoke(latency);
+	}
+}
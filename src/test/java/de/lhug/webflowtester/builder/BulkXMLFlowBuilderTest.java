@@ -0,0 +1,67 @@
+package de.lhug.webflowtester.builder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.configuration.FlowTestContext;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.webflow.definition.registry.NoSuchFlowDefinitionException;
+
+class BulkXMLFlowBuilderTest {
+
+	private BulkXMLFlowBuilder sut;
+
+	@Test
+	void shouldBuildAllFlowsBelowBasePath() {
+		sut = new BulkXMLFlowBuilder("classpath:simpleFlows");
+
+		var result = sut.build();
+
+		assertThat(result.isSuccessful()).isTrue();
+		assertThat(result.getRegistry().getFlowDefinitionIds()).containsExactlyInAnyOrder("flowWithOutput",
+				"messageAddingFlow", "flowWithDependentBeans", "standaloneFlow", "flowWithInput");
+		assertThat(result.getFlow("standaloneFlow").getStateIds()).containsExactly("start", "step", "bye");
+		assertThat(result.getTimings()).containsOnlyKeys(result.getRegistry().getFlowDefinitionIds());
+	}
+
+	@Test
+	void shouldResolveParentFlowsAndSkipAbstractFlows() {
+		sut = new BulkXMLFlowBuilder("classpath:inheritanceFlows").withPool(new ForkJoinPool(2));
+
+		var result = sut.build();
+
+		assertThat(result.isSuccessful()).isTrue();
+		assertThat(result.getFlow("childFlow").getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(result.getTimings()).containsOnlyKeys("parentFlow", "childFlow");
+		assertThatThrownBy(() -> result.getFlow("parentFlow"))
+				.isInstanceOf(NoSuchFlowDefinitionException.class);
+	}
+
+	@Test
+	void shouldReportFlowsWithMissingParents() {
+		sut = new BulkXMLFlowBuilder("classpath:inheritanceFlows").withPattern("childFlow.xml");
+
+		var result = sut.build();
+
+		assertThat(result.isSuccessful()).isFalse();
+		assertThat(result.getFailures()).containsOnlyKeys("childFlow");
+		assertThat(result.getFailures().get("childFlow"))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("parentFlow");
+		assertThat(result.getRegistry().getFlowDefinitionCount()).isZero();
+	}
+
+	@Test
+	void shouldRegisterContextWithEveryFlow() {
+		var context = new FlowTestContext();
+		context.addBean("someBean", new Object());
+		sut = new BulkXMLFlowBuilder("classpath:simpleFlows").withContext(context);
+
+		var result = sut.build();
+
+		assertThat(result.getFlow("flowWithDependentBeans").getApplicationContext().containsBean("someBean"))
+				.isTrue();
+		assertThat(result.getFlow("standaloneFlow").getApplicationContext().containsBean("someBean")).isTrue();
+	}
+}
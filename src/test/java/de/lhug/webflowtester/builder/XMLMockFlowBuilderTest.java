@@ -6,13 +6,24 @@ import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 import de.lhug.webflowtester.builder.configuration.FlowTestContext;
 import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import de.lhug.webflowtester.builder.cache.SharedFlowModelRegistry;
+import de.lhug.webflowtester.builder.context.LightweightApplicationContext;
+import de.lhug.webflowtester.executor.MockFlowTester;
 import de.lhug.webflowtester.stub.StubFlow;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
 import java.util.Locale;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.webflow.config.FlowDefinitionResource;
 import org.springframework.webflow.definition.registry.NoSuchFlowDefinitionException;
 import org.springframework.webflow.test.MockRequestControlContext;
 
@@ -55,6 +66,53 @@ class XMLMockFlowBuilderTest {
 		assertThat(result.getApplicationContext().containsBean("someBean")).isTrue();
 	}
 
+	@Test
+	void shouldBuildFlowWithLightweightContext() {
+		configuration = new XMLMockFlowConfiguration("/simpleFlows/flowWithDependentBeans.xml");
+		context.getMessages(Locale.getDefault()).addMessage("key", "value");
+		sut = new XMLMockFlowBuilder(configuration);
+		sut.withContext(context);
+		sut.withLightweightContext();
+
+		var result = sut.buildFlow().getApplicationContext();
+
+		assertThat(result.getParent()).isInstanceOf(LightweightApplicationContext.class);
+		assertThat(result.getBean("someBean")).isInstanceOf(SomeBean.class);
+		assertThat(result.getMessage("key", null, Locale.getDefault())).isEqualTo("value");
+	}
+
+	@Test
+	void shouldResolveBeansOfParentContext() {
+		var parent = new StaticApplicationContext();
+		parent.getBeanFactory().registerSingleton("someBean", new SomeBean("from parent"));
+		parent.refresh();
+		configuration = new XMLMockFlowConfiguration("/simpleFlows/flowWithDependentBeans.xml");
+		sut = new XMLMockFlowBuilder(configuration);
+		sut.withParentContext(parent);
+		var tester = MockFlowTester.from(sut);
+
+		tester.startFlow();
+
+		assertThat(tester.getOutputAttributes().get("message")).isEqualTo("from parent");
+	}
+
+	@Test
+	void shouldPreferContextBeansOverParentBeansInLightweightContext() {
+		var parent = new StaticApplicationContext();
+		parent.getBeanFactory().registerSingleton("someBean", new SomeBean("from parent"));
+		parent.refresh();
+		configuration = new XMLMockFlowConfiguration("/simpleFlows/flowWithDependentBeans.xml");
+		sut = new XMLMockFlowBuilder(configuration);
+		sut.withContext(context);
+		sut.withLightweightContext();
+		sut.withParentContext(parent);
+		var tester = MockFlowTester.from(sut);
+
+		tester.startFlow();
+
+		assertThat(tester.getOutputAttributes().get("message")).isEqualTo("I am groot");
+	}
+
 	@Test
 	void shouldOnlyBuildFlowOnce() {
 		assertThat(sut.buildFlow()).isSameAs(sut.buildFlow());
@@ -127,4 +185,54 @@ class XMLMockFlowBuilderTest {
 		assertThatThrownBy(() -> applicationContext.getMessage("key", null, locale))
 				.isInstanceOf(NoSuchMessageException.class);
 	}
+
+	@Test
+	void shouldReturnMainResourceFollowedByParentResources() {
+		configuration = new XMLMockFlowConfiguration("/inheritanceFlows/childFlow.xml");
+		configuration.addParentFlow("/inheritanceFlows/parentFlow.xml");
+		sut = new XMLMockFlowBuilder(configuration);
+
+		var result = sut.getResources();
+
+		assertThat(result).extracting(FlowDefinitionResource::getId).containsExactly("childFlow", "parentFlow");
+	}
+
+	@Test
+	void shouldParseOnlyChangedModelsAndTheirChildrenOnRebuild(@TempDir Path directory) throws IOException {
+		Path child = copy("/inheritanceFlows/childFlow.xml", directory.resolve("childFlow.xml"));
+		Path parent = copy("/inheritanceFlows/parentFlow.xml", directory.resolve("parentFlow.xml"));
+		configuration = new XMLMockFlowConfiguration(child.toFile());
+		configuration.addParentFlow(parent.toFile());
+		var registry = new SharedFlowModelRegistry();
+		sut = new XMLMockFlowBuilder(configuration).withSharedModelRegistry(registry);
+		var first = sut.buildFlow();
+
+		var unchanged = sut.rebuildFlow();
+		assertThat(unchanged).isNotSameAs(first);
+		assertThat(registry.getMissCount()).isEqualTo(2);
+		assertThat(registry.getHitCount()).isZero();
+
+		edit(child, "child-entry", "renamed-entry");
+		var changedChild = sut.rebuildFlow();
+		assertThat(changedChild.getStateIds()).containsExactly("renamed-entry", "end", "motherKnowsBest");
+		assertThat(registry.getMissCount()).isEqualTo(3);
+
+		edit(parent, "motherKnowsBest", "fatherKnowsBest");
+		var changedParent = sut.rebuildFlow();
+		assertThat(changedParent.getStateIds()).containsExactly("renamed-entry", "end", "fatherKnowsBest");
+		assertThat(registry.getMissCount()).isEqualTo(5);
+	}
+
+	private Path copy(String resource, Path target) throws IOException {
+		try (var in = getClass().getResourceAsStream(resource)) {
+			Files.copy(in, target);
+		}
+		return target;
+	}
+
+	private void edit(Path file, String search, String replacement) throws IOException {
+		FileTime lastModified = Files.getLastModifiedTime(file);
+		Files.writeString(file, Files.readString(file).replace(search, replacement), StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(file, FileTime.fromMillis(lastModified.toMillis() + 2000));
+	}
 }
@@ -0,0 +1,164 @@
+package de.lhug.webflowtester.builder.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.FlowTestContext;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.util.Locale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.webflow.engine.Flow;
+
+class FlowCacheTest {
+
+	private FlowCache sut;
+
+	@BeforeEach
+	void setUp() {
+		sut = new FlowCache(10, Long.MAX_VALUE);
+	}
+
+	private Flow build(String location, FlowTestContext context) {
+		return new XMLMockFlowBuilder(new XMLMockFlowConfiguration(location))
+				.withFlowCache(sut)
+				.withContext(context)
+				.buildFlow();
+	}
+
+	@Test
+	void shouldRejectNonPositiveLimits() {
+		assertThatThrownBy(() -> new FlowCache(0, 1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new FlowCache(1, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldShareFlowBetweenBuildersWithEqualConfiguration() {
+		Flow first = build("/simpleFlows/standaloneFlow.xml", null);
+		Flow second = build("/simpleFlows/standaloneFlow.xml", null);
+
+		assertThat(second).isSameAs(first);
+		assertThat(sut.getStatistics().getHitCount()).isEqualTo(1);
+		assertThat(sut.getStatistics().getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldNotShareFlowBetweenBuildersOfSameResourceWithDifferentIds() {
+		Flow first = new XMLMockFlowBuilder(
+				new XMLMockFlowConfiguration("/", "/simpleFlows/standaloneFlow.xml"))
+				.withFlowCache(sut)
+				.buildFlow();
+
+		Flow result = new XMLMockFlowBuilder(
+				new XMLMockFlowConfiguration("/simpleFlows", "/simpleFlows/standaloneFlow.xml"))
+				.withFlowCache(sut)
+				.buildFlow();
+
+		assertThat(first.getId()).isEqualTo("simpleFlows");
+		assertThat(result.getId()).isEqualTo("standaloneFlow");
+		assertThat(sut.getStatistics().getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldNotShareFlowBetweenBuildersWithDifferentSettings() {
+		Flow result = build("/simpleFlows/standaloneFlow.xml", null);
+
+		assertThat(new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml"))
+				.withFlowCache(sut)
+				.withSpelCompilerMode(SpelCompilerMode.IMMEDIATE)
+				.buildFlow()).isNotSameAs(result);
+		assertThat(new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml"))
+				.withFlowCache(sut)
+				.withSharedServices()
+				.buildFlow()).isNotSameAs(result);
+		assertThat(new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml"))
+				.withFlowCache(sut)
+				.withLightweightContext()
+				.buildFlow()).isNotSameAs(result);
+		assertThat(sut.getStatistics().getMissCount()).isEqualTo(4);
+	}
+
+	@Test
+	void shouldShareFlowBetweenBuildersWithSameBeansAndEqualMessages() {
+		Object bean = new Object();
+		FlowTestContext first = new FlowTestContext();
+		first.addBean("someBean", bean);
+		first.addMessage(Locale.GERMAN, "key", "value");
+		FlowTestContext second = new FlowTestContext();
+		second.addBean("someBean", bean);
+		second.addMessage(Locale.GERMAN, "key", "value");
+
+		Flow result = build("/simpleFlows/standaloneFlow.xml", first);
+
+		assertThat(build("/simpleFlows/standaloneFlow.xml", second)).isSameAs(result);
+	}
+
+	@Test
+	void shouldNotShareFlowBetweenBuildersWithDifferentBeanInstances() {
+		FlowTestContext first = new FlowTestContext();
+		first.addBean("someBean", new Object());
+		FlowTestContext second = new FlowTestContext();
+		second.addBean("someBean", new Object());
+
+		Flow result = build("/simpleFlows/standaloneFlow.xml", first);
+
+		assertThat(build("/simpleFlows/standaloneFlow.xml", second)).isNotSameAs(result);
+		assertThat(sut.getStatistics().getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldNotShareFlowBetweenBuildersWithDifferentMessages() {
+		FlowTestContext first = new FlowTestContext();
+		first.addMessage(Locale.GERMAN, "key", "value");
+		FlowTestContext second = new FlowTestContext();
+		second.addMessage(Locale.GERMAN, "key", "other value");
+
+		Flow result = build("/simpleFlows/standaloneFlow.xml", first);
+
+		assertThat(build("/simpleFlows/standaloneFlow.xml", second)).isNotSameAs(result);
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedEntryWhenMaxEntriesAreExceeded() {
+		sut = new FlowCache(2, Long.MAX_VALUE);
+		Flow standalone = build("/simpleFlows/standaloneFlow.xml", null);
+		build("/simpleFlows/flowWithInput.xml", null);
+		build("/simpleFlows/standaloneFlow.xml", null);
+
+		build("/simpleFlows/flowWithOutput.xml", null);
+
+		FlowCache.Statistics statistics = sut.getStatistics();
+		assertThat(statistics.getEvictionCount()).isEqualTo(1);
+		assertThat(statistics.getSize()).isEqualTo(2);
+		assertThat(build("/simpleFlows/standaloneFlow.xml", null)).isSameAs(standalone);
+	}
+
+	@Test
+	void shouldEvictEntriesWhenMaxWeightIsExceeded() {
+		sut = new FlowCache(10, 1);
+		build("/simpleFlows/standaloneFlow.xml", null);
+
+		Flow latest = build("/simpleFlows/flowWithInput.xml", null);
+
+		FlowCache.Statistics statistics = sut.getStatistics();
+		assertThat(statistics.getEvictionCount()).isEqualTo(1);
+		assertThat(statistics.getSize()).isEqualTo(1);
+		assertThat(build("/simpleFlows/flowWithInput.xml", null)).isSameAs(latest);
+	}
+
+	@Test
+	void shouldKeepCountersWhenCleared() {
+		build("/simpleFlows/standaloneFlow.xml", null);
+
+		sut.clear();
+
+		FlowCache.Statistics statistics = sut.getStatistics();
+		assertThat(statistics.getSize()).isZero();
+		assertThat(statistics.getWeight()).isZero();
+		assertThat(statistics.getMissCount()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,154 @@
+package de.lhug.webflowtester.builder.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.webflow.engine.Flow;
+
+class FlowModelCacheTest {
+
+	@TempDir
+	Path temporaryDirectory;
+
+	private Path cacheDirectory;
+	private Path flowDirectory;
+	private File childFlow;
+	private File parentFlow;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		cacheDirectory = temporaryDirectory.resolve("cache");
+		flowDirectory = Files.createDirectory(temporaryDirectory.resolve("flows"));
+		childFlow = copy("/inheritanceFlows/childFlow.xml", "childFlow.xml");
+		parentFlow = copy("/inheritanceFlows/parentFlow.xml", "parentFlow.xml");
+	}
+
+	private File copy(String resource, String fileName) throws IOException {
+		Path target = flowDirectory.resolve(fileName);
+		try (var in = getClass().getResourceAsStream(resource)) {
+			Files.copy(in, target);
+		}
+		return target.toFile();
+	}
+
+	private Flow build(FlowModelCache cache) {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration(childFlow);
+		configuration.addParentFlow(parentFlow);
+		return new XMLMockFlowBuilder(configuration)
+				.withModelCache(cache)
+				.buildFlow();
+	}
+
+	@Test
+	void shouldStoreParsedModelsInDirectory() throws IOException {
+		FlowModelCache sut = new FlowModelCache(cacheDirectory);
+
+		Flow result = build(sut);
+
+		assertThat(result.getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(sut.getMissCount()).isEqualTo(2);
+		try (Stream<Path> entries = Files.list(cacheDirectory)) {
+			assertThat(entries).hasSize(2);
+		}
+	}
+
+	@Test
+	void shouldLoadModelFromDirectoryInsteadOfParsing() {
+		build(new FlowModelCache(cacheDirectory));
+		FlowModelCache sut = new FlowModelCache(cacheDirectory);
+
+		Flow result = build(sut);
+
+		assertThat(result.getId()).isEqualTo("childFlow");
+		assertThat(result.getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(sut.getHitCount()).isEqualTo(1);
+		assertThat(sut.getMissCount()).isZero();
+	}
+
+	@Test
+	void shouldParseAgainWhenParentFlowChanges() throws IOException {
+		build(new FlowModelCache(cacheDirectory));
+		String parent = Files.readString(parentFlow.toPath(), StandardCharsets.UTF_8);
+		Files.writeString(parentFlow.toPath(),
+				parent.replace("<end-state id=\"end\" />", "<end-state id=\"end\" /><end-state id=\"added\" />"),
+				StandardCharsets.UTF_8);
+		FlowModelCache sut = new FlowModelCache(cacheDirectory);
+
+		Flow result = build(sut);
+
+		assertThat(result.getStateIds()).contains("added");
+		assertThat(sut.getHitCount()).isZero();
+	}
+
+	@Test
+	void shouldTreatUnreadableEntriesAsMisses() throws IOException {
+		build(new FlowModelCache(cacheDirectory));
+		try (Stream<Path> entries = Files.list(cacheDirectory)) {
+			for (Path entry : (Iterable<Path>) entries::iterator) {
+				Files.write(entry, new byte[] { 1, 2, 3 });
+			}
+		}
+		FlowModelCache sut = new FlowModelCache(cacheDirectory);
+
+		Flow result = build(sut);
+
+		assertThat(result.getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(sut.getHitCount()).isZero();
+	}
+
+	@Test
+	void shouldDeleteCorruptEntriesAndTreatThemAsMisses() throws IOException {
+		build(new FlowModelCache(cacheDirectory));
+		try (Stream<Path> entries = Files.list(cacheDirectory)) {
+			for (Path entry : (Iterable<Path>) entries::iterator) {
+				corrupt(entry);
+			}
+		}
+		FlowModelCache sut = new FlowModelCache(cacheDirectory);
+
+		Flow result = build(sut);
+
+		assertThat(result.getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(sut.getHitCount()).isZero();
+		assertThat(sut.getMissCount()).isEqualTo(2);
+	}
+
+	/**
+	 * Keeps the header of the entry, but replaces the model with a reference to
+	 * a string which has never been written, followed by a negative length
+	 */
+	private static void corrupt(Path entry) throws IOException {
+		int formatVersion;
+		String webFlowVersion;
+		try (var in = new DataInputStream(new GZIPInputStream(Files.newInputStream(entry)))) {
+			formatVersion = in.readInt();
+			webFlowVersion = in.readUTF();
+		}
+		var bytes = new ByteArrayOutputStream();
+		try (var out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+			out.writeInt(formatVersion);
+			out.writeUTF(webFlowVersion);
+			out.writeByte(4);
+			out.writeByte(2);
+			out.writeInt(42);
+			out.writeByte(1);
+			out.writeInt(-1);
+		}
+		Files.write(entry, bytes.toByteArray());
+	}
+}
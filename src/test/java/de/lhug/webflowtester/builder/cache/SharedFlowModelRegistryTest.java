@@ -0,0 +1,136 @@
+package de.lhug.webflowtester.builder.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.webflow.engine.Flow;
+
+class SharedFlowModelRegistryTest {
+
+	@TempDir
+	Path flowDirectory;
+
+	private File childFlow;
+	private File otherChildFlow;
+	private File parentFlow;
+
+	private SharedFlowModelRegistry sut;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		childFlow = copy("/inheritanceFlows/childFlow.xml", "childFlow.xml");
+		otherChildFlow = copy("/inheritanceFlows/childFlow.xml", "otherChildFlow.xml");
+		Files.writeString(otherChildFlow.toPath(), Files.readString(otherChildFlow.toPath())
+				.replace("child-entry", "other-entry"), StandardCharsets.UTF_8);
+		parentFlow = copy("/inheritanceFlows/parentFlow.xml", "parentFlow.xml");
+		sut = new SharedFlowModelRegistry();
+	}
+
+	private File copy(String resource, String fileName) throws IOException {
+		Path target = flowDirectory.resolve(fileName);
+		try (var in = getClass().getResourceAsStream(resource)) {
+			Files.copy(in, target);
+		}
+		return target.toFile();
+	}
+
+	private Flow build(File child) {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration(child);
+		configuration.addParentFlow(parentFlow);
+		return new XMLMockFlowBuilder(configuration)
+				.withSharedModelRegistry(sut)
+				.buildFlow();
+	}
+
+	@Test
+	void shouldParseParentOnlyOnceForAllChildren() {
+		Flow first = build(childFlow);
+		Flow second = build(otherChildFlow);
+
+		assertThat(first.getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(second.getStateIds()).containsExactly("other-entry", "end", "motherKnowsBest");
+		assertThat(sut.getMissCount()).isEqualTo(3);
+		assertThat(sut.getHitCount()).isEqualTo(1);
+		assertThat(sut.getSize()).isEqualTo(3);
+	}
+
+	@Test
+	void shouldReuseMergedModelOfChild() {
+		build(childFlow);
+
+		Flow result = build(childFlow);
+
+		assertThat(result.getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(sut.getMissCount()).isEqualTo(2);
+		assertThat(sut.getHitCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldParseAgainWhenParentChanges() throws IOException {
+		build(childFlow);
+		Files.writeString(parentFlow.toPath(), Files.readString(parentFlow.toPath())
+				.replace("Let it be", "Let it go"), StandardCharsets.UTF_8);
+
+		Flow result = build(childFlow);
+
+		assertThat(result.getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+		assertThat(sut.getMissCount()).isEqualTo(4);
+	}
+
+	@Test
+	void shouldRemoveModelsOfPreviousContents() throws IOException {
+		build(childFlow);
+		for (String name : List.of("Let it go", "Let it rest", "Let it end")) {
+			Files.writeString(parentFlow.toPath(), Files.readString(parentFlow.toPath())
+					.replaceAll("Let it \\w+", name), StandardCharsets.UTF_8);
+			build(childFlow);
+		}
+
+		assertThat(sut.getMissCount()).isEqualTo(8);
+		assertThat(sut.getSize()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldParseOnceWhenBuildingConcurrently() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Flow>> flows = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				flows.add(executor.submit(() -> build(childFlow)));
+			}
+			for (Future<Flow> flow : flows) {
+				assertThat(flow.get().getStateIds()).containsExactly("child-entry", "end", "motherKnowsBest");
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(sut.getMissCount()).isEqualTo(2);
+		assertThat(sut.getHitCount()).isEqualTo(7);
+	}
+
+	@Test
+	void shouldForgetModelsWhenCleared() {
+		build(childFlow);
+
+		sut.clear();
+
+		assertThat(sut.getSize()).isZero();
+		build(childFlow);
+		assertThat(sut.getMissCount()).isEqualTo(4);
+	}
+}
@@ -0,0 +1,120 @@
+package de.lhug.webflowtester.builder.context;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Locale;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.NoUniqueBeanDefinitionException;
+import org.springframework.context.NoSuchMessageException;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.context.support.StaticApplicationContext;
+
+class LightweightApplicationContextTest {
+
+	private LightweightApplicationContext sut;
+
+	@BeforeEach
+	void setUp() {
+		sut = new LightweightApplicationContext();
+	}
+
+	@Test
+	void shouldReturnRegisteredBeanByName() {
+		sut.registerBean("text", "value");
+
+		assertThat(sut.containsBean("text")).isTrue();
+		assertThat(sut.getBean("text")).isEqualTo("value");
+		assertThat(sut.getBean("text", CharSequence.class)).isEqualTo("value");
+		assertThat(sut.isSingleton("text")).isTrue();
+		assertThat(sut.getType("text")).isEqualTo(String.class);
+	}
+
+	@Test
+	void shouldReturnRegisteredBeanByType() {
+		sut.registerBean("text", "value");
+		sut.registerBean("number", 5);
+
+		assertThat(sut.getBean(Integer.class)).isEqualTo(5);
+		assertThat(sut.getBeansOfType(Object.class)).containsOnlyKeys("text", "number");
+		assertThat(sut.getBeanDefinitionNames()).containsExactly("text", "number");
+	}
+
+	@Test
+	void shouldThrowExceptionForUnknownBean() {
+		assertThatThrownBy(() -> sut.getBean("unknown"))
+				.isInstanceOf(NoSuchBeanDefinitionException.class);
+		assertThatThrownBy(() -> sut.getBean(String.class))
+				.isInstanceOf(NoSuchBeanDefinitionException.class);
+	}
+
+	@Test
+	void shouldThrowExceptionForBeanOfOtherType() {
+		sut.registerBean("text", "value");
+
+		assertThatThrownBy(() -> sut.getBean("text", Integer.class))
+				.isInstanceOf(BeanNotOfRequiredTypeException.class);
+	}
+
+	@Test
+	void shouldThrowExceptionForAmbiguousType() {
+		sut.registerBean("first", "value");
+		sut.registerBean("second", "other");
+
+		assertThatThrownBy(() -> sut.getBean(String.class))
+				.isInstanceOf(NoUniqueBeanDefinitionException.class);
+	}
+
+	@Test
+	void shouldNotAllowRegisteringBeanTwice() {
+		sut.registerBean("text", "value");
+
+		assertThatThrownBy(() -> sut.registerBean("text", "other"))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(sut.getBean("text")).isEqualTo("value");
+	}
+
+	@Test
+	void shouldResolveRegisteredMessages() {
+		sut.getStaticMessageSource().addMessage("key", Locale.GERMAN, "Wert {0}");
+
+		assertThat(sut.getMessage("key", new Object[] { 1 }, Locale.GERMAN)).isEqualTo("Wert 1");
+		assertThatThrownBy(() -> sut.getMessage("key", null, Locale.ENGLISH))
+				.isInstanceOf(NoSuchMessageException.class);
+	}
+
+	@Test
+	void shouldFallBackToParentForBeansAndMessages() {
+		var parent = new StaticApplicationContext();
+		parent.getBeanFactory().registerSingleton("parentBean", 7);
+		parent.getBeanFactory().registerSingleton("text", "parent value");
+		parent.getStaticMessageSource().addMessage("parentKey", Locale.GERMAN, "Elternwert");
+		parent.refresh();
+		sut = new LightweightApplicationContext(parent);
+		sut.registerBean("text", "value");
+
+		assertThat(sut.getParent()).isSameAs(parent);
+		assertThat(sut.containsBean("parentBean")).isTrue();
+		assertThat(sut.getBean("parentBean")).isEqualTo(7);
+		assertThat(sut.getBean(Integer.class)).isEqualTo(7);
+		assertThat(sut.getBean("text")).isEqualTo("value");
+		assertThat(sut.getMessage("parentKey", null, Locale.GERMAN)).isEqualTo("Elternwert");
+		assertThat(sut.getEnvironment()).isSameAs(parent.getEnvironment());
+	}
+
+	@Test
+	void shouldServeAsParentOfRefreshedContext() {
+		sut.registerBean("text", "value");
+		sut.getStaticMessageSource().addMessage("key", Locale.GERMAN, "Wert");
+		var child = new GenericApplicationContext();
+		child.setParent(sut);
+		child.refresh();
+
+		assertThat(child.getBean("text")).isEqualTo("value");
+		assertThat(child.getBean(String.class)).isEqualTo("value");
+		assertThat(child.getMessage("key", null, Locale.GERMAN)).isEqualTo("Wert");
+	}
+}
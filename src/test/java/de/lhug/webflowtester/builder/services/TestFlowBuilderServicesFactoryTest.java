@@ -0,0 +1,158 @@
+package de.lhug.webflowtester.builder.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import de.lhug.webflowtester.executor.MockFlowTester;
+import java.util.ArrayList;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.webflow.engine.builder.support.FlowBuilderServices;
+
+class TestFlowBuilderServicesFactoryTest {
+
+	@Test
+	void shouldCreateNewServicesForEveryCall() {
+		FlowBuilderServices first = TestFlowBuilderServicesFactory.getServices();
+
+		FlowBuilderServices result = TestFlowBuilderServicesFactory.getServices();
+
+		assertThat(result.getConversionService()).isNotSameAs(first.getConversionService());
+		assertThat(result.getExpressionParser()).isNotSameAs(first.getExpressionParser());
+		assertThat(result.getViewFactoryCreator()).isNotSameAs(first.getViewFactoryCreator());
+	}
+
+	@Test
+	void shouldShareConversionServiceAndExpressionParser() {
+		FlowBuilderServices first = TestFlowBuilderServicesFactory.getSharedServices();
+
+		FlowBuilderServices result = TestFlowBuilderServicesFactory.getSharedServices();
+
+		assertThat(result).isNotSameAs(first);
+		assertThat(result.getConversionService()).isSameAs(first.getConversionService());
+		assertThat(result.getExpressionParser()).isSameAs(first.getExpressionParser());
+		assertThat(result.getViewFactoryCreator()).isSameAs(first.getViewFactoryCreator());
+	}
+
+	@Test
+	void shouldKeepApplicationContextPerServices() {
+		FlowBuilderServices first = TestFlowBuilderServicesFactory.getSharedServices();
+
+		FlowBuilderServices result = TestFlowBuilderServicesFactory.getSharedServices();
+
+		assertThat(result.getApplicationContext())
+				.isInstanceOf(StaticApplicationContext.class)
+				.isNotSameAs(first.getApplicationContext());
+	}
+
+	@Test
+	void shouldCreateApplicationContextAsChildOfParent() {
+		var parent = new StaticApplicationContext();
+		parent.getBeanFactory().registerSingleton("parentBean", "value");
+		parent.refresh();
+
+		var result = TestFlowBuilderServicesFactory.createApplicationContext(parent);
+
+		assertThat(result.getParent()).isSameAs(parent);
+		assertThat(result.isActive()).isTrue();
+		assertThat(result.getBean("parentBean")).isEqualTo("value");
+	}
+
+	@Test
+	void shouldNotPublishEventsOfApplicationContextToParent() {
+		var parent = new StaticApplicationContext();
+		var parentEvents = new ArrayList<ApplicationEvent>();
+		parent.addApplicationListener(parentEvents::add);
+		parent.refresh();
+		parentEvents.clear();
+
+		var result = TestFlowBuilderServicesFactory.createApplicationContext(parent);
+		result.publishEvent("payload");
+
+		assertThat(parentEvents).isEmpty();
+	}
+
+	@Test
+	void shouldPublishEventsToListenersOfApplicationContext() {
+		var parent = new StaticApplicationContext();
+		parent.refresh();
+		var result = TestFlowBuilderServicesFactory.createApplicationContext(parent);
+		var events = new ArrayList<ApplicationEvent>();
+		result.addApplicationListener(events::add);
+
+		result.publishEvent("payload");
+
+		assertThat(events).singleElement()
+				.isInstanceOf(PayloadApplicationEvent.class)
+				.hasFieldOrPropertyWithValue("payload", "payload");
+	}
+
+	@Test
+	void shouldBuildWorkingFlowWithSharedServices() {
+		XMLMockFlowBuilder builder = new XMLMockFlowBuilder(
+				new XMLMockFlowConfiguration("/eventFlows/modelExpressionFlow.xml"));
+		MockFlowTester tester = MockFlowTester.from(builder.withSharedServices());
+		tester.startFlow();
+		tester.setEventId("continue");
+
+		tester.resumeFlow(Map.of("name", "shared", "amount", 7));
+
+		assertThat(tester.getOutputAttributes().get("beanModel"))
+				.hasFieldOrPropertyWithValue("name", "shared")
+				.hasFieldOrPropertyWithValue("amount", 7);
+	}
+
+	@Test
+	void shouldCompileFlowExpressionsInImmediateMode() {
+		XMLMockFlowBuilder builder = new XMLMockFlowBuilder(
+				new XMLMockFlowConfiguration("/eventFlows/modelExpressionFlow.xml"));
+		builder.withSpelCompilerMode(SpelCompilerMode.IMMEDIATE);
+		MockFlowTester tester = MockFlowTester.from(builder);
+
+		tester.startFlow();
+		tester.startFlow();
+
+		SpelCompilationReport result = builder.getSpelCompilationReport();
+		assertThat(result.getCompiledExpressions()).contains("new de.lhug.webflowtester.helper.BeanModel()");
+		assertThat(result.getEntries()).extracting(SpelCompilationReport.Entry::getExpressionString)
+				.contains("beanModel");
+	}
+
+	@Test
+	void shouldNotRecordExpressionsWhenCompilerIsOff() {
+		XMLMockFlowBuilder builder = new XMLMockFlowBuilder(
+				new XMLMockFlowConfiguration("/eventFlows/modelExpressionFlow.xml"));
+		MockFlowTester tester = MockFlowTester.from(builder);
+
+		tester.startFlow();
+
+		assertThat(builder.getSpelCompilationReport().getEntries()).isEmpty();
+	}
+
+	@Test
+	void shouldRecordExpressionsPerServices() {
+		FlowBuilderServices first = TestFlowBuilderServicesFactory.getServices(
+				new StaticApplicationContext(), SpelCompilerMode.IMMEDIATE);
+		FlowBuilderServices other = TestFlowBuilderServicesFactory.getServices(
+				new StaticApplicationContext(), SpelCompilerMode.IMMEDIATE);
+
+		first.getExpressionParser().parseExpression("1 + 1", null);
+
+		assertThat(TestFlowBuilderServicesFactory.getSpelCompilationReport(first).getEntries()).hasSize(1);
+		assertThat(TestFlowBuilderServicesFactory.getSpelCompilationReport(other).getEntries()).isEmpty();
+	}
+
+	@Test
+	void shouldNotCompileWithDefaultServices() {
+		FlowBuilderServices services = TestFlowBuilderServicesFactory.getServices();
+
+		services.getExpressionParser().parseExpression("1 + 1", null);
+
+		assertThat(TestFlowBuilderServicesFactory.getSpelCompilationReport(services).getEntries()).isEmpty();
+	}
+}
@@ -0,0 +1,92 @@
+package de.lhug.webflowtester.builder.services.view;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.lhug.webflowtester.helper.BeanModel;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.binding.convert.service.DefaultConversionService;
+import org.springframework.binding.expression.Expression;
+import org.springframework.binding.expression.ExpressionParser;
+import org.springframework.binding.mapping.impl.DefaultMapper;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.webflow.expression.spel.WebFlowSpringELExpressionParser;
+
+class BindingMapperCacheTest {
+
+	private final ExpressionParser parser = createParser();
+
+	private final BindingMapperCache sut = new BindingMapperCache(2);
+
+	private static ExpressionParser createParser() {
+		return new WebFlowSpringELExpressionParser(new SpelExpressionParser(), new DefaultConversionService());
+	}
+
+	@Test
+	void shouldReturnCachedMapperForSameParameterNames() {
+		DefaultMapper first = sut.getMapper(parser, BeanModel.class, Set.of("name", "amount"), DefaultMapper::new);
+
+		DefaultMapper result = sut.getMapper(parser, BeanModel.class, new HashSet<>(List.of("amount", "name")),
+				DefaultMapper::new);
+
+		assertThat(result).isSameAs(first);
+		assertThat(sut.getHitCount()).isEqualTo(1);
+		assertThat(sut.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldPrepareNewMapperForOtherParameterNames() {
+		DefaultMapper first = sut.getMapper(parser, BeanModel.class, Set.of("name"), DefaultMapper::new);
+
+		DefaultMapper result = sut.getMapper(parser, BeanModel.class, Set.of("name", "amount"),
+				DefaultMapper::new);
+
+		assertThat(result).isNotSameAs(first);
+		assertThat(sut.getMissCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldSeparateMappersOfDifferentParsers() {
+		DefaultMapper first = sut.getMapper(parser, BeanModel.class, Set.of("name"), DefaultMapper::new);
+
+		DefaultMapper result = sut.getMapper(createParser(), BeanModel.class, Set.of("name"), DefaultMapper::new);
+
+		assertThat(result).isNotSameAs(first);
+	}
+
+	@Test
+	void shouldNotKeepMutableParameterNamesAsKey() {
+		Set<String> names = new HashSet<>(Set.of("name"));
+		DefaultMapper first = sut.getMapper(parser, BeanModel.class, names, DefaultMapper::new);
+		names.add("amount");
+
+		DefaultMapper result = sut.getMapper(parser, BeanModel.class, Set.of("name"), DefaultMapper::new);
+
+		assertThat(result).isSameAs(first);
+	}
+
+	@Test
+	void shouldEvictLeastRecentlyUsedMapper() {
+		sut.getMapper(parser, BeanModel.class, Set.of("a"), DefaultMapper::new);
+		sut.getMapper(parser, BeanModel.class, Set.of("b"), DefaultMapper::new);
+		sut.getMapper(parser, BeanModel.class, Set.of("a"), DefaultMapper::new);
+		sut.getMapper(parser, BeanModel.class, Set.of("c"), DefaultMapper::new);
+
+		sut.getMapper(parser, BeanModel.class, Set.of("a"), DefaultMapper::new);
+
+		assertThat(sut.getSize()).isEqualTo(2);
+		assertThat(sut.getHitCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldCacheParsedTargetExpressions() {
+		Expression first = sut.getTargetExpression(parser, BeanModel.class, "name");
+
+		Expression result = sut.getTargetExpression(parser, BeanModel.class, "name");
+
+		assertThat(result).isSameAs(first);
+		assertThat(result.getExpressionString()).isEqualTo("name");
+	}
+}
@@ -0,0 +1,115 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.FlowTestContext;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.webflow.definition.registry.FlowDefinitionHolder;
+import org.springframework.webflow.engine.Flow;
+
+class ExecutionHandOffTest {
+
+	private MockFlowTester nodeA;
+	private MockFlowTester nodeB;
+
+	private ExecutionHandOff sut;
+
+	@BeforeEach
+	void setUp() {
+		nodeA = testerOf("/simpleFlows/flowWithInput.xml");
+		nodeB = testerOf("/simpleFlows/flowWithInput.xml");
+		sut = new ExecutionHandOff();
+	}
+
+	private static MockFlowTester testerOf(String flowPath) {
+		return MockFlowTester.from(new XMLMockFlowBuilder(new XMLMockFlowConfiguration(flowPath)));
+	}
+
+	@Test
+	void shouldResumeTransferredExecutionOnOtherFlowCopy() {
+		nodeA.startFlow(Map.of("inputArgument", "input"));
+		nodeA.setEventId("page");
+		nodeA.resumeFlow(Map.of("inputParameter", "parameter"));
+
+		sut.transfer(nodeA, nodeB);
+		nodeB.setEventId("close");
+		nodeB.resumeFlow();
+
+		assertThat(nodeB.getFlowOutcome()).isEqualTo("bye");
+		assertThat(nodeA.getCurrentStateId()).isEqualTo("step");
+	}
+
+	@Test
+	void shouldTransferScopes() {
+		nodeA.startFlow(Map.of("inputArgument", "input"));
+
+		sut.transfer(nodeA, nodeB);
+
+		assertThat(nodeB.getCurrentStateId()).isEqualTo("start");
+		assertThat(nodeB.getScope().get("inputArgument")).isEqualTo("input");
+		assertThat(nodeB.getCurrentFlowExecution()).isNotSameAs(nodeA.getCurrentFlowExecution());
+	}
+
+	@Test
+	void shouldMeasureTransfers() {
+		nodeA.startFlow(Map.of("inputArgument", "input"));
+
+		byte[] exported = sut.transfer(nodeA, nodeB);
+		sut.transfer(nodeB, nodeA);
+
+		assertThat(sut.getTransferCount()).isEqualTo(2);
+		assertThat(sut.getMaxTransferSize()).isEqualTo(exported.length);
+		assertThat(sut.getExportTimes().getCount()).isEqualTo(2);
+		assertThat(sut.getRehydrationTimes().getCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldRejectExecutionOfOtherFlow() {
+		MockFlowTester other = testerOf("/simpleFlows/standaloneFlow.xml");
+		nodeA.startFlow(Map.of("inputArgument", "input"));
+
+		assertThatThrownBy(() -> sut.transfer(nodeA, other))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("flowWithInput");
+	}
+
+	@Test
+	void shouldNotExportWithoutActiveExecution() {
+		assertThatThrownBy(() -> sut.transfer(nodeA, nodeB))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void shouldTransferExecutionWithActiveSubFlow() {
+		MockFlowTester parentA = testerWithSubFlow();
+		MockFlowTester parentB = testerWithSubFlow();
+		parentA.startFlow();
+		parentA.setEventId("page");
+		parentA.resumeFlow();
+
+		sut.transfer(parentA, parentB);
+
+		assertThat(parentB.getCurrentStateId()).isEqualTo("waiting");
+		parentB.setEventId("done");
+		parentB.resumeFlow();
+		assertThat(parentB.getFlowOutcome()).isEqualTo("bye");
+	}
+
+	private static MockFlowTester testerWithSubFlow() {
+		Flow subFlow = new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/subFlows/subFlow.xml")).buildFlow();
+		FlowDefinitionHolder holder = mock(FlowDefinitionHolder.class);
+		when(holder.getFlowDefinitionId()).thenReturn("subFlow");
+		when(holder.getFlowDefinition()).thenReturn(subFlow);
+		FlowTestContext context = new FlowTestContext();
+		context.addSubFlow(holder);
+		return MockFlowTester.from(new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/subFlows/flow.xml"))
+				.withContext(context));
+	}
+}
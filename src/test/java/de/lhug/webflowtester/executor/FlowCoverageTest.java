@@ -0,0 +1,172 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.webflow.engine.EndState;
+import org.springframework.webflow.engine.Flow;
+
+class FlowCoverageTest {
+
+	private Flow flow;
+
+	private FlowCoverage sut;
+
+	@BeforeEach
+	void setUp() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml");
+		flow = new XMLMockFlowBuilder(configuration).buildFlow();
+		sut = new FlowCoverage(flow);
+	}
+
+	private void runPageAndClose(MockFlowTester tester) {
+		tester.recordCoverage(sut);
+		tester.startFlow();
+		tester.setEventId("page");
+		tester.resumeFlow();
+		tester.setEventId("close");
+		tester.resumeFlow();
+	}
+
+	@Test
+	void shouldMapAllStatesAndTransitions() {
+		assertThat(sut.getFlowId()).isEqualTo("standaloneFlow");
+		assertThat(sut.getStateHits()).containsOnlyKeys("start", "step", "bye");
+		assertThat(sut.getTransitionHits()).containsOnlyKeys("start:page->step", "start:close->bye",
+				"step:back->start", "step:close->bye");
+		assertThat(sut.getUncoveredStates()).hasSize(3);
+	}
+
+	@Test
+	void shouldCountEnteredStatesAndExecutedTransitions() {
+		runPageAndClose(MockFlowTester.from(() -> flow));
+
+		assertThat(sut.getStateHits()).containsOnly(entry("start", 1L), entry("step", 1L), entry("bye", 1L));
+		assertThat(sut.getTransitionHits()).contains(entry("start:page->step", 1L), entry("step:close->bye", 1L));
+		assertThat(sut.getUncoveredStates()).isEmpty();
+		assertThat(sut.getUncoveredTransitions()).containsExactly("start:close->bye", "step:back->start");
+	}
+
+	@Test
+	void shouldCountTransitionsOfDecisionStates() {
+		Flow explored = new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/explorerFlows/exploredFlow.xml"))
+				.buildFlow();
+		var coverage = new FlowCoverage(explored);
+		MockFlowTester tester = MockFlowTester.from(() -> explored);
+		tester.recordCoverage(coverage);
+		tester.startFlow();
+
+		tester.setEventId("next");
+		tester.resumeFlow();
+
+		assertThat(coverage.getTransitionHits())
+				.containsEntry("start:next->decide", 1L)
+				.containsEntry("decide:true->middle", 1L)
+				.containsEntry("decide:*->orphan", 0L);
+		assertThat(coverage.getUncoveredStates()).containsExactly("orphan", "done");
+	}
+
+	@Test
+	void shouldNotCountWhenNotRecording() {
+		MockFlowTester tester = MockFlowTester.from(() -> flow);
+		tester.recordCoverage(sut);
+		tester.recordCoverage(null);
+
+		tester.startFlow();
+
+		assertThat(sut.getStateHits()).containsEntry("start", 0L);
+	}
+
+	@Test
+	void shouldCountHitsOfParallelTesters() {
+		MockFlowTesterPool pool = MockFlowTesterPool.from(() -> flow, 4);
+
+		PoolResult<Void> result = pool.run(25, tester -> {
+			runPageAndClose(tester);
+			return null;
+		});
+
+		assertThat(result.getFailures()).isEmpty();
+		assertThat(sut.getStateHits()).containsEntry("start", 100L).containsEntry("bye", 100L);
+		assertThat(sut.getTransitionHits()).containsEntry("start:page->step", 100L);
+	}
+
+	@Test
+	void shouldResetCounters() {
+		runPageAndClose(MockFlowTester.from(() -> flow));
+
+		sut.reset();
+
+		assertThat(sut.getUncoveredStates()).containsExactly("start", "step", "bye");
+	}
+
+	@Test
+	void shouldRegisterOneCoveragePerFlowId() {
+		assertThat(FlowCoverage.of(flow)).isSameAs(FlowCoverage.of(flow));
+		assertThat(FlowCoverage.getRegistered()).contains(FlowCoverage.of(flow));
+	}
+
+	@Test
+	void shouldMergeReportsOfMultipleJvms(@TempDir Path directory) throws IOException {
+		runPageAndClose(MockFlowTester.from(() -> flow));
+		CoverageReport.of(List.of(sut)).writeTo(directory);
+		Path written;
+		try (Stream<Path> files = Files.list(directory)) {
+			written = files.collect(Collectors.toList()).get(0);
+		}
+		Files.copy(written, directory.resolve("standaloneFlow-other" + CoverageReport.SUFFIX));
+
+		CoverageReport result = CoverageReport.read(directory);
+
+		assertThat(result.getFlowIds()).containsExactly("standaloneFlow");
+		assertThat(result.getStateHits("standaloneFlow")).containsEntry("start", 2L).containsEntry("step", 2L);
+		assertThat(result.getUncoveredTransitions("standaloneFlow"))
+				.containsExactlyInAnyOrder("start:close->bye", "step:back->start");
+		assertThat(result).hasToString("standaloneFlow: states 3/3, transitions 2/4\n");
+	}
+
+	@Test
+	void shouldWriteSeparateReportsForSimilarFlowIds(@TempDir Path directory) {
+		var slashed = new FlowCoverage(flowWithEndState("a/b"));
+		var underscored = new FlowCoverage(flowWithEndState("a_b"));
+
+		CoverageReport.of(List.of(slashed, underscored)).writeTo(directory);
+
+		assertThat(CoverageReport.read(directory).getFlowIds()).containsExactly("a/b", "a_b");
+	}
+
+	private static Flow flowWithEndState(String id) {
+		Flow result = Flow.create(id, null);
+		new EndState(result, "end");
+		return result;
+	}
+
+	@Test
+	void shouldIgnoreReportsOfEarlierRuns(@TempDir Path directory) throws IOException {
+		runPageAndClose(MockFlowTester.from(() -> flow));
+		CoverageReport.of(List.of(sut)).writeTo(directory);
+		try (Stream<Path> files = Files.list(directory)) {
+			for (Path file : files.collect(Collectors.toList())) {
+				Files.setLastModifiedTime(file, FileTime.from(Instant.EPOCH));
+			}
+		}
+
+		CoverageReport result = CoverageReport.read(directory, Instant.ofEpochSecond(1));
+
+		assertThat(result.getFlowIds()).isEmpty();
+		assertThat(CoverageReport.read(directory).getFlowIds()).containsExactly("standaloneFlow");
+	}
+}
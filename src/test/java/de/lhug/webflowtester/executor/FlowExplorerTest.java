@@ -0,0 +1,72 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.time.Duration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.webflow.execution.ActionExecutionException;
+
+class FlowExplorerTest {
+
+	private FlowExplorer sut;
+
+	@BeforeEach
+	void setUp() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/explorerFlows/exploredFlow.xml");
+		sut = FlowExplorer.of(new XMLMockFlowBuilder(configuration)).withWorkers(4);
+	}
+
+	@Test
+	void shouldReportReachedAndUnreachedStates() {
+		var result = sut.explore();
+
+		assertThat(result.isComplete()).isTrue();
+		assertThat(result.getReachedStates()).containsExactly("decide", "done", "middle", "start");
+		assertThat(result.getUnreachedStates()).containsExactly("orphan");
+		assertThat(result.getOutcomes()).containsExactly("done");
+	}
+
+	@Test
+	void shouldReportDeadTransitions() {
+		var result = sut.explore();
+
+		assertThat(result.getDeadTransitions()).contains("decide->orphan", "orphan->done")
+				.doesNotContain("start->decide", "decide->middle", "middle->start", "middle->done", "start->done");
+	}
+
+	@Test
+	void shouldReportFailingPaths() {
+		var result = sut.explore();
+
+		assertThat(result.getFailingPaths()).hasSize(1);
+		var failingPath = result.getFailingPaths().get(0);
+		assertThat(failingPath.getEventIds()).containsExactly("broken");
+		assertThat(failingPath.getFailure()).isInstanceOf(ActionExecutionException.class);
+	}
+
+	@Test
+	void shouldDeduplicateConfigurations() {
+		var result = sut.explore();
+
+		assertThat(result.getExploredConfigurations()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldStopAtMaxDepth() {
+		var result = sut.withMaxDepth(1).explore();
+
+		assertThat(result.getReachedStates()).containsExactly("decide", "done", "middle", "start");
+		assertThat(result.getExploredConfigurations()).isEqualTo(1);
+		assertThat(result.getDeadTransitions()).contains("middle->start", "middle->done");
+	}
+
+	@Test
+	void shouldBeIncompleteWhenTimeBudgetIsExhausted() {
+		var result = sut.withTimeBudget(Duration.ZERO).explore();
+
+		assertThat(result.isComplete()).isFalse();
+	}
+}
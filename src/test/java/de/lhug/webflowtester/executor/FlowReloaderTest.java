@@ -0,0 +1,116 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.webflow.engine.ActionState;
+
+class FlowReloaderTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@TempDir
+	Path flowDirectory;
+
+	private File childFlow;
+	private File parentFlow;
+
+	private FlowReloader sut;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		childFlow = copy("/inheritanceFlows/childFlow.xml", "childFlow.xml");
+		parentFlow = copy("/inheritanceFlows/parentFlow.xml", "parentFlow.xml");
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration(childFlow);
+		configuration.addParentFlow(parentFlow);
+		sut = FlowReloader.watch(new XMLMockFlowBuilder(configuration));
+	}
+
+	@AfterEach
+	void tearDown() {
+		sut.close();
+	}
+
+	private File copy(String resource, String fileName) throws IOException {
+		Path target = flowDirectory.resolve(fileName);
+		try (var in = getClass().getResourceAsStream(resource)) {
+			Files.copy(in, target);
+		}
+		return target.toFile();
+	}
+
+	private void edit(File file, String search, String replacement) throws IOException {
+		Path path = file.toPath();
+		FileTime lastModified = Files.getLastModifiedTime(path);
+		Files.writeString(path, Files.readString(path).replace(search, replacement), StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified.toMillis() + 2000));
+	}
+
+	@Test
+	void shouldWatchMainAndParentFlow() {
+		assertThat(sut.getWatchedFiles()).containsExactlyInAnyOrder(
+				childFlow.toPath().toAbsolutePath().normalize(),
+				parentFlow.toPath().toAbsolutePath().normalize());
+	}
+
+	@Test
+	void shouldNotReloadWithoutChanges() {
+		assertThat(sut.reloadIfChanged(Duration.ZERO)).isFalse();
+		assertThat(sut.getReloadCount()).isZero();
+	}
+
+	@Test
+	void shouldSwapChangedFlowIntoTesterOnNextStart() throws IOException {
+		MockFlowTester tester = sut.newTester();
+		tester.startFlow();
+		assertThat(tester.getCurrentStateId()).isEqualTo("child-entry");
+
+		edit(childFlow, "child-entry", "renamed-entry");
+
+		assertThat(sut.reloadIfChanged(TIMEOUT)).isTrue();
+		assertThat(tester.getCurrentStateId()).isEqualTo("child-entry");
+		tester.startFlow();
+		assertThat(tester.getCurrentStateId()).isEqualTo("renamed-entry");
+		assertThat(sut.getReloadCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldRebuildChildWhenParentChanges() throws IOException {
+		edit(parentFlow, "Let it be", "Let it go");
+
+		assertThat(sut.reloadIfChanged(TIMEOUT)).isTrue();
+		ActionState result = (ActionState) sut.getFlow().getState("motherKnowsBest");
+		assertThat(result.getActionList().toString()).contains("'Let it go'");
+	}
+
+	@Test
+	void shouldKeepPreviousFlowWhenChangedFlowIsInvalid() throws IOException {
+		var previous = sut.getFlow();
+
+		edit(childFlow, "<view-state", "<no-state");
+
+		assertThatThrownBy(() -> sut.reloadIfChanged(TIMEOUT)).isInstanceOf(RuntimeException.class);
+		assertThat(sut.getFlow()).isSameAs(previous);
+	}
+
+	@Test
+	void shouldFailWhenClosed() {
+		sut.close();
+
+		assertThatThrownBy(() -> sut.reloadIfChanged(Duration.ZERO))
+				.isInstanceOf(IllegalStateException.class);
+	}
+}
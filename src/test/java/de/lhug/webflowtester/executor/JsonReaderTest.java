@@ -0,0 +1,38 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class JsonReaderTest {
+
+	@Test
+	void shouldReadNestedDocument() {
+		var result = JsonReader.read(" {\"a\": [1, 2.5, true, null], \"b\": {\"c\": \"d\"}, \"e\": {}} ");
+
+		assertThat(result).asInstanceOf(MAP)
+				.containsExactly(entry("a", Arrays.asList(1L, 2.5, true, null)),
+						entry("b", Map.of("c", "d")), entry("e", Map.of()));
+	}
+
+	@Test
+	void shouldReadEscapedStrings() {
+		var result = JsonReader.read("[\"a\\\"b\\\\c\\n\\u00e4\"]");
+
+		assertThat(result).isEqualTo(List.of("a\"b\\c\n\u00e4"));
+	}
+
+	@Test
+	void shouldRejectMalformedDocuments() {
+		assertThatThrownBy(() -> JsonReader.read("{\"a\": 1")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> JsonReader.read("{\"a\": 1} x")).isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("trailing");
+		assertThatThrownBy(() -> JsonReader.read("nope")).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,78 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+	private final LatencyHistogram sut = new LatencyHistogram();
+
+	@Test
+	void shouldReturnZeroWhenEmpty() {
+		assertThat(sut.getCount()).isZero();
+		assertThat(sut.getMinNanos()).isZero();
+		assertThat(sut.getMaxNanos()).isZero();
+		assertThat(sut.getMeanNanos()).isZero();
+		assertThat(sut.getPercentileNanos(99)).isZero();
+	}
+
+	@Test
+	void shouldTrackCountMinMaxAndMean() {
+		sut.record(100);
+		sut.record(300);
+		sut.record(200);
+
+		assertThat(sut.getCount()).isEqualTo(3);
+		assertThat(sut.getMinNanos()).isEqualTo(100);
+		assertThat(sut.getMaxNanos()).isEqualTo(300);
+		assertThat(sut.getMeanNanos()).isEqualTo(200);
+	}
+
+	@Test
+	void shouldReportPercentilesWithinBucketPrecision() {
+		for (int i = 1; i <= 1000; i++) {
+			sut.record(i * 1_000L);
+		}
+
+		assertThat(sut.getPercentileNanos(50)).isCloseTo(500_000L, within(62_500L));
+		assertThat(sut.getPercentileNanos(99)).isCloseTo(990_000L, within(123_750L));
+		assertThat(sut.getPercentileNanos(100)).isEqualTo(1_000_000L);
+		assertThat(sut.getPercentileNanos(0)).isCloseTo(1_000L, within(64L));
+	}
+
+	@Test
+	void shouldRecordSmallValuesExactly() {
+		sut.record(3);
+		sut.record(5);
+
+		assertThat(sut.getPercentileNanos(50)).isEqualTo(3);
+		assertThat(sut.getPercentileNanos(100)).isEqualTo(5);
+	}
+
+	@Test
+	void shouldAddOtherHistogram() {
+		LatencyHistogram other = new LatencyHistogram();
+		other.record(10);
+		other.record(1_000);
+		sut.record(500);
+
+		sut.add(other);
+
+		assertThat(sut.getCount()).isEqualTo(3);
+		assertThat(sut.getMinNanos()).isEqualTo(10);
+		assertThat(sut.getMaxNanos()).isEqualTo(1_000);
+		assertThat(sut.getTotalNanos()).isEqualTo(1_510);
+	}
+
+	@Test
+	void shouldDiscardValuesOnReset() {
+		sut.record(42);
+
+		sut.reset();
+
+		assertThat(sut.getCount()).isZero();
+		assertThat(sut.getPercentileNanos(50)).isZero();
+	}
+}
@@ -0,0 +1,77 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LoadDriverTest {
+
+	private LoadDriver sut;
+
+	@BeforeEach
+	void setUp() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml");
+		sut = LoadDriver.from(new XMLMockFlowBuilder(configuration)).withThreads(8);
+	}
+
+	private static void pageAndClose(MockFlowTester tester) {
+		tester.startFlow();
+		tester.setEventId("page");
+		tester.resumeFlow();
+		tester.setEventId("close");
+		tester.resumeFlow();
+		assertThat(tester.getFlowOutcome()).isEqualTo("bye");
+	}
+
+	@Test
+	void shouldRunJourneyPerThreadAndIteration() {
+		var result = sut.withIterations(25).run(LoadDriverTest::pageAndClose);
+
+		assertThat(result.getThreads()).isEqualTo(8);
+		assertThat(result.getRunCount()).isEqualTo(200);
+		assertThat(result.getErrorCount()).isZero();
+		assertThat(result.getLatencies().getCount()).isEqualTo(200);
+		assertThat(result.getThroughput()).isPositive();
+	}
+
+	@Test
+	void shouldCountErrorsByType() {
+		AtomicInteger runs = new AtomicInteger();
+
+		var result = sut.withIterations(10).run(tester -> {
+			tester.startFlow();
+			if (runs.incrementAndGet() % 4 == 0) {
+				tester.setEventId("unknown");
+				tester.resumeFlow();
+			}
+		});
+
+		assertThat(result.getRunCount()).isEqualTo(80);
+		assertThat(result.getErrorCount()).isEqualTo(20);
+		assertThat(result.getErrorsByType()).hasSize(1).containsValue(20L);
+	}
+
+	@Test
+	void shouldRunForDuration() {
+		var result = sut.withDuration(Duration.ofMillis(200)).run(LoadDriverTest::pageAndClose);
+
+		assertThat(result.getRunCount()).isPositive();
+		assertThat(result.getElapsedNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(200).toNanos());
+	}
+
+	@Test
+	void shouldUseVirtualThreadsOnlyWhenSupported() {
+		boolean supported = Runtime.version().feature() >= 21;
+
+		var virtual = sut.withIterations(1).run(tester -> tester.startFlow());
+		var platform = sut.withVirtualThreads(false).run(tester -> tester.startFlow());
+
+		assertThat(virtual.isVirtualThreads()).isEqualTo(supported);
+		assertThat(platform.isVirtualThreads()).isFalse();
+	}
+}
@@ -0,0 +1,106 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MockFlowTesterPoolTest {
+
+	private MockFlowTesterPool sut;
+
+	@BeforeEach
+	void setUp() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml");
+		sut = MockFlowTesterPool.from(new XMLMockFlowBuilder(configuration), 4);
+	}
+
+	@Test
+	void shouldRunScenarioOnEveryWorker() {
+		PoolResult<String> result = sut.run(25, tester -> {
+			tester.startFlow();
+			tester.setEventId("page");
+			tester.resumeFlow();
+			tester.setEventId("close");
+			tester.resumeFlow();
+			return tester.getFlowOutcome();
+		});
+
+		assertThat(result.getWorkerResults()).hasSize(4)
+				.allSatisfy(worker -> assertThat(worker.getResults()).hasSize(25));
+		assertThat(result.getInvocationCount()).isEqualTo(100);
+		assertThat(result.getResults()).hasSize(100).containsOnly("bye");
+		assertThat(result.getFailures()).isEmpty();
+	}
+
+	@Test
+	void shouldIsolateExecutionsOfWorkers() {
+		Set<MockFlowTester> testers = ConcurrentHashMap.newKeySet();
+
+		PoolResult<String> result = sut.run(10, tester -> {
+			testers.add(tester);
+			tester.startFlow();
+			tester.setEventId("page");
+			tester.resumeFlow();
+			String state = tester.getCurrentStateId();
+			tester.setEventId("back");
+			tester.resumeFlow();
+			return state + "-" + tester.getCurrentStateId();
+		});
+
+		assertThat(testers).hasSize(4);
+		assertThat(result.getResults()).hasSize(40).containsOnly("step-start");
+	}
+
+	@Test
+	void shouldShareFlowBetweenExecutions() {
+		PoolResult<Object> result = sut.run(5, tester -> {
+			tester.startFlow();
+			return tester.getCurrentFlowExecution().getDefinition();
+		});
+
+		assertThat(result.getResults()).containsOnly(sut.getFlow());
+	}
+
+	@Test
+	void shouldRecordFailuresPerWorker() {
+		PoolResult<String> result = sut.run(3, tester -> {
+			tester.startFlow();
+			return tester.getFlowOutcome();
+		});
+
+		assertThat(result.getResults()).isEmpty();
+		assertThat(result.getFailures()).hasSize(12)
+				.allMatch(IllegalStateException.class::isInstance);
+		assertThat(result.getWorkerResults())
+				.allSatisfy(worker -> assertThat(worker.getInvocationCount()).isEqualTo(3));
+	}
+
+	@Test
+	void shouldCreateIndependentTesters() {
+		MockFlowTester first = sut.newTester();
+		MockFlowTester second = sut.newTester();
+
+		first.startFlow();
+		first.setEventId("page");
+		first.resumeFlow();
+		second.startFlow();
+
+		assertThat(first.getCurrentStateId()).isEqualTo("step");
+		assertThat(second.getCurrentStateId()).isEqualTo("start");
+	}
+
+	@Test
+	void shouldRejectPoolWithoutWorkers() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml");
+		XMLMockFlowBuilder builder = new XMLMockFlowBuilder(configuration);
+
+		assertThatThrownBy(() -> MockFlowTesterPool.from(builder, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
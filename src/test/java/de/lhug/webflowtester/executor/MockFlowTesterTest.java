@@ -21,6 +21,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.webflow.core.collection.AttributeMap;
 import org.springframework.webflow.execution.FlowExecution;
 import org.springframework.webflow.test.MockExternalContext;
+import org.springframework.webflow.test.MockParameterMap;
 
 class MockFlowTesterTest {
 
@@ -420,4 +421,232 @@ class MockFlowTesterTest {
 
 		assertThat(sut.getLastRequestContext().getNativeRequest()).isSameAs(request);
 	}
+
+	@Test
+	void shouldThrowExceptionWhenTakingCheckpointBeforeFlowWasStarted() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+
+		assertThatThrownBy(() -> sut.checkpoint())
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessage("Flow must be started before assertions can be made.");
+	}
+
+	@Test
+	void shouldThrowExceptionWhenTakingCheckpointAfterFlowHasEnded() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.startFlow();
+		sut.setEventId("close");
+		sut.resumeFlow();
+
+		assertThatThrownBy(() -> sut.checkpoint())
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void shouldRestoreStateAndScopeFromCheckpoint() {
+		initConfigFrom("/simpleFlows/flowWithInput.xml");
+		initSut();
+		sut.startFlow(Map.of("inputArgument", "input"));
+		sut.setEventId("page");
+		sut.resumeFlow(Map.of("inputParameter", "parameter"));
+		Checkpoint checkpoint = sut.checkpoint();
+		sut.setEventId("back");
+		sut.resumeFlow();
+
+		sut.restore(checkpoint);
+
+		assertThat(checkpoint.getStateId()).isEqualTo("step");
+		assertThat(sut.getCurrentStateId()).isEqualTo("step");
+		assertThat(sut.getScope().get("inputArgument")).isEqualTo("input");
+		assertThat(sut.getScope().get("passed")).isEqualTo("parameter");
+	}
+
+	@Test
+	void shouldResumeRestoredExecution() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.startFlow();
+		sut.setEventId("page");
+		sut.resumeFlow();
+		Checkpoint checkpoint = sut.checkpoint();
+
+		sut.restore(checkpoint);
+		sut.setEventId("close");
+		sut.resumeFlow();
+
+		assertThat(sut.getFlowOutcome()).isEqualTo("bye");
+	}
+
+	@Test
+	void shouldCreateIndependentExecutionsFromSameCheckpoint() {
+		initConfigFrom("/simpleFlows/flowWithInput.xml");
+		initSut();
+		sut.startFlow(Map.of("inputArgument", "input"));
+		Checkpoint checkpoint = sut.checkpoint();
+
+		sut.restore(checkpoint);
+		FlowExecution first = sut.getCurrentFlowExecution();
+		first.getActiveSession().getScope().put("inputArgument", "changed");
+		sut.restore(checkpoint);
+
+		assertThat(sut.getCurrentFlowExecution()).isNotSameAs(first);
+		assertThat(sut.getScope().get("inputArgument")).isEqualTo("input");
+	}
+
+	@Test
+	void shouldRestoreCheckpointInOtherTesterOfSameFlow() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.startFlow();
+		sut.setEventId("page");
+		sut.resumeFlow();
+		Checkpoint checkpoint = sut.checkpoint();
+		MockFlowTester other = MockFlowTester.from(new XMLMockFlowBuilder(configuration));
+
+		other.restore(checkpoint);
+
+		assertThat(other.getCurrentStateId()).isEqualTo("step");
+	}
+
+	@Test
+	void shouldRejectCheckpointOfOtherFlow() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.startFlow();
+		Checkpoint checkpoint = sut.checkpoint();
+		initConfigFrom("/simpleFlows/flowWithInput.xml");
+		initSut();
+
+		assertThatThrownBy(() -> sut.restore(checkpoint))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldRecordTimingsOfStatesRenderingAndTransitions() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		var result = new FlowTimings();
+		sut.recordTimings(result);
+		sut.startFlow();
+		sut.setEventId("page");
+		sut.resumeFlow();
+		sut.setEventId("close");
+		sut.resumeFlow();
+
+		assertThat(result.get(FlowTimings.Kind.STATE))
+				.containsOnlyKeys("standaloneFlow#start", "standaloneFlow#step", "standaloneFlow#bye");
+		assertThat(result.get(FlowTimings.Kind.RENDER))
+				.containsOnlyKeys("standaloneFlow#start", "standaloneFlow#step");
+		assertThat(result.get(FlowTimings.Kind.TRANSITION))
+				.containsOnlyKeys("standaloneFlow#start->step", "standaloneFlow#step->bye");
+		assertThat(result.get(FlowTimings.Kind.STATE, "standaloneFlow#start").getWallTime().getCount())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void shouldAccumulateTimingsOverExecutions() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		var result = new FlowTimings();
+		sut.recordTimings(result);
+
+		sut.startFlow();
+		sut.startFlow();
+		sut.setEventId("page");
+		sut.resumeFlow();
+
+		assertThat(result.get(FlowTimings.Kind.RENDER, "standaloneFlow#start").getWallTime().getCount())
+				.isEqualTo(2);
+		assertThat(result.toReport())
+				.contains("standaloneFlow#start->step")
+				.contains("TRANSITION");
+	}
+
+	@Test
+	void shouldStopRecordingTimings() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		var timings = new FlowTimings();
+		sut.recordTimings(timings);
+		sut.recordTimings(null);
+
+		sut.startFlow();
+
+		assertThat(timings.get(FlowTimings.Kind.STATE)).isEmpty();
+	}
+
+	@Test
+	void shouldResumeWithPrebuiltParameterMap() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.startFlow();
+		MockParameterMap parameters = new MockParameterMap();
+		parameters.put("_eventId", "page");
+
+		sut.resumeFlow(parameters);
+
+		assertThat(sut.getCurrentStateId()).isEqualTo("step");
+		assertThat(sut.getLastRequestContext().getRequestParameterMap()).isSameAs(parameters);
+	}
+
+	@Test
+	void shouldRejectPrebuiltParameterMapWithoutEventId() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.startFlow();
+		MockParameterMap parameters = new MockParameterMap();
+
+		assertThatThrownBy(() -> sut.resumeFlow(parameters))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldReuseExternalContextBetweenRequests() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.setReuseExternalContext(true);
+		sut.startFlow();
+		MockExternalContext first = sut.getLastRequestContext();
+		first.getRequestMap().put("leftover", "value");
+
+		sut.setEventId("page");
+		sut.resumeFlow(Map.of("param", 42));
+
+		MockExternalContext result = sut.getLastRequestContext();
+		assertThat(result).isSameAs(first);
+		assertThat(result.getRequestMap().contains("leftover")).isFalse();
+		assertThat(result.getRequestParameterMap().get("param")).isEqualTo("42");
+		assertThat(sut.getCurrentStateId()).isEqualTo("step");
+	}
+
+	@Test
+	void shouldClearRequestObjectOfReusedExternalContext() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.setReuseExternalContext(true);
+		sut.setRequest(new HashMap<>());
+		sut.startFlow();
+
+		sut.setRequest(null);
+		sut.setEventId("page");
+		sut.resumeFlow();
+
+		assertThat(sut.getLastRequestContext().getNativeRequest()).isExactlyInstanceOf(Object.class);
+	}
+
+	@Test
+	void shouldResetResponseOfReusedExternalContext() {
+		initConfigFrom("/simpleFlows/standaloneFlow.xml");
+		initSut();
+		sut.setReuseExternalContext(true);
+		sut.startFlow();
+
+		sut.setEventId("page");
+		sut.resumeFlow();
+
+		assertThat(sut.getLastRequestContext().getResponseWriter()).hasToString("step");
+		assertThat(sut.getLastRequestContext().getRequestParameterMap().get("_eventId")).isEqualTo("page");
+	}
 }
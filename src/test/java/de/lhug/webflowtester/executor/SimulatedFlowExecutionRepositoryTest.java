@@ -0,0 +1,103 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SimulatedFlowExecutionRepositoryTest {
+
+	private MockFlowTester tester;
+
+	private SimulatedFlowExecutionRepository sut;
+
+	@BeforeEach
+	void setUp() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/simpleFlows/flowWithInput.xml");
+		tester = MockFlowTester.from(new XMLMockFlowBuilder(configuration));
+		sut = new SimulatedFlowExecutionRepository();
+		tester.useRepository(sut);
+	}
+
+	private void signal(String eventId) {
+		tester.setEventId(eventId);
+		tester.resumeFlow(Map.of("inputParameter", "parameter"));
+	}
+
+	@Test
+	void shouldResumeExecutionRestoredFromSnapshot() {
+		tester.startFlow(Map.of("inputArgument", "input"));
+		var started = tester.getCurrentFlowExecution();
+
+		signal("page");
+
+		assertThat(tester.getCurrentFlowExecution()).isNotSameAs(started);
+		assertThat(tester.getCurrentStateId()).isEqualTo("step");
+		assertThat(tester.getScope().get("inputArgument")).isEqualTo("input");
+		assertThat(tester.getScope().get("passed")).isEqualTo("parameter");
+		assertThat(tester.getFlowExecutionKey()).isEqualTo("e1s2");
+		assertThat(sut.getSnapshotCount()).isEqualTo(2);
+		assertThat(sut.getRestoreTimes().getCount()).isEqualTo(1);
+		assertThat(sut.getMaxSnapshotSize()).isPositive();
+	}
+
+	@Test
+	void shouldLoseStateChangedAfterSnapshot() {
+		tester.startFlow(Map.of("inputArgument", "input"));
+		tester.getCurrentFlowExecution().getActiveSession().getScope().put("unsaved", "value");
+
+		signal("page");
+
+		assertThat(tester.getScope().contains("unsaved")).isFalse();
+	}
+
+	@Test
+	void shouldDiscardConversationWhenExecutionEnds() {
+		tester.startFlow(Map.of("inputArgument", "input"));
+
+		signal("close");
+
+		assertThat(tester.getFlowOutcome()).isEqualTo("bye");
+		assertThat(tester.getFlowExecutionKey()).isNull();
+		assertThat(sut.getConversationCount()).isZero();
+	}
+
+	@Test
+	void shouldResumeEarlierSnapshot() {
+		tester.startFlow(Map.of("inputArgument", "input"));
+		signal("page");
+
+		tester.setFlowExecutionKey("e1s1");
+		signal("page");
+
+		assertThat(tester.getCurrentStateId()).isEqualTo("step");
+		assertThat(tester.getFlowExecutionKey()).isEqualTo("e1s3");
+	}
+
+	@Test
+	void shouldDiscardOldestSnapshots() {
+		sut.withMaxSnapshots(2).withCompression(false);
+		tester.startFlow(Map.of("inputArgument", "input"));
+		signal("page");
+		signal("back");
+
+		assertThat(sut.getEvictionCount()).isEqualTo(1);
+		assertThat(sut.contains("e1s1")).isFalse();
+		assertThat(sut.contains("e1s2")).isTrue();
+		assertThatThrownBy(() -> tester.setFlowExecutionKey("e1s1"))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void shouldStartNewConversationPerStart() {
+		tester.startFlow(Map.of("inputArgument", "input"));
+		tester.startFlow(Map.of("inputArgument", "input"));
+
+		assertThat(tester.getFlowExecutionKey()).isEqualTo("e2s1");
+		assertThat(sut.getConversationCount()).isEqualTo(1);
+	}
+}
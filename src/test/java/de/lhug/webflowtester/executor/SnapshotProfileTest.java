@@ -0,0 +1,98 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SnapshotProfileTest {
+
+	private MockFlowTester tester;
+
+	private SnapshotProfile sut;
+
+	@BeforeEach
+	void setUp() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/simpleFlows/flowWithInput.xml");
+		tester = MockFlowTester.from(new XMLMockFlowBuilder(configuration));
+		sut = new SnapshotProfile();
+		tester.profileSnapshots(sut);
+	}
+
+	private void runToEnd() {
+		tester.startFlow(Map.of("inputArgument", "input"));
+		tester.setEventId("page");
+		tester.resumeFlow(Map.of("inputParameter", "a rather long parameter value"));
+		tester.setEventId("close");
+		tester.resumeFlow();
+	}
+
+	@Test
+	void shouldRecordSnapshotPerPausedState() {
+		runToEnd();
+
+		assertThat(sut.getStates()).containsOnlyKeys("flowWithInput#start", "flowWithInput#step");
+		var step = sut.getStates().get("flowWithInput#step");
+		assertThat(step.getCount()).isEqualTo(1);
+		assertThat(step.getMaxSize()).isPositive();
+		assertThat(step.getSerializationTimes().getCount()).isEqualTo(1);
+		assertThat(sut.getMaxSnapshotSize()).isEqualTo(step.getMaxSize());
+	}
+
+	@Test
+	void shouldRecordLargestAttributes() {
+		runToEnd();
+
+		var largest = sut.getStates().get("flowWithInput#step").getLargestAttributes();
+		assertThat(largest.keySet()).containsSubsequence("flowScope.passed", "flowScope.inputArgument")
+				.doesNotContain("conversationScope.flashScope", "flowScope.viewScope");
+		assertThat(sut.getStates().get("flowWithInput#start").getLargestAttributes())
+				.containsOnlyKeys("flashScope.messagesMemento", "flowScope.inputArgument");
+	}
+
+	@Test
+	void shouldCompressSnapshotsOnlyWhenRequested() {
+		var uncompressed = new SnapshotProfile(false);
+		tester.profileSnapshots(uncompressed);
+		tester.startFlow(Map.of("inputArgument", "input"));
+		tester.profileSnapshots(sut);
+		tester.startFlow(Map.of("inputArgument", "input"));
+
+		assertThat(sut.getMaxSnapshotSize()).isLessThan(uncompressed.getMaxSnapshotSize());
+	}
+
+	@Test
+	void shouldFailAssertionListingExceedingStates() {
+		runToEnd();
+
+		sut.assertMaxSnapshotSize(sut.getMaxSnapshotSize());
+		assertThatThrownBy(() -> sut.assertMaxSnapshotSize(1))
+				.isInstanceOf(AssertionError.class)
+				.hasMessageContaining("flowWithInput#start")
+				.hasMessageContaining("flowWithInput#step");
+	}
+
+	@Test
+	void shouldFailRequestHoldingUnserializableAttribute() {
+		tester.startFlow(Map.of("inputArgument", "input"));
+		tester.getCurrentFlowExecution().getActiveSession().getScope().put("unserializable", new Object());
+		tester.setEventId("page");
+
+		assertThatThrownBy(() -> tester.resumeFlow())
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("could not be serialized");
+	}
+
+	@Test
+	void shouldStopProfiling() {
+		tester.profileSnapshots(null);
+
+		runToEnd();
+
+		assertThat(sut.getStates()).isEmpty();
+	}
+}
@@ -0,0 +1,90 @@
+package de.lhug.webflowtester.executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.webflow.execution.FlowExecutionException;
+
+class TraceReplayerTest {
+
+	private TraceReplayer sut;
+
+	@BeforeEach
+	void setUp() {
+		XMLMockFlowConfiguration configuration = new XMLMockFlowConfiguration("/simpleFlows/standaloneFlow.xml");
+		sut = TraceReplayer.from(new XMLMockFlowBuilder(configuration), 4);
+	}
+
+	private static Path trace() throws URISyntaxException {
+		return Paths.get(TraceReplayerTest.class.getResource("/traces/standaloneFlow.jsonl").toURI());
+	}
+
+	@Test
+	void shouldCountJourneysSkippingBlankLines() throws Exception {
+		var result = sut.replay(trace());
+
+		assertThat(result.getJourneyCount()).isEqualTo(5);
+		assertThat(result.isSuccessful()).isFalse();
+	}
+
+	@Test
+	void shouldReportFirstDivergenceOfEachJourney() throws Exception {
+		var result = sut.replay(trace());
+
+		assertThat(result.getDivergences()).hasSize(2);
+		var diverging = result.getDivergences().get(0);
+		assertThat(diverging.getJourneyId()).isEqualTo("diverging");
+		assertThat(diverging.getLine()).isEqualTo(3);
+		assertThat(diverging.getStep()).isEqualTo(1);
+		assertThat(diverging.getEventId()).isEqualTo("page");
+		assertThat(diverging.getExpected()).isEqualTo("start");
+		assertThat(diverging.getActual()).isEqualTo("step");
+		assertThat(result.getDivergences().get(1)).hasToString(
+				"journey 6 (line 6), step 1 'close': expected 'step' but was 'bye'");
+	}
+
+	@Test
+	void shouldReportFailingJourneys() throws Exception {
+		var result = sut.replay(trace());
+
+		assertThat(result.getFailures()).hasSize(2);
+		var unknown = result.getFailures().get(0);
+		assertThat(unknown.getJourneyId()).isEqualTo("unknown");
+		assertThat(unknown.getFailure()).isInstanceOf(FlowExecutionException.class);
+		var malformed = result.getFailures().get(1);
+		assertThat(malformed.getJourneyId()).isEqualTo("5");
+		assertThat(malformed.getFailure()).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldRecordLatenciesPerEvent() throws Exception {
+		var result = sut.replay(trace());
+
+		assertThat(result.getLatencies()).containsOnlyKeys(ReplayReport.START, "page", "close");
+		assertThat(result.getLatencies().get(ReplayReport.START).getCount()).isEqualTo(4);
+		assertThat(result.getLatencies().get("close").getCount()).isEqualTo(2);
+	}
+
+	@Test
+	void shouldReplayMoreJourneysThanFitInFlight() {
+		String trace = IntStream.range(0, 500)
+				.mapToObj(i -> "{\"id\": \"" + i + "\", \"steps\": [{\"event\": \"page\", \"state\": \"step\"},"
+						+ " {\"event\": \"back\", \"state\": \"start\"}]}")
+				.collect(Collectors.joining("\n"));
+
+		var result = sut.replay(new StringReader(trace));
+
+		assertThat(result.getJourneyCount()).isEqualTo(500);
+		assertThat(result.isSuccessful()).isTrue();
+		assertThat(result.getLatencies().get("back").getCount()).isEqualTo(500);
+	}
+}
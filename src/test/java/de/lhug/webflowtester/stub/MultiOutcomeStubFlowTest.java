@@ -0,0 +1,103 @@
+package de.lhug.webflowtester.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.FlowTestContext;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import de.lhug.webflowtester.executor.MockFlowTester;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.definition.FlowDefinition;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.impl.FlowExecutionImpl;
+import org.springframework.webflow.execution.FlowExecution;
+import org.springframework.webflow.execution.FlowExecutionOutcome;
+
+class MultiOutcomeStubFlowTest {
+
+	private MultiOutcomeStubFlow sut;
+
+	@BeforeEach
+	void setUp() {
+		sut = new MultiOutcomeStubFlow("subFlow", "end", "back");
+	}
+
+	private static FlowExecutionOutcome run(FlowDefinition definition) {
+		FlowExecution exec = new FlowExecutionImpl((Flow) definition);
+		exec.start(new LocalAttributeMap<>("key", "input"), null);
+
+		assertThat(exec.hasEnded()).isTrue();
+		return exec.getOutcome();
+	}
+
+	@Test
+	void shouldRequireAtLeastOneOutcome() {
+		assertThatThrownBy(() -> new MultiOutcomeStubFlow("subFlow"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldRejectDuplicateOutcomes() {
+		assertThatThrownBy(() -> new MultiOutcomeStubFlow("subFlow", "end", "end"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldSelectFirstOutcomeInitially() {
+		assertThat(sut.getOutcomes()).containsExactly("end", "back");
+		assertThat(sut.getSelectedOutcome()).isEqualTo("end");
+		assertThat(run(sut.getFlowDefinition()).getId()).isEqualTo("end");
+	}
+
+	@Test
+	void shouldReuseFlowPerOutcome() {
+		FlowDefinition end = sut.getFlowDefinition();
+		sut.selectOutcome("back");
+		FlowDefinition back = sut.getFlowDefinition();
+
+		sut.selectOutcome("end");
+
+		assertThat(back).isNotSameAs(end);
+		assertThat(run(back).getId()).isEqualTo("back");
+		assertThat(sut.getFlowDefinition()).isSameAs(end);
+	}
+
+	@Test
+	void shouldRejectUndeclaredOutcome() {
+		assertThatThrownBy(() -> sut.selectOutcome("other"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldCaptureInputAndEmitOutputOfAllOutcomes() {
+		sut.addOutputAttribute("out", "put");
+		sut.selectOutcome("back");
+
+		FlowExecutionOutcome result = run(sut.getFlowDefinition());
+
+		assertThat(result.getOutput().get("out")).isEqualTo("put");
+		assertThat(sut.getInputAttributes().get("key")).isEqualTo("input");
+		assertThat(sut.getInputAttributes().asMap()).isEmpty();
+	}
+
+	@Test
+	void shouldSwitchOutcomesOfBuiltFlowWithoutRebuilding() {
+		FlowTestContext context = new FlowTestContext();
+		context.addSubFlow(sut);
+		MockFlowTester tester = MockFlowTester.from(
+				new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/subFlows/flow.xml")).withContext(context));
+		tester.startFlow();
+
+		sut.selectOutcome("back");
+		tester.setEventId("page");
+		tester.resumeFlow();
+		assertThat(tester.getCurrentStateId()).isEqualTo("start");
+
+		sut.selectOutcome("end");
+		tester.resumeFlow();
+		assertThat(tester.getFlowOutcome()).isEqualTo("bye");
+	}
+}
@@ -0,0 +1,106 @@
+package de.lhug.webflowtester.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import de.lhug.webflowtester.builder.XMLMockFlowBuilder;
+import de.lhug.webflowtester.builder.configuration.FlowTestContext;
+import de.lhug.webflowtester.builder.configuration.XMLMockFlowConfiguration;
+import de.lhug.webflowtester.executor.MockFlowTesterPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.definition.FlowDefinition;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.impl.FlowExecutionImpl;
+import org.springframework.webflow.execution.FlowExecution;
+import org.springframework.webflow.execution.FlowExecutionOutcome;
+
+class ScriptedStubFlowTest {
+
+	private ScriptedStubFlow sut;
+
+	private static FlowExecutionOutcome run(FlowDefinition definition, String input) {
+		FlowExecution exec = new FlowExecutionImpl((Flow) definition);
+		exec.start(new LocalAttributeMap<>("key", input), null);
+
+		assertThat(exec.hasEnded()).isTrue();
+		return exec.getOutcome();
+	}
+
+	@Test
+	void shouldDetermineResultFromInput() {
+		sut = new ScriptedStubFlow("subFlow",
+				input -> StubResult.outcome(input.getString("key")).withOutput("echo", input.get("key")));
+
+		FlowExecutionOutcome result = run(sut.getFlowDefinition(), "end");
+
+		assertThat(result.getId()).isEqualTo("end");
+		assertThat(result.getOutput().get("echo")).isEqualTo("end");
+	}
+
+	@Test
+	void shouldReturnScriptedResultsInOrderAndRepeatLast() {
+		sut = ScriptedStubFlow.sequence("subFlow", StubResult.outcome("first"), StubResult.outcome("last"));
+
+		assertThat(run(sut.getFlowDefinition(), "a").getId()).isEqualTo("first");
+		assertThat(run(sut.getFlowDefinition(), "b").getId()).isEqualTo("last");
+		assertThat(run(sut.getFlowDefinition(), "c").getId()).isEqualTo("last");
+	}
+
+	@Test
+	void shouldLogEveryInvocation() {
+		sut = ScriptedStubFlow.sequence("subFlow", StubResult.outcome("end"));
+		run(sut.getFlowDefinition(), "a");
+		run(sut.getFlowDefinition(), "b");
+
+		var result = sut.getInvocations();
+
+		assertThat(result).hasSize(2);
+		assertThat(result.get(0).getInput()).containsEntry("key", "a");
+		assertThat(result.get(1).getInput()).containsEntry("key", "b");
+		assertThat(result.get(1).getResult()).isEqualTo(StubResult.outcome("end"));
+		assertThat(result.get(1).getTimestamp()).isAfterOrEqualTo(result.get(0).getTimestamp());
+		assertThat(result.get(0).getCallerFlowId()).isNull();
+	}
+
+	@Test
+	void shouldClearInvocations() {
+		sut = ScriptedStubFlow.sequence("subFlow", StubResult.outcome("end"));
+		run(sut.getFlowDefinition(), "a");
+
+		sut.clearInvocations();
+
+		assertThat(sut.getInvocationCount()).isZero();
+	}
+
+	@Test
+	void shouldRequireResults() {
+		assertThatThrownBy(() -> ScriptedStubFlow.sequence("subFlow"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void shouldSeparateInvocationsOfParallelExecutions() {
+		sut = ScriptedStubFlow.sequence("subFlow", StubResult.outcome("back"));
+		FlowTestContext context = new FlowTestContext();
+		context.addSubFlow(sut);
+		MockFlowTesterPool pool = MockFlowTesterPool.from(
+				new XMLMockFlowBuilder(new XMLMockFlowConfiguration("/subFlows/flow.xml")).withContext(context), 4);
+
+		var result = pool.run(25, tester -> {
+			tester.startFlow();
+			tester.setEventId("page");
+			tester.resumeFlow();
+			tester.resumeFlow();
+			return sut.getInvocations(tester.getCurrentFlowExecution());
+		});
+
+		assertThat(result.getFailures()).isEmpty();
+		assertThat(sut.getInvocationCount()).isEqualTo(200);
+		assertThat(result.getResults()).allSatisfy(invocations -> {
+			assertThat(invocations).hasSize(2);
+			assertThat(invocations.get(0).getCallerFlowId()).isEqualTo("flow");
+			assertThat(invocations.get(0).getCallerStateId()).isEqualTo("step");
+		});
+	}
+}
@@ -0,0 +1,122 @@
+package de.lhug.webflowtester.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.webflow.core.collection.LocalAttributeMap;
+import org.springframework.webflow.engine.Flow;
+import org.springframework.webflow.engine.impl.FlowExecutionImpl;
+
+class StubStatisticsTest {
+
+	private StubStatistics sut;
+
+	private static void run(StubFlow stub) {
+		new FlowExecutionImpl((Flow) stub.getFlowDefinition()).start(new LocalAttributeMap<>(), null);
+	}
+
+	@Test
+	void shouldCountInvocationsPerStub() {
+		var first = new StubFlow("countedFlow", "end");
+		var second = new StubFlow("countedFlow", "end");
+		sut = first.getTiming().getStatistics();
+
+		run(first);
+		run(first);
+		run(second);
+
+		assertThat(sut.getStubId()).isEqualTo("countedFlow");
+		assertThat(sut.getInvocationCount()).isEqualTo(2);
+		assertThat(sut.getLatencies().getCount()).isEqualTo(2);
+		assertThat(second.getTiming().getStatistics().getInvocationCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldSumUpStatisticsByStubId() {
+		var first = new StubFlow("countedFlow", "end");
+		var second = new StubFlow("countedFlow", "end");
+		var other = new StubFlow("otherFlow", "end");
+		run(first);
+		run(second);
+		run(second);
+
+		var result = StubStatistics.byStubId(List.of(first.getTiming().getStatistics(),
+				second.getTiming().getStatistics(), other.getTiming().getStatistics()));
+
+		assertThat(result).containsOnlyKeys("countedFlow", "otherFlow");
+		assertThat(result.get("countedFlow").getInvocationCount()).isEqualTo(3);
+		assertThat(result.get("countedFlow").getLatencies().getCount()).isEqualTo(3);
+		assertThat(result.get("otherFlow").getInvocationCount()).isZero();
+		assertThat(first.getTiming().getStatistics().getInvocationCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shouldDelayInvocationByLatency() {
+		var stub = new StubFlow("slowFlow", "end");
+		stub.getTiming().setLatency(StubLatency.fixed(Duration.ofMillis(20)));
+		sut = stub.getTiming().getStatistics();
+
+		long start = System.nanoTime();
+		run(stub);
+		long elapsed = System.nanoTime() - start;
+
+		assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+		assertThat(sut.getLatencies().getMaxNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(20).toNanos());
+	}
+
+	@Test
+	void shouldDelayScriptedStub() {
+		var stub = ScriptedStubFlow.sequence("slowScriptedFlow", StubResult.outcome("end"));
+		stub.getTiming().setLatency(StubLatency.fixed(Duration.ofMillis(5)));
+
+		new FlowExecutionImpl((Flow) stub.getFlowDefinition()).start(new LocalAttributeMap<>(), null);
+
+		assertThat(stub.getTiming().getStatistics().getInvocationCount()).isEqualTo(1);
+		assertThat(stub.getTiming().getStatistics().getLatencies().getMaxNanos()).isGreaterThanOrEqualTo(Duration.ofMillis(5).toNanos());
+	}
+
+	@Test
+	void shouldResetStatistics() {
+		var stub = new StubFlow("resetFlow", "end");
+		sut = stub.getTiming().getStatistics();
+		run(stub);
+
+		sut.reset();
+
+		assertThat(sut.getInvocationCount()).isZero();
+		assertThat(sut.getLatencies().getCount()).isZero();
+	}
+
+	@Test
+	void shouldDrawUniformLatencyWithinBounds() {
+		var latency = StubLatency.uniform(Duration.ofMillis(1), Duration.ofMillis(3));
+
+		for (int i = 0; i < 1000; i++) {
+			assertThat(latency.nextNanos()).isBetween(Duration.ofMillis(1).toNanos(), Duration.ofMillis(3).toNanos());
+		}
+	}
+
+	@Test
+	void shouldDrawSampledLatencyFromSamples() {
+		var latency = StubLatency.sampled(List.of(Duration.ofMillis(1), Duration.ofMillis(7)));
+
+		for (int i = 0; i < 100; i++) {
+			assertThat(latency.nextNanos()).isIn(Duration.ofMillis(1).toNanos(), Duration.ofMillis(7).toNanos());
+		}
+	}
+
+	@Test
+	void shouldRejectInvalidLatencies() {
+		assertThatThrownBy(() -> StubLatency.fixed(Duration.ofMillis(-1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> StubLatency.uniform(Duration.ofMillis(2), Duration.ofMillis(1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> StubLatency.sampled(List.of()))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new StubFlow("flow", "end").getTiming().setLatency(null))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}